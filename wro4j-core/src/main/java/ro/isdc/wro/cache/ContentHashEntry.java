@@ -3,24 +3,33 @@
  */
 package ro.isdc.wro.cache;
 
-import java.io.BufferedOutputStream;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.io.Serializable;
-import java.util.zip.GZIPOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.config.Context;
+import ro.isdc.wro.http.encoding.ContentCoding;
+import ro.isdc.wro.http.encoding.DeflateContentCoding;
+import ro.isdc.wro.http.encoding.GzipContentCoding;
 
 
 /**
- * Entry holding a resource content along with its associated hash.
+ * Entry holding a resource content along with its associated hash. The content is kept as encoded bytes (using the
+ * configured encoding), so that it can be written directly to the response without any further char to byte
+ * conversion. When {@link ro.isdc.wro.config.jmx.WroConfiguration#isCacheGzippedContent()} is enabled, the variants
+ * of the provided {@link ContentCoding}'s are computed once, when the entry is created. Other variants can be cached
+ * using {@link #cacheEncodedContent(ContentCoding)}.
  *
  * @author Alex Objelean
  */
@@ -28,47 +37,169 @@ import ro.isdc.wro.config.Context;
 public final class ContentHashEntry
   implements Serializable {
   private static final Logger LOG = LoggerFactory.getLogger(ContentHashEntry.class);
-  private String rawContent;
-  private byte[] gzippedContent;
+  private static final ContentCoding GZIP = new GzipContentCoding();
+  private static final ContentCoding DEFLATE = new DeflateContentCoding();
+  /**
+   * The codings cached by the factory methods which don't specify them.
+   */
+  private static final List<ContentCoding> DEFAULT_CODINGS = Arrays.asList(GZIP, DEFLATE);
+  /**
+   * The raw content encoded using {@link #encoding}.
+   */
+  private byte[] rawContent;
+  /**
+   * The cached encoded variants of the raw content, by coding name.
+   */
+  private final Map<String, byte[]> encodedContents = new ConcurrentHashMap<String, byte[]>();
+  /**
+   * The charset used to encode the raw content.
+   */
+  private final String encoding;
   private String hash;
 
-  private ContentHashEntry(final String rawContent, final String hash) {
+  private ContentHashEntry(final byte[] rawContent, final String encoding, final String hash,
+    final Collection<ContentCoding> codings) {
     this.rawContent = rawContent;
+    this.encoding = encoding;
     this.hash = hash;
     //the trade-off between the memory and processing time
-    if (Context.get().getConfig().isCacheGzippedContent()) {
-      gzippedContent = computeGzippedContent(rawContent);
+    if (rawContent != null && Context.get().getConfig().isCacheGzippedContent()) {
+      for (final ContentCoding coding : codings) {
+        cacheEncodedContent(coding);
+      }
     }
   }
 
-  private byte[] computeGzippedContent(final String content) {
-    LOG.debug("Gzipping the content....");
+  private ContentHashEntry(final byte[] rawContent, final String encoding, final String hash,
+    final Map<String, byte[]> encodedContents) {
+    this.rawContent = rawContent;
+    this.encoding = encoding;
+    this.hash = hash;
+    this.encodedContents.putAll(encodedContents);
+  }
+
+  private byte[] computeEncodedContent(final ContentCoding coding, final boolean cached) {
+    LOG.debug("Encoding the content using {}....", coding.getName());
     try {
-      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-      final OutputStream os = new GZIPOutputStream(new BufferedOutputStream(baos));
-      IOUtils.copy(new ByteArrayInputStream(content.getBytes()), os);
-      os.close();
-      return baos.toByteArray();
+      return coding.encode(rawContent, cached);
     } catch (final IOException e) {
-      throw new WroRuntimeException("Problem while computing gzipped content", e).logError();
+      throw new WroRuntimeException("Problem while computing " + coding.getName() + " content", e).logError();
+    }
+  }
+
+
+  /**
+   * Computes the variant of the content encoded with the provided coding and keeps it for the whole life of this entry.
+   * Does nothing if the variant is already cached.
+   */
+  public void cacheEncodedContent(final ContentCoding coding) {
+    Validate.notNull(coding);
+    if (rawContent != null && !encodedContents.containsKey(coding.getName())) {
+      encodedContents.put(coding.getName(), computeEncodedContent(coding, true));
     }
-  };
+  }
 
 
   /**
-   * Factory method.
+   * @return the content encoded with the provided coding, computed on demand if it is not cached.
+   */
+  public byte[] getEncodedContent(final ContentCoding coding) {
+    Validate.notNull(coding);
+    final byte[] encodedContent = encodedContents.get(coding.getName());
+    return encodedContent != null ? encodedContent : computeEncodedContent(coding, false);
+  }
+
+
+  /**
+   * @return the cached encoded variants of the content, by coding name.
+   */
+  public Map<String, byte[]> getCachedEncodedContents() {
+    return Collections.unmodifiableMap(encodedContents);
+  }
+
+
+  /**
+   * Factory method. The content is encoded using the encoding from the current configuration, the gzip and deflate
+   * variants are cached if {@link ro.isdc.wro.config.jmx.WroConfiguration#isCacheGzippedContent()} is enabled.
    *
    * @return {@link ContentHashEntry} based on supplied values.
    */
   public static final ContentHashEntry valueOf(final String rawContent, final String hash) {
-    return new ContentHashEntry(rawContent, hash);
+    final String encoding = Context.get().getConfig().getEncoding();
+    return new ContentHashEntry(toBytes(rawContent, encoding), encoding, hash, DEFAULT_CODINGS);
+  }
+
+
+  /**
+   * Factory method for already encoded content. Useful when the hash was computed on the same bytes, in order to avoid
+   * encoding the content twice.
+   *
+   * @param rawContent content encoded using the encoding from current configuration.
+   * @param codings the codings whose variants are cached if
+   *        {@link ro.isdc.wro.config.jmx.WroConfiguration#isCacheGzippedContent()} is enabled.
+   * @return {@link ContentHashEntry} based on supplied values.
+   */
+  public static final ContentHashEntry valueOf(final byte[] rawContent, final String hash,
+    final Collection<ContentCoding> codings) {
+    Validate.notNull(codings);
+    return new ContentHashEntry(rawContent, Context.get().getConfig().getEncoding(), hash, codings);
+  }
+
+
+  /**
+   * Factory method used to restore an entry whose content was already encoded and compressed (ex: read from a
+   * persistent cache). No compression is performed.
+   *
+   * @param encodedContents the encoded variants of the content, by coding name. The missing variants are computed on
+   *        demand.
+   * @return {@link ContentHashEntry} based on supplied values.
+   */
+  public static final ContentHashEntry valueOf(final byte[] rawContent, final String encoding, final String hash,
+    final Map<String, byte[]> encodedContents) {
+    Validate.notNull(encodedContents);
+    return new ContentHashEntry(rawContent, encoding, hash, encodedContents);
+  }
+
+
+  /**
+   * @return the gzipped content, only if it is cached (otherwise null).
+   */
+  public byte[] getCachedGzippedContent() {
+    return encodedContents.get(GZIP.getName());
+  }
+
+
+  /**
+   * @return the deflated content, only if it is cached (otherwise null).
+   */
+  public byte[] getCachedDeflatedContent() {
+    return encodedContents.get(DEFLATE.getName());
+  }
+
+
+  private static byte[] toBytes(final String content, final String encoding) {
+    if (content == null) {
+      return null;
+    }
+    try {
+      return content.getBytes(encoding);
+    } catch (final UnsupportedEncodingException e) {
+      throw new WroRuntimeException("Unsupported encoding: " + encoding, e);
+    }
   }
 
   /**
-   * @return the content
+   * @return the content decoded as string.
    */
   public String getRawContent() {
-    return this.rawContent;
+    if (rawContent == null) {
+      return null;
+    }
+    try {
+      return new String(rawContent, encoding);
+    } catch (final UnsupportedEncodingException e) {
+      throw new WroRuntimeException("Unsupported encoding: " + encoding, e);
+    }
   }
 
 
@@ -76,7 +207,33 @@ public final class ContentHashEntry
    * @param rawContent the content to set
    */
   public void setRawContent(final String rawContent) {
-    this.rawContent = rawContent;
+    this.rawContent = toBytes(rawContent, encoding);
+    // only the variants of the known codings can be computed again, the others are computed on demand
+    final boolean gzipCached = encodedContents.containsKey(GZIP.getName());
+    final boolean deflateCached = encodedContents.containsKey(DEFLATE.getName());
+    encodedContents.clear();
+    if (gzipCached) {
+      cacheEncodedContent(GZIP);
+    }
+    if (deflateCached) {
+      cacheEncodedContent(DEFLATE);
+    }
+  }
+
+
+  /**
+   * @return the encoded raw content, ready to be written to the response. The returned array must not be modified.
+   */
+  public byte[] getRawBytes() {
+    return this.rawContent;
+  }
+
+
+  /**
+   * @return the charset used to encode the raw content.
+   */
+  public String getEncoding() {
+    return this.encoding;
   }
 
 
@@ -99,17 +256,14 @@ public final class ContentHashEntry
    * @return the gzippedContent
    */
   public byte[] getGzippedContent() {
-    if (gzippedContent == null) {
-      return computeGzippedContent(rawContent);
-    }
-    return this.gzippedContent;
+    return getEncodedContent(GZIP);
   }
 
   /**
-   * Used by unit test to prove that gzipped content is cached only when required.
+   * @return the content compressed using the "deflate" content-coding (zlib format).
    */
-  byte[] getGzippedContentInternal() {
-    return this.gzippedContent;
+  public byte[] getDeflatedContent() {
+    return getEncodedContent(DEFLATE);
   }
 
   /**
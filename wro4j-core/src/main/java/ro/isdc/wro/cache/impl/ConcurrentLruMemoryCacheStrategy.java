@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2011.
+ * All rights reserved.
+ */
+package ro.isdc.wro.cache.impl;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.lang3.Validate;
+
+import ro.isdc.wro.cache.CacheStrategy;
+
+
+/**
+ * A fixed-size {@link CacheStrategy} with approximate LRU (Least Recently Used) eviction, backed by a
+ * {@link ConcurrentHashMap}.
+ * <p>
+ * Unlike {@link LruMemoryCacheStrategy}, a {@link #get(Object)} never takes a global lock and never changes the
+ * structure of the map: it only records the access time on the found entry. When a {@link #put(Object, Object)} makes
+ * the cache exceed its capacity, a single thread (the one which wins the eviction flag) removes the least recently used
+ * entries, while the others continue without waiting. As a consequence, the cache can temporarily hold slightly more
+ * entries than its capacity.
+ * </p>
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public class ConcurrentLruMemoryCacheStrategy<K, V>
+  implements CacheStrategy<K, V> {
+  /**
+   * Holds the value along with the time of the last access.
+   */
+  private static final class Node<V> {
+    private final V value;
+    private volatile long lastAccess;
+
+    Node(final V value) {
+      this.value = value;
+      this.lastAccess = System.nanoTime();
+    }
+  }
+  private final ConcurrentMap<K, Node<V>> map;
+  private final int cacheSize;
+  /**
+   * Ensures that only one thread performs the eviction at a time.
+   */
+  private final AtomicBoolean evicting = new AtomicBoolean();
+
+  /**
+   * Constructs a {@link ConcurrentLruMemoryCacheStrategy} and sets the default size up to
+   * {@link LruMemoryCacheStrategy#DEFAULT_SIZE}
+   */
+  public ConcurrentLruMemoryCacheStrategy() {
+    this(LruMemoryCacheStrategy.DEFAULT_SIZE);
+  }
+
+  /**
+   * @param cacheSize Cache size. It must be greater than 0.
+   */
+  public ConcurrentLruMemoryCacheStrategy(final int cacheSize) {
+    Validate.isTrue(cacheSize > 0, "The cache size must be greater than 0.");
+    this.cacheSize = cacheSize;
+    this.map = new ConcurrentHashMap<K, Node<V>>(cacheSize);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public V get(final K key) {
+    final Node<V> node = map.get(key);
+    if (node == null) {
+      return null;
+    }
+    node.lastAccess = System.nanoTime();
+    return node.value;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void put(final K key, final V value) {
+    map.put(key, new Node<V>(value));
+    evict();
+  }
+
+  /**
+   * Removes the least recently used entries until the size of the cache fits its capacity.
+   */
+  private void evict() {
+    // check again after releasing the flag, in case a put happened while another thread was evicting.
+    while (map.size() > cacheSize && evicting.compareAndSet(false, true)) {
+      try {
+        while (map.size() > cacheSize) {
+          K eldestKey = null;
+          Node<V> eldest = null;
+          for (final Iterator<Map.Entry<K, Node<V>>> it = map.entrySet().iterator(); it.hasNext();) {
+            final Map.Entry<K, Node<V>> entry = it.next();
+            if (eldest == null || entry.getValue().lastAccess < eldest.lastAccess) {
+              eldestKey = entry.getKey();
+              eldest = entry.getValue();
+            }
+          }
+          if (eldestKey == null) {
+            break;
+          }
+          // remove only if it was not replaced in the meantime
+          map.remove(eldestKey, eldest);
+        }
+      } finally {
+        evicting.set(false);
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void clear() {
+    map.clear();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  public void destroy() {
+    clear();
+  }
+}
@@ -0,0 +1,345 @@
+/*
+ * Copyright (C) 2011.
+ * All rights reserved.
+ */
+package ro.isdc.wro.cache.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.cache.CacheEntry;
+import ro.isdc.wro.cache.CacheStrategy;
+import ro.isdc.wro.cache.ContentHashEntry;
+
+
+/**
+ * A two level {@link CacheStrategy}: an in-memory cache backed by a persistent cache stored in a local directory. The
+ * processed content (raw bytes and all cached encoded variants, along with the hash) survives a JVM restart, so that
+ * the groups don't have to be processed again after a restart.
+ * <p>
+ * The entries stored on disk are not used until {@link #validate(String)} is invoked with a fingerprint describing the
+ * model and its resources (see {@link ro.isdc.wro.manager.WroManager}). When the fingerprint is different from the
+ * one stored on disk, all the persisted entries are discarded.
+ * </p>
+ * <p>
+ * Clearing this cache deletes the persisted entries, while destroying it keeps them for the next start.
+ * </p>
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public class DiskCacheStrategy
+  implements CacheStrategy<CacheEntry, ContentHashEntry> {
+  private static final Logger LOG = LoggerFactory.getLogger(DiskCacheStrategy.class);
+  /**
+   * The name of the file holding the fingerprint of the persisted entries.
+   */
+  static final String FINGERPRINT_FILE = "wro4j.fingerprint";
+  private static final String ENTRY_EXTENSION = ".entry";
+  /**
+   * Version of the file format, allows to ignore entries written by a different version.
+   */
+  private static final int FORMAT_VERSION = 2;
+  private static final String CHARSET = "UTF-8";
+  private static final FilenameFilter ENTRY_FILTER = new FilenameFilter() {
+    public boolean accept(final File dir, final String name) {
+      return name.endsWith(ENTRY_EXTENSION);
+    }
+  };
+  /**
+   * First level cache.
+   */
+  private final CacheStrategy<CacheEntry, ContentHashEntry> memoryCache;
+  /**
+   * Where the entries are persisted.
+   */
+  private final File directory;
+  /**
+   * True when the persisted entries are known to be valid for the current model.
+   */
+  private volatile boolean validated = false;
+
+
+  /**
+   * @param memoryCache the first level cache.
+   * @param directory the folder where entries are persisted. It is created if it doesn't exist.
+   */
+  public DiskCacheStrategy(final CacheStrategy<CacheEntry, ContentHashEntry> memoryCache, final File directory) {
+    Validate.notNull(memoryCache);
+    Validate.notNull(directory);
+    this.memoryCache = memoryCache;
+    this.directory = directory;
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new WroRuntimeException("Cannot create disk cache directory: " + directory);
+    }
+    LOG.debug("Using disk cache directory: {}", directory);
+  }
+
+
+  /**
+   * Compares the provided fingerprint with the one stored on disk. If they are different, all persisted entries are
+   * deleted. After this method is invoked, the persisted entries are used.
+   *
+   * @param fingerprint a value describing the model and its resources.
+   */
+  public synchronized void validate(final String fingerprint) {
+    Validate.notNull(fingerprint);
+    final File fingerprintFile = new File(directory, FINGERPRINT_FILE);
+    try {
+      final String persistedFingerprint = fingerprintFile.isFile() ? FileUtils.readFileToString(fingerprintFile,
+        CHARSET) : null;
+      if (!fingerprint.equals(persistedFingerprint)) {
+        LOG.info("Disk cache fingerprint changed. Discarding persisted entries from: {}", directory);
+        deleteEntries();
+        FileUtils.writeStringToFile(fingerprintFile, fingerprint, CHARSET);
+      } else {
+        LOG.debug("Disk cache fingerprint is valid: {}", fingerprint);
+      }
+    } catch (final IOException e) {
+      LOG.warn("Cannot validate disk cache fingerprint. Discarding persisted entries.", e);
+      deleteEntries();
+      FileUtils.deleteQuietly(fingerprintFile);
+    }
+    validated = true;
+  }
+
+
+  /**
+   * @return the folder where the entries are persisted.
+   */
+  public File getDirectory() {
+    return directory;
+  }
+
+
+  /**
+   * @return true if {@link #validate(String)} was already invoked.
+   */
+  public boolean isValidated() {
+    return validated;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public ContentHashEntry get(final CacheEntry key) {
+    ContentHashEntry value = memoryCache.get(key);
+    if (value == null && validated) {
+      value = read(key);
+      if (value != null) {
+        LOG.debug("Restored entry from disk: {}", key);
+        memoryCache.put(key, value);
+      }
+    }
+    return value;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public void put(final CacheEntry key, final ContentHashEntry value) {
+    memoryCache.put(key, value);
+    // do not persist anything until the persisted entries are validated, because the fingerprint may be stale.
+    if (validated) {
+      write(key, value);
+    }
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public void clear() {
+    memoryCache.clear();
+    deleteEntries();
+  }
+
+
+  /**
+   * Destroys the first level cache only. The persisted entries are kept for the next start.
+   */
+  public void destroy() {
+    memoryCache.destroy();
+  }
+
+
+  private void deleteEntries() {
+    final File[] files = directory.listFiles(ENTRY_FILTER);
+    if (files != null) {
+      for (final File file : files) {
+        FileUtils.deleteQuietly(file);
+      }
+    }
+  }
+
+
+  /**
+   * @return the file where the provided entry is persisted.
+   */
+  private File getFile(final CacheEntry key) {
+    try {
+      final StringBuilder name = new StringBuilder(URLEncoder.encode(key.getGroupName(), CHARSET));
+      name.append('.').append(key.getType().name().toLowerCase());
+      if (key.isMinimize()) {
+        name.append(".min");
+      }
+      return new File(directory, name.append(ENTRY_EXTENSION).toString());
+    } catch (final IOException e) {
+      throw new WroRuntimeException("Cannot encode cache entry name: " + key, e);
+    }
+  }
+
+
+  /**
+   * Reads the persisted entry using a {@link FileChannel}. The entries are not memory mapped: a mapping is released only
+   * when garbage collected and, on some platforms (ex: Windows), prevents the file from being replaced by
+   * {@link #write(CacheEntry, ContentHashEntry)} until then.
+   *
+   * @return the persisted {@link ContentHashEntry} or null if there is no valid persisted entry.
+   */
+  private ContentHashEntry read(final CacheEntry key) {
+    final File file = getFile(key);
+    if (!file.isFile()) {
+      return null;
+    }
+    FileInputStream fis = null;
+    try {
+      fis = new FileInputStream(file);
+      final ByteBuffer buffer = readBuffer(fis.getChannel());
+      if (buffer.getInt() != FORMAT_VERSION) {
+        LOG.debug("Ignoring entry with different format: {}", file);
+        return null;
+      }
+      final String hash = readString(buffer);
+      final String encoding = readString(buffer);
+      final byte[] rawContent = readBytes(buffer);
+      final int encodedContentsCount = buffer.getInt();
+      final Map<String, byte[]> encodedContents = new HashMap<String, byte[]>();
+      for (int i = 0; i < encodedContentsCount; i++) {
+        final String coding = readString(buffer);
+        encodedContents.put(coding, readBytes(buffer));
+      }
+      return ContentHashEntry.valueOf(rawContent, encoding, hash, encodedContents);
+    } catch (final IOException e) {
+      LOG.warn("Cannot read persisted entry: " + file, e);
+    } catch (final BufferUnderflowException e) {
+      LOG.warn("Corrupted persisted entry: {}", file);
+    } catch (final IllegalArgumentException e) {
+      LOG.warn("Corrupted persisted entry: {}", file);
+    } finally {
+      IOUtils.closeQuietly(fis);
+    }
+    FileUtils.deleteQuietly(file);
+    return null;
+  }
+
+
+  /**
+   * @return a buffer holding the whole content of the channel, ready to be read.
+   */
+  private ByteBuffer readBuffer(final FileChannel channel)
+    throws IOException {
+    final ByteBuffer buffer = ByteBuffer.allocate((int)channel.size());
+    while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+      ;
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+
+  private String readString(final ByteBuffer buffer)
+    throws IOException {
+    final byte[] bytes = readBytes(buffer);
+    return bytes == null ? null : new String(bytes, CHARSET);
+  }
+
+
+  private byte[] readBytes(final ByteBuffer buffer) {
+    final int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    if (length > buffer.remaining()) {
+      // avoid allocating a huge array for a corrupted length
+      throw new BufferUnderflowException();
+    }
+    final byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+
+  /**
+   * Persists the entry. The content is written in a temporary file which is renamed when complete, in order to avoid
+   * reading partially written entries.
+   */
+  private void write(final CacheEntry key, final ContentHashEntry value) {
+    final File file = getFile(key);
+    File tempFile = null;
+    DataOutputStream out = null;
+    try {
+      tempFile = File.createTempFile("wro4j", ".tmp", directory);
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+      out.writeInt(FORMAT_VERSION);
+      writeString(out, value.getHash());
+      writeString(out, value.getEncoding());
+      writeBytes(out, value.getRawBytes());
+      // all the cached variants are persisted, including the ones of the custom codings
+      final Map<String, byte[]> encodedContents = new HashMap<String, byte[]>(value.getCachedEncodedContents());
+      out.writeInt(encodedContents.size());
+      for (final Map.Entry<String, byte[]> encodedContent : encodedContents.entrySet()) {
+        writeString(out, encodedContent.getKey());
+        writeBytes(out, encodedContent.getValue());
+      }
+      out.close();
+      out = null;
+      FileUtils.deleteQuietly(file);
+      if (!tempFile.renameTo(file)) {
+        LOG.warn("Cannot persist cache entry: {}", key);
+      }
+    } catch (final IOException e) {
+      LOG.warn("Cannot persist cache entry: " + key, e);
+    } finally {
+      IOUtils.closeQuietly(out);
+      FileUtils.deleteQuietly(tempFile);
+    }
+  }
+
+
+  private void writeString(final DataOutputStream out, final String value)
+    throws IOException {
+    writeBytes(out, value == null ? null : value.getBytes(CHARSET));
+  }
+
+
+  private void writeBytes(final DataOutputStream out, final byte[] bytes)
+    throws IOException {
+    if (bytes == null) {
+      out.writeInt(-1);
+    } else {
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+}
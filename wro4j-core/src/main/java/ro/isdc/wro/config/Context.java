@@ -26,14 +26,23 @@ import ro.isdc.wro.model.resource.ResourceType;
 public class Context {
   /**
    * Thread local holding CURRENT context. This instance is of {@link InheritableThreadLocal} type because threads
-   * created by this thread should be able to access the {@link Context}.
-   */
-  private static final ThreadLocal<Context> CURRENT = new InheritableThreadLocal<Context>();
+   * created by this thread should be able to access the {@link Context}. The request fields are saved when a thread
+   * inherits the context, since the thread can outlive the request cycle.
+   */
+  private static final ThreadLocal<Context> CURRENT = new InheritableThreadLocal<Context>() {
+    @Override
+    protected Context childValue(final Context parent) {
+      if (parent != null && parent.request != null) {
+        parent.request.saveFields();
+      }
+      return parent;
+    }
+  };
   private WroConfiguration wroConfig;
   /**
    * Request.
    */
-  private HttpServletRequest request;
+  private FieldsSavingRequestWrapper request;
   /**
    * Response.
    */
@@ -149,7 +158,7 @@ public class Context {
    * Constructor.
    */
   private Context(final HttpServletRequest request, final HttpServletResponse response, final FilterConfig filterConfig) {
-    this.request = new FieldsSavingRequestWrapper(request);
+    this.request = request != null ? new FieldsSavingRequestWrapper(request) : null;
     this.response = response;
     if (filterConfig != null) {
       this.servletContext = filterConfig.getServletContext();
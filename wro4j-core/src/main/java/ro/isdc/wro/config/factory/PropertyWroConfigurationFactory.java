@@ -41,14 +41,28 @@ public class PropertyWroConfigurationFactory
       config.setJmxEnabled(valueAsBoolean(properties.get(ConfigConstants.jmxEnabled.name()), true));
       config.setCacheUpdatePeriod(valueAsLong(properties.get(ConfigConstants.cacheUpdatePeriod.name()), 0));
       config.setModelUpdatePeriod(valueAsLong(properties.get(ConfigConstants.modelUpdatePeriod.name()), 0));
+      config.setResourceWatcherUpdatePeriod(valueAsLong(
+        properties.get(ConfigConstants.resourceWatcherUpdatePeriod.name()), 0));
       config.setDisableCache(valueAsBoolean(properties.get(ConfigConstants.disableCache.name()), false));
       config.setIgnoreMissingResources(valueAsBoolean(properties.get(ConfigConstants.ignoreMissingResources.name()), true));
       config.setEncoding(valueAsString(properties.get(ConfigConstants.encoding.name())));
       config.setWroManagerClassName(valueAsString(properties.get(ConfigConstants.managerFactoryClassName.name())));
       config.setMbeanName(valueAsString(properties.get(ConfigConstants.mbeanName.name())));
       config.setHeader(valueAsString(properties.get(ConfigConstants.header.name())));
-      config.setCacheGzippedContent(valueAsBoolean(properties.get(ConfigConstants.cacheGzippedContent.name()), false));
+      config.setAccessLogFile(valueAsString(properties.get(ConfigConstants.accessLogFile.name())));
+      config.setCacheGzippedContent(valueAsBoolean(properties.get(ConfigConstants.cacheGzippedContent.name()), true));
+      config.setStaleWhileRevalidate(valueAsBoolean(properties.get(ConfigConstants.staleWhileRevalidate.name()), false));
+      config.setCacheReloadConcurrency((int)valueAsLong(properties.get(ConfigConstants.cacheReloadConcurrency.name()), 1));
+      config.setProcessingTimeout(valueAsLong(properties.get(ConfigConstants.processingTimeout.name()), 0));
+      config.setRedirectOutdatedVersions(valueAsBoolean(
+        properties.get(ConfigConstants.redirectOutdatedVersions.name()), false));
       config.setParallelPreprocessing(valueAsBoolean(properties.get(ConfigConstants.parallelPreprocessing.name()), false));
+      config.setParallelPreprocessingThreads((int)valueAsLong(
+        properties.get(ConfigConstants.parallelPreprocessingThreads.name()), 0));
+      config.setEnginePoolMaxActive((int)valueAsLong(properties.get(ConfigConstants.enginePoolMaxActive.name()), 0));
+      config.setEnginePoolMaxIdle((int)valueAsLong(properties.get(ConfigConstants.enginePoolMaxIdle.name()), 0));
+      config.setEnginePoolMinIdle((int)valueAsLong(properties.get(ConfigConstants.enginePoolMinIdle.name()), 0));
+      config.setEnginePoolMaxWait(valueAsLong(properties.get(ConfigConstants.enginePoolMaxWait.name()), 5000));
     }
     LOG.debug("WroConfiguration created: {}", config);
     return config;
@@ -30,6 +30,11 @@ public enum ConfigConstants {
    * Parameter containing an integer value for specifying how often (in seconds) the model should be refreshed.
    */
   modelUpdatePeriod,
+  /**
+   * Parameter containing an integer value for specifying how often (in seconds) the files backing the resources and the
+   * model should be checked for changes. Only the groups containing changed resources are rebuilt.
+   */
+  resourceWatcherUpdatePeriod,
   /**
    * Disable cache configuration option. When true, the processed content won't be cached in DEVELOPMENT mode. In
    * DEPLOYMENT mode changing this flag will have no effect.
@@ -40,11 +45,55 @@ public enum ConfigConstants {
    */
   parallelPreprocessing,
   /**
-   * When this flag is enabled, the raw processed content will be gzipped only the first time and all subsequent
-   * requests will use the cached gzipped content. Otherwise, the gzip operation will be performed for each request.
-   * This flag allow to control the memory vs processing power trade-off.
+   * The number of threads used for parallel pre processing. By default the number of available processors is used.
+   */
+  parallelPreprocessingThreads,
+  /**
+   * The maximum number of engines (like less or uglify) created by each engine pool. By default the number of available
+   * processors is used.
+   */
+  enginePoolMaxActive,
+  /**
+   * The maximum number of engines kept in each engine pool while they are not used. By default all the created engines
+   * are kept.
+   */
+  enginePoolMaxIdle,
+  /**
+   * The number of engines created in advance, when an engine pool is created.
+   */
+  enginePoolMinIdle,
+  /**
+   * The maximum time (in milliseconds) to wait for an engine when all the engines of the pool are in use. 0 means no
+   * limit.
+   */
+  enginePoolMaxWait,
+  /**
+   * When this flag is enabled (default), the gzipped and deflated variants of the processed content are computed once
+   * and all subsequent requests will use the cached compressed content. Otherwise, the compression will be performed
+   * for each request. This flag allow to control the memory vs processing power trade-off.
    */
   cacheGzippedContent,
+  /**
+   * When true, reloading the cache keeps serving the previously cached content while the groups are rebuilt in
+   * background. A group which fails to be rebuilt keeps its previous content.
+   */
+  staleWhileRevalidate,
+  /**
+   * The maximum number of groups rebuilt concurrently when the cache is reloaded. By default the groups are rebuilt one
+   * after another.
+   */
+  cacheReloadConcurrency,
+  /**
+   * The maximum time (in milliseconds) a request waits for the processing of a group which is not cached yet. When
+   * exceeded, the previous content of the group is served or, if there is none, 503 (Service Unavailable) while the
+   * group is processed in background. Browsers don't retry the failed requests, use it only behind a retrying proxy.
+   */
+  processingTimeout,
+  /**
+   * When true, a request for a versioned group url having an outdated version is redirected to the url of the current
+   * version.
+   */
+  redirectOutdatedVersions,
   /**
    * Instructs wro4j to not throw an exception when a resource is missing.
    */
@@ -64,5 +113,10 @@ public enum ConfigConstants {
   /**
    * The parameter used to specify headers to put into the response, used mainly for caching.
    */
-  header
+  header,
+  /**
+   * The path of the file used to persist the number of requests served for each group. When set, the cache is warmed up
+   * at startup, starting with the most requested groups.
+   */
+  accessLogFile
 }
\ No newline at end of file
@@ -42,6 +42,11 @@ public final class WroConfiguration
    * How often to run a thread responsible for refreshing the model.
    */
   private long modelUpdatePeriod;
+  /**
+   * How often (in seconds) to check if the files backing the resources or the model were changed. When a change is
+   * detected, only the affected groups are rebuilt. By default this value is 0 (disabled).
+   */
+  private long resourceWatcherUpdatePeriod;
   /**
    * Gzip enable flag.
    */
@@ -61,11 +66,39 @@ public final class WroConfiguration
   private boolean disableCache = false;
 
   /**
-   * When this flag is enabled, the raw processed content will be gzipped only the first time and all subsequent
-   * requests will use the cached gzipped content. Otherwise, the gzip operation will be performed for each request.
-   * This flag allow to control the memory vs processing power trade-off.
+   * When this flag is enabled, the gzipped and deflated variants of the processed content are computed once, when the
+   * cache entry is created, and all subsequent requests will use the cached compressed content. Otherwise, the
+   * compression will be performed for each request. This flag allow to control the memory vs processing power
+   * trade-off. By default this value is true.
+   */
+  private boolean cacheGzippedContent = true;
+  /**
+   * When this flag is enabled, reloading the cache doesn't clear it. Instead, the previously cached content is served
+   * while the groups are rebuilt in background and each entry is replaced only when its new content is ready. By
+   * default this value is false.
+   */
+  private boolean staleWhileRevalidate = false;
+  /**
+   * The maximum number of groups rebuilt concurrently when the cache is reloaded, the most requested groups being
+   * rebuilt first. By default this value is 1 (the groups are rebuilt one after another).
+   */
+  private int cacheReloadConcurrency = 1;
+  /**
+   * The maximum time (in milliseconds) a request waits for the processing of a group which is not cached yet. When
+   * exceeded, the previous content of the group is served (not cacheable) while the group is processed in background.
+   * If the group was never processed, the request is answered with 503 (Service Unavailable) and a Retry-After header.
+   * Browsers don't retry the failed script and stylesheet requests, thus a timeout is useful only behind a CDN or a
+   * proxy which retries them. By default this value is 0 (the request waits until the processing is complete).
+   */
+  private long processingTimeout = 0;
+  /**
+   * When true, a request for a versioned group url (see
+   * {@link ro.isdc.wro.manager.WroManager#encodeVersionIntoGroupPath}) having an outdated version is redirected to the
+   * url of the current version. A folder is considered an outdated version only if it looks exactly like a hash of the
+   * current content (same length and hexadecimal characters). By default this flag is false: only the folder equal to
+   * the current hash is treated as a version.
    */
-  private boolean cacheGzippedContent = false;
+  private boolean redirectOutdatedVersions = false;
   /**
    * Allow to turn jmx on or off. By default this value is true.
    */
@@ -86,6 +119,11 @@ public final class WroConfiguration
    * The parameter used to specify headers to put into the response, used mainly for caching.
    */
   private String header;
+  /**
+   * The path of the file used to persist the number of requests served for each group. When set, the cache is warmed up
+   * at startup, starting with the most requested groups.
+   */
+  private String accessLogFile;
   /**
    * Timeout (seconds) of the url connection for external resources. This is used to ensure that locator doesn't spend too
    * much time on slow end-point.
@@ -96,6 +134,31 @@ public final class WroConfiguration
    * By default this flag is false, because this feature is experimental.
    */
   private boolean parallelPreprocessing = false;
+  /**
+   * The number of threads used for parallel preprocessing, shared by all the groups. When this value is 0 or negative
+   * (default), the number of available processors is used.
+   */
+  private int parallelPreprocessingThreads = 0;
+  /**
+   * The maximum number of engines (like less or uglify) created by each engine pool. When this value is 0 or negative
+   * (default), the number of available processors (at least 2) is used.
+   */
+  private int enginePoolMaxActive = 0;
+  /**
+   * The maximum number of engines kept in each engine pool while they are not used. When this value is 0 or negative
+   * (default), all the created engines are kept.
+   */
+  private int enginePoolMaxIdle = 0;
+  /**
+   * The number of engines created when an engine pool is created, before they are requested. By default this value is
+   * 0.
+   */
+  private int enginePoolMinIdle = 0;
+  /**
+   * The maximum time (in milliseconds) to wait for an engine when all the engines of the pool are in use. When this
+   * value is 0 or negative, the wait is not limited. By default this value is 5000.
+   */
+  private long enginePoolMaxWait = 5000;
   /**
    * Listeners for the change of cache & model period properties.
    */
@@ -325,6 +388,86 @@ public final class WroConfiguration
   }
 
 
+  /**
+   * {@inheritDoc}
+   */
+  public long getResourceWatcherUpdatePeriod() {
+    return this.resourceWatcherUpdatePeriod;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public void setResourceWatcherUpdatePeriod(final long period) {
+    this.resourceWatcherUpdatePeriod = period;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean isStaleWhileRevalidate() {
+    return this.staleWhileRevalidate;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public void setStaleWhileRevalidate(final boolean staleWhileRevalidate) {
+    this.staleWhileRevalidate = staleWhileRevalidate;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public int getCacheReloadConcurrency() {
+    return this.cacheReloadConcurrency;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public void setCacheReloadConcurrency(final int cacheReloadConcurrency) {
+    this.cacheReloadConcurrency = cacheReloadConcurrency;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getProcessingTimeout() {
+    return this.processingTimeout;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public void setProcessingTimeout(final long processingTimeout) {
+    this.processingTimeout = processingTimeout;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public boolean isRedirectOutdatedVersions() {
+    return this.redirectOutdatedVersions;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public void setRedirectOutdatedVersions(final boolean redirectOutdatedVersions) {
+    this.redirectOutdatedVersions = redirectOutdatedVersions;
+  }
+
+
   /**
    * Perform the cleanup, clear the listeners.
    */
@@ -396,6 +539,22 @@ public final class WroConfiguration
     this.header = header;
   }
 
+
+  /**
+   * @return the accessLogFile
+   */
+  public String getAccessLogFile() {
+    return this.accessLogFile;
+  }
+
+
+  /**
+   * @param accessLogFile the accessLogFile to set
+   */
+  public void setAccessLogFile(final String accessLogFile) {
+    this.accessLogFile = accessLogFile;
+  }
+
   /**
    * @return the connectionTimeout
    */
@@ -431,6 +590,91 @@ public final class WroConfiguration
   }
 
 
+  /**
+   * @return the parallelPreprocessingThreads
+   */
+  public int getParallelPreprocessingThreads() {
+    return this.parallelPreprocessingThreads;
+  }
+
+
+  /**
+   * @param parallelPreprocessingThreads the parallelPreprocessingThreads to set. The new value is used only by the
+   *        thread pools created afterwards.
+   */
+  public void setParallelPreprocessingThreads(final int parallelPreprocessingThreads) {
+    this.parallelPreprocessingThreads = parallelPreprocessingThreads;
+  }
+
+
+  /**
+   * @return the enginePoolMaxActive
+   */
+  public int getEnginePoolMaxActive() {
+    return this.enginePoolMaxActive;
+  }
+
+
+  /**
+   * @param enginePoolMaxActive the enginePoolMaxActive to set. The new value is used only by the engine pools created
+   *        afterwards.
+   */
+  public void setEnginePoolMaxActive(final int enginePoolMaxActive) {
+    this.enginePoolMaxActive = enginePoolMaxActive;
+  }
+
+
+  /**
+   * @return the enginePoolMaxIdle
+   */
+  public int getEnginePoolMaxIdle() {
+    return this.enginePoolMaxIdle;
+  }
+
+
+  /**
+   * @param enginePoolMaxIdle the enginePoolMaxIdle to set. The new value is used only by the engine pools created
+   *        afterwards.
+   */
+  public void setEnginePoolMaxIdle(final int enginePoolMaxIdle) {
+    this.enginePoolMaxIdle = enginePoolMaxIdle;
+  }
+
+
+  /**
+   * @return the enginePoolMinIdle
+   */
+  public int getEnginePoolMinIdle() {
+    return this.enginePoolMinIdle;
+  }
+
+
+  /**
+   * @param enginePoolMinIdle the enginePoolMinIdle to set. The new value is used only by the engine pools created
+   *        afterwards.
+   */
+  public void setEnginePoolMinIdle(final int enginePoolMinIdle) {
+    this.enginePoolMinIdle = enginePoolMinIdle;
+  }
+
+
+  /**
+   * @return the enginePoolMaxWait
+   */
+  public long getEnginePoolMaxWait() {
+    return this.enginePoolMaxWait;
+  }
+
+
+  /**
+   * @param enginePoolMaxWait the enginePoolMaxWait to set. The new value is used only by the engine pools created
+   *        afterwards.
+   */
+  public void setEnginePoolMaxWait(final long enginePoolMaxWait) {
+    this.enginePoolMaxWait = enginePoolMaxWait;
+  }
+
+
   /**
    * {@inheritDoc}
    */
@@ -104,6 +104,65 @@ public interface WroConfigurationMBean {
 	 */
 	String getEncoding();
 
+  /**
+   * @param period how often (in seconds) the files backing the resources and the model are checked for changes. A
+   *        value of 0 disables the check.
+   */
+  void setResourceWatcherUpdatePeriod(long period);
+
+  /**
+   * @return how often (in seconds) the files backing the resources and the model are checked for changes.
+   */
+  long getResourceWatcherUpdatePeriod();
+
+  /**
+   * When enabled, a cache reload keeps serving the previously cached content while the groups are rebuilt in
+   * background.
+   *
+   * @param staleWhileRevalidate boolean flag.
+   */
+  void setStaleWhileRevalidate(boolean staleWhileRevalidate);
+
+  /**
+   * @return true if the staleWhileRevalidate flag is enabled.
+   */
+  boolean isStaleWhileRevalidate();
+
+  /**
+   * @param cacheReloadConcurrency the maximum number of groups rebuilt concurrently when the cache is reloaded.
+   */
+  void setCacheReloadConcurrency(int cacheReloadConcurrency);
+
+  /**
+   * @return the maximum number of groups rebuilt concurrently when the cache is reloaded.
+   */
+  int getCacheReloadConcurrency();
+
+  /**
+   * @param processingTimeout the maximum time (in milliseconds) a request waits for the processing of a group which is
+   *        not cached yet. 0 means no limit. When exceeded, the previous content of the group is served or, if there
+   *        is none, 503 (Service Unavailable): use it only behind a CDN or a proxy which retries the failed requests.
+   */
+  void setProcessingTimeout(long processingTimeout);
+
+  /**
+   * @return the maximum time (in milliseconds) a request waits for the processing of a group which is not cached yet.
+   */
+  long getProcessingTimeout();
+
+  /**
+   * When enabled, a request for a versioned group url having an outdated version is redirected to the url of the
+   * current version.
+   *
+   * @param redirectOutdatedVersions boolean flag.
+   */
+  void setRedirectOutdatedVersions(boolean redirectOutdatedVersions);
+
+  /**
+   * @return true if the requests for outdated versions are redirected to the current version.
+   */
+  boolean isRedirectOutdatedVersions();
+
 	/**
 	 * @return if missing resources should be ignored.
 	 */
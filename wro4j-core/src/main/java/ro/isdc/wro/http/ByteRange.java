@@ -0,0 +1,96 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.http;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * A single byte range, parsed from the value of a Range header (RFC 2616, section 14.35). The position of the range
+ * is resolved against the length of the served content.
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public final class ByteRange {
+  private static final Pattern PATTERN_RANGE = Pattern.compile("^\\s*bytes\\s*=\\s*(\\d*)\\s*-\\s*(\\d*)\\s*$",
+    Pattern.CASE_INSENSITIVE);
+  /**
+   * The first byte position or -1 for a suffix range.
+   */
+  private final long first;
+  /**
+   * The last byte position (-1 if open ended) or the length of a suffix range.
+   */
+  private final long last;
+
+
+  private ByteRange(final long first, final long last) {
+    this.first = first;
+    this.last = last;
+  }
+
+
+  /**
+   * Parses a Range header. Multiple ranges are not supported: since serving the whole content is a valid response to
+   * any range request, such a header is ignored, like the invalid ones.
+   *
+   * @param headerValue the value of the Range header.
+   * @return the parsed range or null if the header is missing, invalid or contains more ranges.
+   */
+  public static ByteRange valueOf(final String headerValue) {
+    if (headerValue == null) {
+      return null;
+    }
+    final Matcher matcher = PATTERN_RANGE.matcher(headerValue);
+    if (!matcher.matches()) {
+      return null;
+    }
+    try {
+      final String first = matcher.group(1);
+      final String last = matcher.group(2);
+      if (first.length() == 0) {
+        return last.length() == 0 ? null : new ByteRange(-1, Long.parseLong(last));
+      }
+      final ByteRange range = new ByteRange(Long.parseLong(first), last.length() == 0 ? -1 : Long.parseLong(last));
+      return range.last != -1 && range.last < range.first ? null : range;
+    } catch (final NumberFormatException e) {
+      // positions too large
+      return null;
+    }
+  }
+
+
+  /**
+   * @return true if the range overlaps content of the provided length.
+   */
+  public boolean isSatisfiable(final long length) {
+    return first == -1 ? last > 0 && length > 0 : first < length;
+  }
+
+
+  /**
+   * @return the position of the first byte of the range, in a content of the provided length.
+   */
+  public long getStart(final long length) {
+    return first == -1 ? Math.max(0, length - last) : first;
+  }
+
+
+  /**
+   * @return the position of the last byte of the range (inclusive), in a content of the provided length.
+   */
+  public long getEnd(final long length) {
+    return first == -1 || last == -1 ? length - 1 : Math.min(last, length - 1);
+  }
+
+
+  /**
+   * @return the value of the Content-Range header describing this range, in a content of the provided length.
+   */
+  public String toContentRange(final long length) {
+    return String.format("bytes %s-%s/%s", getStart(length), getEnd(length), length);
+  }
+}
@@ -11,13 +11,18 @@ import javax.servlet.http.HttpServletRequestWrapper;
  * This is useful when a thread is launched not during the servlet processing, and we still need to know what are the
  * requestURI, requestURL & servletPath of the request which was the parent of this thread. If this wrapper is not
  * used, the request fields will be nullified by the container.
+ * <p/>
+ * The fields are saved only when {@link #saveFields()} is invoked, until then the wrapped request is used. This avoids
+ * copying the fields (and building the requestURL) for the requests which are never accessed outside of the request
+ * cycle.
  *
  * @author Alex Objelean
  */
 public class FieldsSavingRequestWrapper extends HttpServletRequestWrapper {
-  private final String requestURI;
-  private final StringBuffer requestURL;
-  private final String servletPath;
+  private volatile boolean saved;
+  private String requestURI;
+  private StringBuffer requestURL;
+  private String servletPath;
 
 
   /**
@@ -25,9 +30,20 @@ public class FieldsSavingRequestWrapper extends HttpServletRequestWrapper {
    */
   public FieldsSavingRequestWrapper(final HttpServletRequest request) {
     super(request);
-    this.requestURI = request.getRequestURI();
-    this.requestURL = request.getRequestURL();
-    this.servletPath = request.getServletPath();
+  }
+
+
+  /**
+   * Saves the request fields, must be invoked during the request cycle. Subsequent invocations have no effect.
+   */
+  public synchronized void saveFields() {
+    if (!saved) {
+      final HttpServletRequest request = (HttpServletRequest)getRequest();
+      this.requestURI = request.getRequestURI();
+      this.requestURL = request.getRequestURL();
+      this.servletPath = request.getServletPath();
+      saved = true;
+    }
   }
 
 
@@ -36,7 +52,7 @@ public class FieldsSavingRequestWrapper extends HttpServletRequestWrapper {
    */
   @Override
   public String getRequestURI() {
-    return this.requestURI;
+    return saved ? this.requestURI : super.getRequestURI();
   }
 
 
@@ -45,7 +61,7 @@ public class FieldsSavingRequestWrapper extends HttpServletRequestWrapper {
    */
   @Override
   public StringBuffer getRequestURL() {
-    return this.requestURL;
+    return saved ? this.requestURL : super.getRequestURL();
   }
 
 
@@ -54,6 +70,6 @@ public class FieldsSavingRequestWrapper extends HttpServletRequestWrapper {
    */
   @Override
   public String getServletPath() {
-    return this.servletPath;
+    return saved ? this.servletPath : super.getServletPath();
   }
 }
\ No newline at end of file
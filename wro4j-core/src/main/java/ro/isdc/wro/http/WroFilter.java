@@ -5,13 +5,15 @@ package ro.isdc.wro.http;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.io.File;
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import javax.management.JMException;
@@ -73,6 +75,11 @@ public class WroFilter
    * API - reload model method call
    */
   public static final String API_RELOAD_MODEL = PATH_API + "/reloadModel";
+  /**
+   * Patterns matching the API paths, compiled once since they are checked for each request.
+   */
+  private static final Pattern PATTERN_API_RELOAD_CACHE = compileApiPattern(API_RELOAD_CACHE);
+  private static final Pattern PATTERN_API_RELOAD_MODEL = compileApiPattern(API_RELOAD_MODEL);
 
   /**
    * Filter config.
@@ -105,6 +112,11 @@ public class WroFilter
       return super.get(((String)key).toLowerCase());
     }
   };
+  /**
+   * The entries of the headersMap as name & value pairs, rendered each time the header values are initialized. Allows
+   * setting the headers without iterating the map for each request, while the map can be changed by the listeners.
+   */
+  private volatile String[] renderedHeaders = new String[0];
 
   /**
    * @return implementation of {@link WroConfigurationFactory} used to create a {@link WroConfiguration} object.
@@ -124,10 +136,30 @@ public class WroFilter
     initHeaderValues();
     registerChangeListeners();
     initJMX();
+    warmUp();
     doInit(config);
   }
 
 
+  /**
+   * Warms up the cache using the persisted access log, when {@link WroConfiguration#getAccessLogFile()} is configured.
+   */
+  private void warmUp() {
+    final String accessLogFile = wroConfiguration.getAccessLogFile();
+    if (StringUtils.isBlank(accessLogFile)) {
+      return;
+    }
+    try {
+      Context.set(Context.webContext(null, null, filterConfig), wroConfiguration);
+      wroManagerFactory.create().warmUp(new File(accessLogFile.trim()));
+    } catch (final Exception e) {
+      LOG.warn("Cannot warm up the cache", e);
+    } finally {
+      Context.unset();
+    }
+  }
+
+
   /**
    * Initialize {@link WroManagerFactory}.
    */
@@ -213,7 +245,18 @@ public class WroFilter
         initHeaderValues();
         if (wroManagerFactory instanceof WroConfigurationChangeListener) {
           final long value = Long.valueOf(String.valueOf(event.getNewValue())).longValue();
-          ((WroConfigurationChangeListener)wroManagerFactory).onCachePeriodChanged(value);
+          // the listener can be invoked outside of the request cycle (ex: JMX), make the configuration available.
+          final boolean isContextSet = Context.isContextSet();
+          if (!isContextSet) {
+            Context.set(Context.standaloneContext(), wroConfiguration);
+          }
+          try {
+            ((WroConfigurationChangeListener)wroManagerFactory).onCachePeriodChanged(value);
+          } finally {
+            if (!isContextSet) {
+              Context.unset();
+            }
+          }
         }
       }
     });
@@ -232,7 +275,7 @@ public class WroFilter
   /**
    * Initialize header values.
    */
-  private void initHeaderValues() {
+  private synchronized void initHeaderValues() {
     // put defaults
     if (!wroConfiguration.isDebug()) {
       final Long timestamp = new Date().getTime();
@@ -261,6 +304,12 @@ public class WroFilter
       }
     }
     LOG.debug("Header Values: {}", headersMap);
+    final List<String> headers = new ArrayList<String>();
+    for (final Map.Entry<String, String> entry : headersMap.entrySet()) {
+      headers.add(entry.getKey());
+      headers.add(entry.getValue().trim());
+    }
+    renderedHeaders = headers.toArray(new String[headers.size()]);
   }
 
 
@@ -329,23 +378,30 @@ public class WroFilter
    * @return true if reload model must be triggered.
    */
   private boolean shouldReloadModel(final HttpServletRequest request) {
-    return Context.get().getConfig().isDebug() && matchesUrl(request, API_RELOAD_MODEL);
+    return Context.get().getConfig().isDebug() && matchesUrl(request, PATTERN_API_RELOAD_MODEL);
   }
 
   /**
    * @return true if reload cache must be triggered.
    */
   private boolean shouldReloadCache(final HttpServletRequest request) {
-    return Context.get().getConfig().isDebug() && matchesUrl(request, API_RELOAD_CACHE);
+    return Context.get().getConfig().isDebug() && matchesUrl(request, PATTERN_API_RELOAD_CACHE);
   }
 
   /**
-   * Check if the request path matches the provided api path.
+   * Check if the request path matches the provided api path pattern.
    */
-  private boolean matchesUrl(final HttpServletRequest request, final String apiPath) {
-    final Pattern pattern = Pattern.compile(".*" + apiPath + "[/]?", Pattern.CASE_INSENSITIVE);
-    final Matcher m = pattern.matcher(request.getRequestURI());
-    return m.matches();
+  private boolean matchesUrl(final HttpServletRequest request, final Pattern apiPattern) {
+    final String requestURI = request.getRequestURI();
+    return requestURI != null && apiPattern.matcher(requestURI).matches();
+  }
+
+
+  /**
+   * @return the pattern matching the request paths ending with the provided api path.
+   */
+  private static Pattern compileApiPattern(final String apiPath) {
+    return Pattern.compile(".*" + apiPath + "[/]?", Pattern.CASE_INSENSITIVE);
   }
 
   /**
@@ -386,8 +442,9 @@ public class WroFilter
    */
   protected void setResponseHeaders(final HttpServletResponse response) {
     // Force resource caching as best as possible
-    for (final Map.Entry<String, String> entry : headersMap.entrySet()) {
-      response.setHeader(entry.getKey(), entry.getValue());
+    final String[] headers = renderedHeaders;
+    for (int i = 0; i < headers.length; i += 2) {
+      response.setHeader(headers[i], headers[i + 1]);
     }
     //prevent caching when in development mode
     if (wroConfiguration.isDebug()) {
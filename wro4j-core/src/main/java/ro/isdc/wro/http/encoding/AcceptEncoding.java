@@ -0,0 +1,138 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.http.encoding;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.lang3.Validate;
+
+import ro.isdc.wro.util.WroUtil;
+
+
+/**
+ * The content-codings accepted by the client, parsed from the Accept-Encoding header along with their quality values
+ * (q), as described by RFC 2616, section 14.3.
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public final class AcceptEncoding {
+  private static final String IDENTITY = "identity";
+  private static final String ANY = "*";
+  /**
+   * Header values mangled by proxies, known to stand for "gzip, deflate".
+   */
+  private static final Pattern PATTERN_MANGLED_VALUE = Pattern.compile("X{4,13}|~{4,13}|-{4,13}");
+  /**
+   * Quality of each accepted coding, by lower case name.
+   */
+  private final Map<String, Float> qualities = new HashMap<String, Float>();
+
+
+  private AcceptEncoding(final String headerValue) {
+    if (headerValue == null) {
+      return;
+    }
+    final String value = headerValue.trim();
+    if (PATTERN_MANGLED_VALUE.matcher(value).matches()) {
+      qualities.put(GzipContentCoding.NAME, 1f);
+      qualities.put(DeflateContentCoding.NAME, 1f);
+      return;
+    }
+    for (final String element : value.split(",")) {
+      final String[] parts = element.split(";");
+      String name = parts[0].trim().toLowerCase();
+      if (name.length() == 0) {
+        continue;
+      }
+      if ("x-gzip".equals(name)) {
+        name = GzipContentCoding.NAME;
+      }
+      float quality = 1f;
+      for (int i = 1; i < parts.length; i++) {
+        final String param = parts[i].trim();
+        if (param.startsWith("q=") || param.startsWith("Q=")) {
+          try {
+            quality = Math.max(0f, Math.min(1f, Float.parseFloat(param.substring(2).trim())));
+          } catch (final NumberFormatException e) {
+            // an invalid quality value makes the coding unacceptable
+            quality = 0f;
+          }
+        }
+      }
+      qualities.put(name, quality);
+    }
+  }
+
+
+  /**
+   * Parses the Accept-Encoding header of the request, or one of its variations mangled by proxies.
+   */
+  public static AcceptEncoding fromRequest(final HttpServletRequest request) {
+    Validate.notNull(request);
+    return new AcceptEncoding(WroUtil.getAcceptEncodingValue(request));
+  }
+
+
+  /**
+   * @param headerValue the value of the Accept-Encoding header, null if the header is missing.
+   */
+  public static AcceptEncoding valueOf(final String headerValue) {
+    return new AcceptEncoding(headerValue);
+  }
+
+
+  /**
+   * @return the quality value of the coding, 0 if the coding is not acceptable.
+   */
+  public float getQuality(final String coding) {
+    Validate.notNull(coding);
+    final Float quality = qualities.get(coding.toLowerCase());
+    if (quality != null) {
+      return quality;
+    }
+    final Float anyQuality = qualities.get(ANY);
+    if (anyQuality != null) {
+      return anyQuality;
+    }
+    // the identity is acceptable unless explicitly excluded
+    return IDENTITY.equals(coding.toLowerCase()) ? 1f : 0f;
+  }
+
+
+  /**
+   * Chooses the coding with the highest quality value. When more codings have the same quality, the first one in the
+   * provided list is chosen. The codings are preferred to the identity having the same quality.
+   *
+   * @param codings the available codings, in order of preference.
+   * @return the coding to use or null if the content should be sent unencoded.
+   */
+  public ContentCoding negotiate(final List<ContentCoding> codings) {
+    Validate.notNull(codings);
+    ContentCoding chosen = null;
+    float chosenQuality = Math.max(getQuality(IDENTITY), Float.MIN_VALUE);
+    for (final ContentCoding coding : codings) {
+      final float quality = getQuality(coding.getName());
+      if (quality > 0 && (quality > chosenQuality || (chosen == null && quality == chosenQuality))) {
+        chosen = coding;
+        chosenQuality = quality;
+      }
+    }
+    return chosen;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString() {
+    return qualities.toString();
+  }
+}
@@ -0,0 +1,34 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.http.encoding;
+
+import java.io.IOException;
+
+
+/**
+ * A content-coding (ex: gzip) which can be applied to the processed content before it is sent to the client. By
+ * default, the encoded variants are computed once, when the cache entry is created (see
+ * {@link ro.isdc.wro.config.jmx.WroConfiguration#isCacheGzippedContent()}). Otherwise, the content is encoded for each
+ * response.
+ * <p>
+ * The implementations must be thread safe.
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public interface ContentCoding {
+  /**
+   * @return the name of the coding, as used in the Accept-Encoding and Content-Encoding headers (ex: gzip).
+   */
+  String getName();
+
+  /**
+   * @param content the bytes to encode.
+   * @param cached true if the result is cached and served for many responses, in which case the compression ratio
+   *        should be favored over the speed. False if the content is encoded for a single response.
+   * @return the encoded content.
+   */
+  byte[] encode(final byte[] content, final boolean cached)
+    throws IOException;
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.http.encoding;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+
+/**
+ * The "deflate" content-coding (zlib format), using the best compression level for the cached content and the default
+ * level otherwise.
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public final class DeflateContentCoding
+  implements ContentCoding {
+  public static final String NAME = "deflate";
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public String getName() {
+    return NAME;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public byte[] encode(final byte[] content, final boolean cached)
+    throws IOException {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream(content.length / 2 + 64);
+    final Deflater deflater = new Deflater(cached ? Deflater.BEST_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+    try {
+      final OutputStream os = new DeflaterOutputStream(baos, deflater);
+      os.write(content);
+      os.close();
+    } finally {
+      // the deflater is not released by the stream, when provided explicitly
+      deflater.end();
+    }
+    return baos.toByteArray();
+  }
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.http.encoding;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+
+/**
+ * The "gzip" content-coding, using the best compression level for the cached content and the default level otherwise.
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public final class GzipContentCoding
+  implements ContentCoding {
+  public static final String NAME = "gzip";
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public String getName() {
+    return NAME;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public byte[] encode(final byte[] content, final boolean cached)
+    throws IOException {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream(content.length / 2 + 64);
+    final OutputStream os = new GZIPOutputStream(baos) {
+      {
+        def.setLevel(cached ? Deflater.BEST_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+      }
+    };
+    os.write(content);
+    os.close();
+    return baos.toByteArray();
+  }
+}
@@ -0,0 +1,286 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.manager;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.cache.CacheEntry;
+import ro.isdc.wro.model.resource.ResourceType;
+
+
+/**
+ * Counts the requests served for each cache entry (group, type & minimize flag) and remembers the request paths used
+ * to serve it. The log can be persisted, in order to warm up the cache after a restart starting with the most requested
+ * entries (see {@link WroManager#warmUp(File)}).
+ * <p>
+ * The remembered paths allow to process an entry outside of the request cycle, using a request similar to the one
+ * which triggered its processing: the path of the request is used by the css url rewriting, while the dispatching
+ * falls back to the servletContext, like for the resources processed by the scheduler threads.
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public final class AccessLog {
+  private static final Logger LOG = LoggerFactory.getLogger(AccessLog.class);
+  private static final String SEPARATOR = "\t";
+  private static final String CHARSET = "UTF-8";
+  private final ConcurrentMap<CacheEntry, Record> records = new ConcurrentHashMap<CacheEntry, Record>();
+
+
+  /**
+   * Counts a request served for the provided entry.
+   *
+   * @param entry the served {@link CacheEntry}.
+   * @param request the request for the entry, its path is remembered the first time the entry is requested.
+   */
+  public void record(final CacheEntry entry, final HttpServletRequest request) {
+    Validate.notNull(entry);
+    Record record = records.get(entry);
+    if (record == null) {
+      final Record newRecord = newRecord(request);
+      record = records.putIfAbsent(entry, newRecord);
+      if (record == null) {
+        record = newRecord;
+      }
+    }
+    record.count.incrementAndGet();
+  }
+
+
+  /**
+   * @return a {@link Record} holding the path of the request, without any count.
+   */
+  private static Record newRecord(final HttpServletRequest request) {
+    final Record record = new Record();
+    if (request != null) {
+      record.contextPath = request.getContextPath();
+      record.servletPath = request.getServletPath();
+      record.requestURI = request.getRequestURI();
+      final StringBuffer requestURL = request.getRequestURL();
+      record.requestURL = requestURL != null ? requestURL.toString() : null;
+    }
+    return record;
+  }
+
+
+  /**
+   * @return the number of requests served for all the entries of the group.
+   */
+  public long getCount(final String groupName) {
+    long count = 0;
+    for (final Map.Entry<CacheEntry, Record> entry : records.entrySet()) {
+      if (entry.getKey().getGroupName().equals(groupName)) {
+        count += entry.getValue().count.get();
+      }
+    }
+    return count;
+  }
+
+
+  /**
+   * @return all the requested entries, the most requested first.
+   */
+  public List<CacheEntry> getEntries() {
+    // use a snapshot of the counts, since they can change while sorting
+    final Map<CacheEntry, Long> counts = new HashMap<CacheEntry, Long>();
+    for (final Map.Entry<CacheEntry, Record> entry : records.entrySet()) {
+      counts.put(entry.getKey(), entry.getValue().count.get());
+    }
+    final List<CacheEntry> entries = new ArrayList<CacheEntry>(counts.keySet());
+    Collections.sort(entries, new Comparator<CacheEntry>() {
+      public int compare(final CacheEntry first, final CacheEntry second) {
+        return counts.get(second).compareTo(counts.get(first));
+      }
+    });
+    return entries;
+  }
+
+
+  /**
+   * Creates a request similar to the one used for an entry, which can be used outside of the request cycle. Only the
+   * request path is available, the other methods return null or a default value.
+   *
+   * @param entry a requested {@link CacheEntry}.
+   * @return the request or null if the entry was never requested.
+   */
+  public HttpServletRequest newRequest(final CacheEntry entry) {
+    final Record record = records.get(entry);
+    if (record == null) {
+      return null;
+    }
+    return newRequest(record);
+  }
+
+
+  /**
+   * Creates a copy of the request path, which can be used after the request is answered. Only the request path is
+   * available, the other methods return null or a default value.
+   *
+   * @param request the request to copy, can be null.
+   * @return the request copy.
+   */
+  public HttpServletRequest newRequest(final HttpServletRequest request) {
+    return newRequest(newRecord(request));
+  }
+
+
+  private HttpServletRequest newRequest(final Record record) {
+    return (HttpServletRequest)Proxy.newProxyInstance(getClass().getClassLoader(),
+      new Class<?>[] { HttpServletRequest.class }, new InvocationHandler() {
+        public Object invoke(final Object proxy, final Method method, final Object[] args) {
+          final String name = method.getName();
+          if (method.getDeclaringClass() == Object.class) {
+            return invokeObjectMethod(proxy, method, args);
+          } else if ("getContextPath".equals(name)) {
+            return record.contextPath;
+          } else if ("getServletPath".equals(name)) {
+            return record.servletPath;
+          } else if ("getRequestURI".equals(name)) {
+            return record.requestURI;
+          } else if ("getRequestURL".equals(name)) {
+            return record.requestURL != null ? new StringBuffer(record.requestURL) : null;
+          }
+          return getDefaultValue(method.getReturnType());
+        }
+      });
+  }
+
+
+  /**
+   * @return a response ignoring all the headers and content written to it, used together with
+   *         {@link #newRequest(CacheEntry)}.
+   */
+  public HttpServletResponse newResponse() {
+    return (HttpServletResponse)Proxy.newProxyInstance(getClass().getClassLoader(),
+      new Class<?>[] { HttpServletResponse.class }, new InvocationHandler() {
+        public Object invoke(final Object proxy, final Method method, final Object[] args) {
+          if (method.getDeclaringClass() == Object.class) {
+            return invokeObjectMethod(proxy, method, args);
+          }
+          return getDefaultValue(method.getReturnType());
+        }
+      });
+  }
+
+
+  /**
+   * Implements the {@link Object} methods of a proxy using its identity.
+   */
+  private static Object invokeObjectMethod(final Object proxy, final Method method, final Object[] args) {
+    if ("equals".equals(method.getName())) {
+      return proxy == args[0];
+    } else if ("hashCode".equals(method.getName())) {
+      return System.identityHashCode(proxy);
+    }
+    return proxy.getClass().getName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+  }
+
+
+  private static Object getDefaultValue(final Class<?> type) {
+    if (type == Boolean.TYPE) {
+      return Boolean.FALSE;
+    } else if (type == Integer.TYPE) {
+      return 0;
+    } else if (type == Long.TYPE) {
+      return 0L;
+    }
+    return null;
+  }
+
+
+  /**
+   * Loads the records persisted by {@link #save(File)}. The invalid lines are ignored.
+   */
+  @SuppressWarnings("unchecked")
+  public void load(final File file) {
+    Validate.notNull(file);
+    if (!file.isFile()) {
+      LOG.debug("No access log found: {}", file);
+      return;
+    }
+    try {
+      for (final String line : (List<String>)FileUtils.readLines(file, CHARSET)) {
+        final String[] fields = line.split(SEPARATOR, -1);
+        try {
+          final CacheEntry entry = new CacheEntry(fields[7], ResourceType.valueOf(fields[1]),
+            Boolean.valueOf(fields[2]));
+          final Record record = new Record();
+          record.count.set(Long.valueOf(fields[0]));
+          record.contextPath = StringUtils.defaultIfEmpty(fields[3], null);
+          record.servletPath = StringUtils.defaultIfEmpty(fields[4], null);
+          record.requestURI = StringUtils.defaultIfEmpty(fields[5], null);
+          record.requestURL = StringUtils.defaultIfEmpty(fields[6], null);
+          records.put(entry, record);
+        } catch (final RuntimeException e) {
+          LOG.debug("Ignoring invalid access log line: {}", line);
+        }
+      }
+      LOG.debug("Loaded {} records from access log: {}", records.size(), file);
+    } catch (final IOException e) {
+      LOG.warn("Cannot read access log: " + file, e);
+    }
+  }
+
+
+  /**
+   * Persists the records in the provided file, replacing its previous content.
+   */
+  public void save(final File file) {
+    Validate.notNull(file);
+    final List<String> lines = new ArrayList<String>();
+    for (final Map.Entry<CacheEntry, Record> entry : records.entrySet()) {
+      final CacheEntry key = entry.getKey();
+      final Record record = entry.getValue();
+      lines.add(StringUtils.join(new Object[] {
+        record.count.get(), key.getType(), key.isMinimize(), StringUtils.defaultString(record.contextPath),
+        StringUtils.defaultString(record.servletPath), StringUtils.defaultString(record.requestURI),
+        StringUtils.defaultString(record.requestURL), key.getGroupName()
+      }, SEPARATOR));
+    }
+    try {
+      final File tempFile = new File(file.getPath() + ".tmp");
+      FileUtils.writeLines(tempFile, CHARSET, lines);
+      FileUtils.deleteQuietly(file);
+      if (!tempFile.renameTo(file)) {
+        LOG.warn("Cannot save access log: {}", file);
+      }
+    } catch (final IOException e) {
+      LOG.warn("Cannot save access log: " + file, e);
+    }
+  }
+
+
+  /**
+   * The number of requests and the path of the first request served for an entry.
+   */
+  private static class Record {
+    private final AtomicLong count = new AtomicLong();
+    private String contextPath;
+    private String servletPath;
+    private String requestURI;
+    private String requestURL;
+  }
+}
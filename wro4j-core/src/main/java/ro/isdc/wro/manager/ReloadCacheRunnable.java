@@ -3,23 +3,30 @@
  */
 package ro.isdc.wro.manager;
 
-import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import ro.isdc.wro.cache.CacheEntry;
-import ro.isdc.wro.cache.ContentHashEntry;
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.config.jmx.WroConfiguration;
 import ro.isdc.wro.model.WroModel;
 import ro.isdc.wro.model.group.Group;
-import ro.isdc.wro.model.resource.ResourceType;
+import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.util.TaskExecutor;
 
 
 /**
- * A {@link Runnable} executed by scheduler to reload the cache.
+ * A {@link Runnable} executed by scheduler to reload the cache. The groups containing changed resources are rebuilt
+ * concurrently, up to {@link WroConfiguration#getCacheReloadConcurrency()} at a time, the most requested groups first.
  *
  * @author Alex Objelean
  * @created 24 Oct 2011
@@ -37,43 +44,93 @@ public final class ReloadCacheRunnable
 
   public void run() {
     try {
-      if (wroManagerReference.get().cacheChangeCallback != null) {
+      final WroManager wroManager = wroManagerReference.get();
+      final WroModel model = wroManager.modelFactory.create();
+      final ResourceChangeDetector detector = wroManager.getResourceChangeDetector();
+      final Collection<Group> changedGroups = detector.getChangedGroups(model.getGroups());
+      if (changedGroups.isEmpty()) {
+        LOG.debug("No resource changed, skip cache reload.");
+        return;
+      }
+      if (wroManager.cacheChangeCallback != null) {
         // invoke cacheChangeCallback
-        wroManagerReference.get().cacheChangeCallback.propertyChange(null);
+        wroManager.cacheChangeCallback.propertyChange(null);
       }
-      final WroModel model = wroManagerReference.get().modelFactory.create();
-      // process groups & put update cache
-      final Collection<Group> groups = model.getGroups();
-      // update cache for all resources
-      for (final Group group : groups) {
-        for (final ResourceType resourceType : ResourceType.values()) {
-          if (group.hasResourcesOfType(resourceType)) {
-            final Collection<Group> groupAsList = new HashSet<Group>();
-            groupAsList.add(group);
-            // TODO check if request parameter can be fetched here without errors.
-            // groupExtractor.isMinimized(Context.get().getRequest())
-            final Boolean[] minimizeValues = new Boolean[] { true, false };
-            for (final boolean minimize : minimizeValues) {
-              //stop processing if the current thread is interrupted
-              if (Thread.interrupted()) {
-                LOG.debug("ReloadCacheRunnable was interrupted - stop processing!");
-                throw new InterruptedException();
-              }
-              final String content = wroManagerReference.get().getGroupsProcessor().process(groupAsList, resourceType,
-                minimize);
-              final CacheEntry cacheEntry = new CacheEntry(group.getName(), resourceType, minimize);
-              final ContentHashEntry contentHashEntry = wroManagerReference.get().getContentHashEntryByContent(content);
-              wroManagerReference.get().cacheStrategy.put(cacheEntry, contentHashEntry);
-            }
-          }
-        }
+      // the resources are processed again, in order to detect their changes
+      wroManager.clearPreProcessedResources();
+      // update cache for the groups containing changed resources
+      final Queue<Group> groups = new ConcurrentLinkedQueue<Group>(wroManager.sortByRequestCount(changedGroups));
+      final int concurrency = Math.min(Context.get().getConfig().getCacheReloadConcurrency(), groups.size());
+      if (concurrency > 1) {
+        reloadInParallel(wroManager, detector, groups, concurrency);
+      } else {
+        reloadGroups(wroManager, detector, groups);
       }
     } catch (final InterruptedException e) {
       // Catch all exception in order to avoid situation when scheduler runs out of threads.
       LOG.error("Interrupted exception occured: ", e);
       Thread.currentThread().interrupt();
-    } catch (final IOException e) {
-      LOG.error("Exception occured during cache reload: ", e);
     }
   }
-}
\ No newline at end of file
+
+
+  /**
+   * Rebuilds the groups using several workers, each of them taking the next group from the queue, until the queue is
+   * empty. The workers are run by the {@link TaskExecutor} of the manager.
+   */
+  private void reloadInParallel(final WroManager wroManager, final ResourceChangeDetector detector,
+    final Queue<Group> groups, final int concurrency)
+    throws InterruptedException {
+    LOG.debug("Rebuilding {} groups using {} workers", groups.size(), concurrency);
+    final List<Callable<Void>> workers = new ArrayList<Callable<Void>>();
+    for (int i = 0; i < concurrency; i++) {
+      workers.add(new Callable<Void>() {
+        public Void call()
+          throws Exception {
+          reloadGroups(wroManager, detector, groups);
+          return null;
+        }
+      });
+    }
+    final List<Future<Void>> futures = wroManager.getTaskExecutor().invokeAll(workers);
+    try {
+      for (final Future<Void> future : futures) {
+        try {
+          future.get();
+        } catch (final ExecutionException e) {
+          if (e.getCause() instanceof InterruptedException) {
+            throw (InterruptedException)e.getCause();
+          }
+          LOG.error("Exception occured while rebuilding groups: ", e.getCause());
+        }
+      }
+    } catch (final InterruptedException e) {
+      // stop the other workers
+      groups.clear();
+      for (final Future<Void> future : futures) {
+        future.cancel(true);
+      }
+      throw e;
+    }
+  }
+
+
+  /**
+   * Rebuilds the groups from the queue until it is empty.
+   */
+  private void reloadGroups(final WroManager wroManager, final ResourceChangeDetector detector,
+    final Queue<Group> groups)
+    throws InterruptedException {
+    Group group = null;
+    while ((group = groups.poll()) != null) {
+      if (!wroManager.reloadGroup(group)) {
+        // make sure the group is rebuilt during the next run
+        synchronized (detector) {
+          for (final Resource resource : group.getResources()) {
+            detector.forget(resource.getUri());
+          }
+        }
+      }
+    }
+  }
+}
\ No newline at end of file
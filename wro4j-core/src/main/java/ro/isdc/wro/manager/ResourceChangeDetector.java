@@ -0,0 +1,273 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.manager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.ServletContext;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.model.group.Group;
+import ro.isdc.wro.model.group.processor.PreProcessorExecutor;
+import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.locator.ClasspathUriLocator;
+import ro.isdc.wro.model.resource.locator.ServletContextUriLocator;
+import ro.isdc.wro.model.resource.locator.UrlUriLocator;
+import ro.isdc.wro.model.resource.locator.factory.UriLocatorFactory;
+import ro.isdc.wro.model.resource.util.HashBuilder;
+import ro.isdc.wro.util.StringUtils;
+
+
+/**
+ * Detects the resources changed since the previous scan, by comparing a cheap fingerprint of each resource:
+ * <ul>
+ * <li>the last modified time and the size, for resources backed by a file (servletContext, classpath or file url);</li>
+ * <li>the ETag or Last-Modified header, for url resources (the last modified time of the entry, for resources inside a
+ * jar);</li>
+ * <li>the hash of the content, when none of the above is available (ex: wildcard uri).</li>
+ * </ul>
+ * A resource seen for the first time is considered changed. A group is changed when any of its resources or of the
+ * resources they import (as recorded by the {@link PreProcessorExecutor}, ex: css <code>@import</code>) changed. When
+ * {@link #setFilesOnly(boolean)} is enabled, only the resources backed by a file are checked, all the others being
+ * considered unchanged. This class is not thread safe, it is expected to be used by a single thread (ex:
+ * {@link ReloadCacheRunnable}).
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public final class ResourceChangeDetector {
+  private static final Logger LOG = LoggerFactory.getLogger(ResourceChangeDetector.class);
+  private static final String WILDCARD_REGEX = "^(?:(?!http))(.)*[\\*\\?]+(.)*";
+  private final UriLocatorFactory uriLocatorFactory;
+  private final HashBuilder hashBuilder;
+  /**
+   * Fingerprints computed by the previous scans.
+   */
+  private final Map<String, String> fingerprints = new HashMap<String, String>();
+  /**
+   * Uri's checked during the current scan along with the result of the check.
+   */
+  private final Map<String, Boolean> checked = new HashMap<String, Boolean>();
+  /**
+   * When true, only the last modified time of the files backing the resources is used.
+   */
+  private boolean filesOnly = false;
+  /**
+   * Provides the resources imported by each resource, if set.
+   */
+  private PreProcessorExecutor preProcessorExecutor;
+
+
+  public ResourceChangeDetector(final UriLocatorFactory uriLocatorFactory, final HashBuilder hashBuilder) {
+    Validate.notNull(uriLocatorFactory);
+    Validate.notNull(hashBuilder);
+    this.uriLocatorFactory = uriLocatorFactory;
+    this.hashBuilder = hashBuilder;
+  }
+
+
+  /**
+   * @param filesOnly when true, only the resources backed by a file are checked, which doesn't require reading the
+   *        content or opening any connection.
+   */
+  public ResourceChangeDetector setFilesOnly(final boolean filesOnly) {
+    this.filesOnly = filesOnly;
+    return this;
+  }
+
+
+  /**
+   * @param preProcessorExecutor provides the resources imported by each resource, which are checked together with the
+   *        resources of a group.
+   */
+  public ResourceChangeDetector setPreProcessorExecutor(final PreProcessorExecutor preProcessorExecutor) {
+    this.preProcessorExecutor = preProcessorExecutor;
+    return this;
+  }
+
+
+  /**
+   * Starts a new scan. During a scan, each resource is checked only once, even if it belongs to several groups.
+   */
+  public void startScan() {
+    checked.clear();
+  }
+
+
+  /**
+   * @param uri the uri of the resource to check.
+   * @return true if the resource changed since the previous scan or if it wasn't checked before.
+   */
+  public boolean isChanged(final String uri) {
+    Validate.notNull(uri);
+    Boolean changed = checked.get(uri);
+    if (changed == null) {
+      final String fingerprint = getFingerprint(uri);
+      changed = !fingerprint.equals(fingerprints.put(uri, fingerprint));
+      checked.put(uri, changed);
+      if (changed) {
+        LOG.debug("Resource changed: {}", uri);
+      }
+    }
+    return changed;
+  }
+
+
+  /**
+   * Starts a new scan and checks all the resources of the provided groups.
+   *
+   * @return the groups containing at least one resource changed since the previous scan.
+   */
+  public Collection<Group> getChangedGroups(final Collection<Group> groups) {
+    startScan();
+    final Collection<Group> changedGroups = new ArrayList<Group>();
+    for (final Group group : groups) {
+      boolean changed = false;
+      // check all resources, in order to update all their fingerprints
+      for (final Resource resource : group.getResources()) {
+        changed |= isChangedWithImports(resource.getUri(), new HashSet<String>());
+      }
+      if (changed) {
+        changedGroups.add(group);
+      }
+    }
+    LOG.debug("Changed groups: {}", changedGroups);
+    return changedGroups;
+  }
+
+
+  /**
+   * @param visited the uri's already checked, used to stop the recursive imports.
+   * @return true if the resource or any of the resources it imports (directly or not) changed.
+   */
+  private boolean isChangedWithImports(final String uri, final Set<String> visited) {
+    if (!visited.add(uri)) {
+      return false;
+    }
+    boolean changed = isChanged(uri);
+    if (preProcessorExecutor != null) {
+      for (final String importedUri : preProcessorExecutor.getImportedUris(uri)) {
+        changed |= isChangedWithImports(importedUri, visited);
+      }
+    }
+    return changed;
+  }
+
+
+  /**
+   * Forgets the fingerprint of a resource, which will be considered changed by the next scan.
+   */
+  public void forget(final String uri) {
+    fingerprints.remove(uri);
+  }
+
+
+  /**
+   * @return the cheapest available fingerprint for the resource identified by the uri.
+   */
+  String getFingerprint(final String uri) {
+    String fingerprint = null;
+    if (!uri.matches(WILDCARD_REGEX)) {
+      try {
+        if (ClasspathUriLocator.isValid(uri)) {
+          final String location = StringUtils.cleanPath(uri.replaceFirst(ClasspathUriLocator.PREFIX, "")).trim();
+          final URL url = Thread.currentThread().getContextClassLoader().getResource(location);
+          fingerprint = url != null ? getUrlFingerprint(url) : null;
+        } else if (ServletContextUriLocator.isValid(uri)) {
+          fingerprint = getServletContextFingerprint(uri);
+        } else if (UrlUriLocator.isValid(uri)) {
+          fingerprint = getUrlFingerprint(new URL(uri));
+        }
+      } catch (final IOException e) {
+        LOG.debug("Cannot get fingerprint of: {}", uri);
+      }
+    }
+    if (fingerprint == null) {
+      fingerprint = filesOnly ? "unwatched" : getContentFingerprint(uri);
+    }
+    return fingerprint;
+  }
+
+
+  private String getServletContextFingerprint(final String uri) {
+    final ServletContext servletContext = Context.isContextSet() ? Context.get().getServletContext() : null;
+    if (servletContext != null) {
+      final String realPath = servletContext.getRealPath(uri);
+      if (realPath != null) {
+        return getFileFingerprint(new File(realPath));
+      }
+    }
+    return null;
+  }
+
+
+  private String getUrlFingerprint(final URL url)
+    throws IOException {
+    if ("file".equals(url.getProtocol())) {
+      return getFileFingerprint(new File(url.getFile()));
+    }
+    if (filesOnly) {
+      return null;
+    }
+    final URLConnection connection = url.openConnection();
+    connection.setUseCaches(false);
+    try {
+      if (connection instanceof HttpURLConnection) {
+        ((HttpURLConnection)connection).setRequestMethod("HEAD");
+        final String etag = connection.getHeaderField("ETag");
+        if (etag != null) {
+          return "etag:" + etag;
+        }
+      }
+      final long lastModified = connection.getLastModified();
+      return lastModified > 0 ? "lastModified:" + lastModified : null;
+    } finally {
+      if (connection instanceof HttpURLConnection) {
+        ((HttpURLConnection)connection).disconnect();
+      } else {
+        // releases the underlying resources (ex: the jar file), since caches are not used.
+        try {
+          IOUtils.closeQuietly(connection.getInputStream());
+        } catch (final IOException e) {
+          LOG.debug("Cannot close connection for: {}", url);
+        }
+      }
+    }
+  }
+
+
+  private String getFileFingerprint(final File file) {
+    return file.isFile() ? "file:" + file.lastModified() + ":" + file.length() : null;
+  }
+
+
+  private String getContentFingerprint(final String uri) {
+    InputStream is = null;
+    try {
+      is = uriLocatorFactory.locate(uri);
+      return "hash:" + hashBuilder.getHash(is);
+    } catch (final Exception e) {
+      LOG.debug("Cannot locate resource: {}", uri);
+      return "missing";
+    } finally {
+      IOUtils.closeQuietly(is);
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.manager;
+
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.model.WroModel;
+import ro.isdc.wro.model.factory.ModelResourcesAware;
+import ro.isdc.wro.model.factory.WroModelFactory;
+import ro.isdc.wro.model.group.Group;
+import ro.isdc.wro.model.resource.Resource;
+
+
+/**
+ * A {@link Runnable} executed by scheduler to check if the files backing the resources (servletContext or classpath
+ * resources) or the model were changed. Unlike {@link ReloadCacheRunnable}, only the last modified time of the files is
+ * checked, which is cheap enough to be done often. When a resource file changes, only the groups containing it are
+ * rebuilt. When a file the model is read from changes, the model is reloaded and the cache is cleared. These files are
+ * provided by the {@link WroModelFactory} implementing {@link ModelResourcesAware}; when they are unknown, the changes
+ * of the model are detected only by the model update, scheduled with the modelUpdatePeriod.
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public final class ResourceWatcherRunnable
+    implements Runnable {
+  private static final Logger LOG = LoggerFactory.getLogger(ResourceWatcherRunnable.class);
+  private final WeakReference<WroManager> wroManagerReference;
+  /**
+   * Created during the first run, which only records the current state of the files.
+   */
+  private ResourceChangeDetector detector;
+
+
+  public ResourceWatcherRunnable(final WroManager wroManager) {
+    wroManagerReference = new WeakReference<WroManager>(wroManager);
+  }
+
+  public void run() {
+    try {
+      final WroManager wroManager = wroManagerReference.get();
+      final boolean firstRun = detector == null;
+      if (firstRun) {
+        detector = wroManager.newResourceChangeDetector().setFilesOnly(true);
+        // the resources of the model are known once it is created
+        wroManager.getModelFactory().create();
+      }
+      detector.startScan();
+      if (isModelChanged(wroManager.getModelFactory(), firstRun) && !firstRun) {
+        LOG.info("Model resources changed. Reloading the model.");
+        wroManager.getModelFactory().destroy();
+        wroManager.clearPreProcessedResources();
+        wroManager.clearCache();
+        notifyCacheChange(wroManager);
+      }
+      final WroModel model = wroManager.getModelFactory().create();
+      final Collection<Group> changedGroups = detector.getChangedGroups(model.getGroups());
+      if (firstRun || changedGroups.isEmpty()) {
+        return;
+      }
+      LOG.info("Rebuilding groups with changed resources: {}", changedGroups);
+      wroManager.clearPreProcessedResources();
+      for (final Group group : changedGroups) {
+        if (!wroManager.reloadGroup(group)) {
+          for (final Resource resource : group.getResources()) {
+            detector.forget(resource.getUri());
+          }
+        }
+      }
+      notifyCacheChange(wroManager);
+    } catch (final InterruptedException e) {
+      LOG.debug("Interrupted exception occured: ", e);
+      Thread.currentThread().interrupt();
+    } catch (final Exception e) {
+      // Catch all exception in order to avoid situation when scheduler runs out of threads.
+      LOG.error("Exception occured while watching resources: ", e);
+    }
+  }
+
+  /**
+   * @return true if any of the resources the model is read from changed since the previous run.
+   */
+  private boolean isModelChanged(final WroModelFactory modelFactory, final boolean firstRun) {
+    final Collection<String> uris = modelFactory instanceof ModelResourcesAware
+      ? ((ModelResourcesAware)modelFactory).getModelResourceUris() : null;
+    if (uris == null) {
+      if (firstRun) {
+        LOG.debug("The resources of the model are unknown, its changes are detected by the modelUpdatePeriod only.");
+      }
+      return false;
+    }
+    boolean changed = false;
+    // check all the uris, in order to record their current state
+    for (final String uri : uris) {
+      changed |= detector.isChanged(uri);
+    }
+    return changed;
+  }
+
+  private void notifyCacheChange(final WroManager wroManager) {
+    if (wroManager.cacheChangeCallback != null) {
+      wroManager.cacheChangeCallback.propertyChange(null);
+    }
+  }
+}
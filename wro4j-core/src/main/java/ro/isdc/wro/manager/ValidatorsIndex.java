@@ -0,0 +1,196 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.manager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+
+import ro.isdc.wro.cache.CacheEntry;
+import ro.isdc.wro.cache.ContentHashEntry;
+import ro.isdc.wro.http.HttpHeader;
+import ro.isdc.wro.model.resource.ResourceType;
+import ro.isdc.wro.util.WroUtil;
+
+
+/**
+ * Holds the validators (ETag & Last-Modified) of the cached entries, allowing to answer the conditional requests
+ * without looking up the model or the cache. Must be updated each time an entry is put in the cache and cleared
+ * together with the cache. The header values describing the content of an entry are rendered once, when its content
+ * changes, instead of for each request.
+ * <p>
+ * The last modified time of an entry is the time when its current content was first cached, it is kept as long as the
+ * hash of the content doesn't change. The ETag is different for each content-coding of the entry (ex: "hash" and
+ * "hash-gzip"), since the encoded variants are different representations: a range of one of them cannot be combined
+ * with the bytes of another.
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+final class ValidatorsIndex {
+  private final ConcurrentMap<CacheEntry, Validators> index = new ConcurrentHashMap<CacheEntry, Validators>();
+
+
+  /**
+   * @return the validators of the entry or null if the entry is not cached.
+   */
+  public Validators get(final CacheEntry entry) {
+    return index.get(entry);
+  }
+
+
+  /**
+   * Updates the validators of an entry with its cached content.
+   *
+   * @return the validators of the entry.
+   */
+  public Validators update(final CacheEntry entry, final ContentHashEntry content) {
+    Validate.notNull(entry);
+    final Validators current = index.get(entry);
+    if (current != null && current.isRenderedFor(content)) {
+      return current;
+    }
+    final Validators validators = new Validators(entry.getType(), content, System.currentTimeMillis());
+    index.put(entry, validators);
+    return validators;
+  }
+
+
+  /**
+   * Removes the validators of all entries.
+   */
+  public void clear() {
+    index.clear();
+  }
+
+
+  /**
+   * The validators of a cached entry, with the header values computed once.
+   */
+  static final class Validators {
+    private final String hash;
+    private final String encoding;
+    private final String contentType;
+    private final String etag;
+    /**
+     * The ETag of each content-coding, by coding name.
+     */
+    private final ConcurrentMap<String, String> codingEtags = new ConcurrentHashMap<String, String>();
+    private final long lastModified;
+    private final String lastModifiedAsString;
+
+    Validators(final ResourceType type, final ContentHashEntry content, final long timestamp) {
+      Validate.notNull(type);
+      Validate.notNull(content.getHash());
+      this.hash = content.getHash();
+      this.encoding = content.getEncoding();
+      this.contentType = type.getContentType() + "; charset=" + encoding;
+      // enclose etag value in quotes to be compliant with the RFC
+      this.etag = String.format("\"%s\"", hash);
+      // http dates have a precision of one second
+      this.lastModified = timestamp / 1000 * 1000;
+      this.lastModifiedAsString = WroUtil.toDateAsString(lastModified);
+    }
+
+    /**
+     * @return true if the header values were rendered for the provided content.
+     */
+    private boolean isRenderedFor(final ContentHashEntry content) {
+      return hash.equals(content.getHash()) && StringUtils.equals(encoding, content.getEncoding());
+    }
+
+    /**
+     * Sets the headers describing the content: the validators and the content type.
+     *
+     * @param coding the name of the content-coding of the response or null if the content is not encoded.
+     */
+    public void setHeaders(final HttpServletResponse response, final String coding) {
+      response.setContentType(contentType);
+      setValidatorHeaders(response, coding);
+    }
+
+    /**
+     * Sets the ETag & Last-Modified headers.
+     *
+     * @param coding the name of the content-coding of the response or null if the content is not encoded.
+     */
+    public void setValidatorHeaders(final HttpServletResponse response, final String coding) {
+      response.setHeader(HttpHeader.ETAG.toString(), getETag(coding));
+      response.setHeader(HttpHeader.LAST_MODIFIED.toString(), lastModifiedAsString);
+    }
+
+    /**
+     * The If-Modified-Since header is used only when the If-None-Match header is missing.
+     *
+     * @param coding the name of the content-coding of the response or null if the content is not encoded.
+     * @return true if the client already has the content described by these validators.
+     */
+    public boolean isNotModified(final HttpServletRequest request, final String coding) {
+      final String ifNoneMatch = request.getHeader(HttpHeader.IF_NONE_MATCH.toString());
+      if (ifNoneMatch != null) {
+        final String codingEtag = getETag(coding);
+        for (final String value : ifNoneMatch.split(",")) {
+          final String tag = value.trim();
+          if (codingEtag.equals(tag) || "*".equals(tag)) {
+            return true;
+          }
+        }
+        return false;
+      }
+      return getIfModifiedSince(request) >= lastModified;
+    }
+
+    /**
+     * A range request is applicable only if the If-Range header is missing or matches exactly the ETag of the
+     * content-coding of the response. A date is not accepted, since it doesn't tell which encoded variant the client
+     * has.
+     *
+     * @param coding the name of the content-coding of the response or null if the content is not encoded.
+     * @return true if the Range header of the request can be used.
+     */
+    public boolean isRangeApplicable(final HttpServletRequest request, final String coding) {
+      final String ifRange = request.getHeader(HttpHeader.IF_RANGE.toString());
+      if (ifRange == null) {
+        return true;
+      }
+      return getETag(coding).equals(ifRange.trim());
+    }
+
+    /**
+     * @return the value of the If-Modified-Since header or -1 if it is missing or invalid.
+     */
+    private long getIfModifiedSince(final HttpServletRequest request) {
+      try {
+        return request.getDateHeader(HttpHeader.IF_MODIFIED_SINCE.toString());
+      } catch (final IllegalArgumentException e) {
+        return -1;
+      }
+    }
+
+    /**
+     * @param coding the name of the content-coding or null if the content is not encoded.
+     * @return the ETag of the content encoded with the provided coding.
+     */
+    public String getETag(final String coding) {
+      if (coding == null) {
+        return etag;
+      }
+      String codingEtag = codingEtags.get(coding);
+      if (codingEtag == null) {
+        codingEtag = String.format("\"%s-%s\"", hash, coding);
+        codingEtags.put(coding, codingEtag);
+      }
+      return codingEtag;
+    }
+
+    public String getHash() {
+      return hash;
+    }
+  }
+}
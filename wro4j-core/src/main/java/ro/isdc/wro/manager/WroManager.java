@@ -5,11 +5,29 @@ package ro.isdc.wro.manager;
 
 import java.beans.PropertyChangeListener;
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -27,19 +45,30 @@ import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.cache.CacheEntry;
 import ro.isdc.wro.cache.CacheStrategy;
 import ro.isdc.wro.cache.ContentHashEntry;
+import ro.isdc.wro.cache.impl.ConcurrentLruMemoryCacheStrategy;
+import ro.isdc.wro.cache.impl.DiskCacheStrategy;
 import ro.isdc.wro.config.Context;
 import ro.isdc.wro.config.WroConfigurationChangeListener;
 import ro.isdc.wro.config.jmx.WroConfiguration;
+import ro.isdc.wro.http.ByteRange;
 import ro.isdc.wro.http.HttpHeader;
 import ro.isdc.wro.http.UnauthorizedRequestException;
+import ro.isdc.wro.http.encoding.AcceptEncoding;
+import ro.isdc.wro.http.encoding.ContentCoding;
+import ro.isdc.wro.http.encoding.DeflateContentCoding;
+import ro.isdc.wro.http.encoding.GzipContentCoding;
+import ro.isdc.wro.manager.ValidatorsIndex.Validators;
 import ro.isdc.wro.model.WroModel;
 import ro.isdc.wro.model.factory.WroModelFactory;
 import ro.isdc.wro.model.group.Group;
 import ro.isdc.wro.model.group.GroupExtractor;
 import ro.isdc.wro.model.group.Inject;
 import ro.isdc.wro.model.group.processor.GroupsProcessor;
+import ro.isdc.wro.model.group.processor.PreProcessorExecutor;
+import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.locator.factory.UriLocatorFactory;
+import ro.isdc.wro.model.resource.processor.DestroyableProcessor;
 import ro.isdc.wro.model.resource.processor.ProcessorsUtils;
 import ro.isdc.wro.model.resource.processor.factory.ProcessorsFactory;
 import ro.isdc.wro.model.resource.processor.impl.css.CssUrlRewritingProcessor;
@@ -48,6 +77,7 @@ import ro.isdc.wro.model.resource.util.NamingStrategy;
 import ro.isdc.wro.util.DestroyableLazyInitializer;
 import ro.isdc.wro.util.SchedulerHelper;
 import ro.isdc.wro.util.StopWatch;
+import ro.isdc.wro.util.TaskExecutor;
 import ro.isdc.wro.util.WroUtil;
 
 
@@ -60,6 +90,19 @@ import ro.isdc.wro.util.WroUtil;
 public class WroManager
   implements WroConfigurationChangeListener, CacheChangeCallbackAware {
   private static final Logger LOG = LoggerFactory.getLogger(WroManager.class);
+  /**
+   * Cache-Control value used for the versioned resources, which content never changes.
+   */
+  private static final String IMMUTABLE_CACHE_CONTROL_VALUE = "public, max-age=31536000, immutable";
+  /**
+   * The characters of the hashes created by the bundled {@link HashBuilder} implementations.
+   */
+  private static final Pattern HEX_PATTERN = Pattern.compile("[0-9a-f]+");
+  /**
+   * The file, stored next to the entries of a {@link DiskCacheStrategy}, where the uri's of the imported resources are
+   * persisted. The imported resources are part of the fingerprint validating the entries on the next start.
+   */
+  static final String IMPORTED_URIS_FILE = "wro4j.imports";
   /**
    * ResourcesModel factory.
    */
@@ -88,6 +131,10 @@ public class WroManager
    * Schedules the model update.
    */
   private final SchedulerHelper modelSchedulerHelper;
+  /**
+   * Schedules the check of files backing the resources and the model.
+   */
+  private final SchedulerHelper resourceWatcherSchedulerHelper;
   private ProcessorsFactory processorsFactory;
   private UriLocatorFactory uriLocatorFactory;
   /**
@@ -99,6 +146,52 @@ public class WroManager
    */
   @Inject
   private GroupsProcessor groupsProcessor;
+  /**
+   * Holds the preProcessed content of each resource. Its cache is cleared together with the groups cache.
+   */
+  @Inject
+  PreProcessorExecutor preProcessorExecutor;
+  /**
+   * Detects the resources changed between two cache reloads. Set to null in order to force a full reload.
+   */
+  private volatile ResourceChangeDetector resourceChangeDetector;
+  /**
+   * Holds the processing tasks currently running, used to avoid processing concurrently the same group more than once.
+   */
+  private final ConcurrentMap<CacheEntry, FutureTask<ContentHashEntry>> processingEntries =
+    new ConcurrentHashMap<CacheEntry, FutureTask<ContentHashEntry>>();
+  /**
+   * Runs the parallel preProcessing of all groups, using a pool of threads shared for the whole life of this manager.
+   */
+  private final TaskExecutor taskExecutor = new TaskExecutor();
+  /**
+   * Number of requests served for each cache entry, used to rebuild and to warm up the most requested groups first.
+   */
+  private final AccessLog accessLog = new AccessLog();
+  /**
+   * Validators of the cached entries, used to answer the conditional requests without processing.
+   */
+  private final ValidatorsIndex validatorsIndex = new ValidatorsIndex();
+  /**
+   * The last processed content of each entry, kept only when a processing timeout is configured. Served when the entry
+   * is processed again (ex: after the cache was cleared) and its processing exceeds the timeout. Bounded like the
+   * default cache strategy, thus only the recently used entries are kept.
+   */
+  private final CacheStrategy<CacheEntry, ContentHashEntry> staleEntries =
+    new ConcurrentLruMemoryCacheStrategy<CacheEntry, ContentHashEntry>();
+  /**
+   * The content-codings which can be used to compress the response, in order of preference.
+   */
+  private List<ContentCoding> contentCodings = Arrays.<ContentCoding> asList(new GzipContentCoding(),
+    new DeflateContentCoding());
+  /**
+   * The file where the {@link AccessLog} is persisted when this manager is destroyed. Set by {@link #warmUp(File)}.
+   */
+  private volatile File accessLogFile;
+  /**
+   * Builds in background the entries never requested before the last restart.
+   */
+  private volatile Thread warmUpThread;
 
 
   public WroManager() {
@@ -114,6 +207,12 @@ public class WroManager
         return new ReloadModelRunnable(WroManager.this);
       }
     }, ReloadModelRunnable.class.getSimpleName());
+    resourceWatcherSchedulerHelper = SchedulerHelper.create(new DestroyableLazyInitializer<Runnable>() {
+      @Override
+      protected Runnable initialize() {
+        return new ResourceWatcherRunnable(WroManager.this);
+      }
+    }, ResourceWatcherRunnable.class.getSimpleName());
   }
 
 
@@ -146,11 +245,6 @@ public class WroManager
   }
 
 
-  private boolean isGzipAllowed() {
-    return Context.get().getConfig().isGzipEnabled() && isGzipSupported();
-  }
-
-
   /**
    * Write to stream the content of the processed resource bundle.
    * 
@@ -169,50 +263,75 @@ public class WroManager
     if (groupName == null || type == null) {
       throw new WroRuntimeException("No groups found for request: " + request.getRequestURI());
     }
-    intAggregatedFolderPath(request, type);
+    final CacheEntry cacheEntry = new CacheEntry(groupName, type, minimize);
 
     // reschedule cache & model updates
     final WroConfiguration config = Context.get().getConfig();
     cacheSchedulerHelper.scheduleWithPeriod(config.getCacheUpdatePeriod());
     modelSchedulerHelper.scheduleWithPeriod(config.getModelUpdatePeriod());
+    resourceWatcherSchedulerHelper.scheduleWithPeriod(config.getResourceWatcherUpdatePeriod());
+
+    // each content-coding is a different representation, with its own ETag
+    final ContentCoding coding = negotiateContentCoding(request);
+    final String codingName = coding != null ? coding.getName() : null;
+    // answer the conditional requests for cached entries before any model or cache lookup
+    final Validators cachedValidators = config.isDisableCache() ? null : validatorsIndex.get(cacheEntry);
+    if (cachedValidators != null && cachedValidators.isNotModified(request, codingName)) {
+      accessLog.record(cacheEntry, request);
+      if (processVersion(request, response, cachedValidators.getHash())) {
+        sendNotModified(response, cachedValidators, codingName);
+      }
+      return;
+    }
+    intAggregatedFolderPath(request, type);
 
-    final ContentHashEntry contentHashEntry = getContentHashEntry(groupName, type, minimize);
-
+    ContentHashEntry contentHashEntry = getContentHashEntry(cacheEntry, config.isDisableCache() ? 0
+      : config.getProcessingTimeout());
+    final boolean stale = contentHashEntry == null;
+    if (stale) {
+      contentHashEntry = staleEntries.get(cacheEntry);
+      if (contentHashEntry == null) {
+        LOG.debug("Processing of {} takes too long. Sending {} status code", cacheEntry,
+          HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        WroUtil.addNoCacheHeaders(response);
+        response.setHeader(HttpHeader.RETRY_AFTER.toString(), "1");
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        return;
+      }
+      LOG.debug("Processing of {} takes too long. Serving its previous content", cacheEntry);
+    }
+    // record only the requests for existing groups, otherwise any client could make the log grow endlessly
+    accessLog.record(cacheEntry, request);
+    final Validators validators = stale || config.isDisableCache() ? new Validators(type, contentHashEntry,
+      System.currentTimeMillis()) : validatorsIndex.update(cacheEntry, contentHashEntry);
+
+    if (stale) {
+      // the previous content is replaced as soon as the processing is complete, thus it must not be cached
+      WroUtil.addNoCacheHeaders(response);
+    } else if (!processVersion(request, response, contentHashEntry.getHash())) {
+      return;
+    }
     // TODO move ETag check in wroManagerFactory
-    final String ifNoneMatch = request.getHeader(HttpHeader.IF_NONE_MATCH.toString());
-    // enclose etag value in quotes to be compliant with the RFC
-    final String etagValue = String.format("\"%s\"", contentHashEntry.getHash());
-
-    if (etagValue != null && etagValue.equals(ifNoneMatch)) {
-      LOG.debug("ETag hash detected: {}. Sending {} status code", etagValue, HttpServletResponse.SC_NOT_MODIFIED);
-      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
-      // because we cannot return null, return a stream containing nothing.
-      // TODO close output stream?
+    if (validators.isNotModified(request, codingName)) {
+      sendNotModified(response, validators, codingName);
       return;
     }
-    if (contentHashEntry.getRawContent() != null) {
-      // Do not set content length because we don't know the length in case it is gzipped. This could cause an
-      // unnecessary overhead caused by some browsers which wait for the rest of the content-length until timeout.
-      // make the input stream encoding aware.
-      // use gziped response if supported
-      final OutputStream os = response.getOutputStream();
-      if (isGzipAllowed()) {
-        // add gzip header and gzip response
-        response.setHeader(HttpHeader.CONTENT_ENCODING.toString(), "gzip");
-        response.setHeader("Vary", "Accept-Encoding");
-        IOUtils.write(contentHashEntry.getGzippedContent(), os);
+    // headers must be set before the content is written, otherwise the response could be already committed.
+    validators.setHeaders(response, codingName);
+    addVaryHeader(response);
+
+    if (contentHashEntry.getRawBytes() != null) {
+      // the cached content is already encoded (and compressed if required), thus its length is known.
+      final byte[] content;
+      if (coding != null) {
+        response.setHeader(HttpHeader.CONTENT_ENCODING.toString(), codingName);
+        content = contentHashEntry.getEncodedContent(coding);
       } else {
-        IOUtils.write(contentHashEntry.getRawContent(), os);
+        content = contentHashEntry.getRawBytes();
       }
-      IOUtils.closeQuietly(os);
-    }
-    if (type != null) {
-      response.setContentType(type.getContentType() + "; charset=" + Context.get().getConfig().getEncoding());
+      writeContent(request, response, content, validators, codingName);
     }
 
-    // set ETag header
-    response.setHeader(HttpHeader.ETAG.toString(), etagValue);
-
     stopWatch.stop();
     if (LOG.isDebugEnabled()) {
       LOG.debug("WroManager process time: {}", stopWatch.prettyPrint());
@@ -220,6 +339,118 @@ public class WroManager
   }
 
 
+  /**
+   * Writes the cached content, or only the requested range of it. The body is omitted for HEAD requests.
+   */
+  private void writeContent(final HttpServletRequest request, final HttpServletResponse response,
+    final byte[] content, final Validators validators, final String codingName)
+    throws IOException {
+    response.setHeader(HttpHeader.ACCEPT_RANGES.toString(), "bytes");
+    final ByteRange range = validators.isRangeApplicable(request, codingName) ? ByteRange.valueOf(request.getHeader(
+      HttpHeader.RANGE.toString())) : null;
+    int offset = 0;
+    int length = content.length;
+    if (range != null) {
+      if (!range.isSatisfiable(content.length)) {
+        LOG.debug("Range not satisfiable: {}", request.getHeader(HttpHeader.RANGE.toString()));
+        response.setHeader(HttpHeader.CONTENT_RANGE.toString(), "bytes */" + content.length);
+        response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+        return;
+      }
+      offset = (int)range.getStart(content.length);
+      length = (int)range.getEnd(content.length) - offset + 1;
+      response.setHeader(HttpHeader.CONTENT_RANGE.toString(), range.toContentRange(content.length));
+      response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+    }
+    response.setContentLength(length);
+    if (!"HEAD".equals(request.getMethod())) {
+      final OutputStream os = response.getOutputStream();
+      os.write(content, offset, length);
+      IOUtils.closeQuietly(os);
+    }
+  }
+
+
+  /**
+   * Handles the version of a request, before any response is sent: the current version is served as immutable, while
+   * an outdated version is redirected to the current one.
+   *
+   * @param hash the hash of the current content of the group.
+   * @return false if the request was redirected, true if the content (or a not modified status) must be sent.
+   */
+  private boolean processVersion(final HttpServletRequest request, final HttpServletResponse response,
+    final String hash)
+    throws IOException {
+    final String version = getVersion(request, hash);
+    if (version != null) {
+      if (!version.equals(hash)) {
+        redirectToCurrentVersion(request, response, version, hash);
+        return false;
+      }
+      if (!Context.get().getConfig().isDebug()) {
+        // the content of a versioned resource never changes, a new version gets a new url
+        response.setHeader(HttpHeader.CACHE_CONTROL.toString(), IMMUTABLE_CACHE_CONTROL_VALUE);
+      }
+    }
+    return true;
+  }
+
+
+  /**
+   * Redirects a request for an outdated version of a group to the url of its current version. The redirect itself must
+   * not be cached, since the current version will change as well.
+   */
+  private void redirectToCurrentVersion(final HttpServletRequest request, final HttpServletResponse response,
+    final String version, final String currentVersion)
+    throws IOException {
+    final String requestUri = request.getRequestURI();
+    final String fileName = FilenameUtils.getName(requestUri);
+    final String prefix = StringUtils.removeEnd(requestUri, version + "/" + fileName);
+    final StringBuilder location = new StringBuilder(prefix).append(currentVersion).append("/").append(fileName);
+    if (request.getQueryString() != null) {
+      location.append("?").append(request.getQueryString());
+    }
+    LOG.debug("Outdated version {} requested, redirecting to: {}", version, location);
+    WroUtil.addNoCacheHeaders(response);
+    response.sendRedirect(location.toString());
+  }
+
+
+  /**
+   * Answers a conditional request for unchanged content.
+   */
+  private void sendNotModified(final HttpServletResponse response, final Validators validators,
+    final String codingName) {
+    LOG.debug("ETag hash detected: {}. Sending {} status code", validators.getETag(codingName),
+      HttpServletResponse.SC_NOT_MODIFIED);
+    validators.setValidatorHeaders(response, codingName);
+    addVaryHeader(response);
+    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+  }
+
+
+  /**
+   * @return the preferred content-coding accepted by the request or null if the content should be sent unencoded.
+   */
+  private ContentCoding negotiateContentCoding(final HttpServletRequest request) {
+    if (!Context.get().getConfig().isGzipEnabled()) {
+      return null;
+    }
+    return AcceptEncoding.fromRequest(request).negotiate(contentCodings);
+  }
+
+
+  /**
+   * Tells the caches that the response depends on the Accept-Encoding header, including for the uncompressed and the
+   * not modified responses, since the same url is served in different encodings.
+   */
+  private void addVaryHeader(final HttpServletResponse response) {
+    if (Context.get().getConfig().isGzipEnabled()) {
+      response.setHeader(HttpHeader.VARY.toString(), "Accept-Encoding");
+    }
+  }
+
+
   /**
    * Set the aggregatedFolderPath if required.
    */
@@ -265,48 +496,280 @@ public class WroManager
   }
 
 
+  /**
+   * Finds the version of a request for a path formatted by {@link #formatVersionedResource(String, String)}: the folder
+   * containing the group, if it is the hash of the current content. When
+   * {@link WroConfiguration#isRedirectOutdatedVersions()} is enabled, a folder looking exactly like a hash of the
+   * current content (a hexadecimal value of the same length) is an outdated version. Override this method together
+   * with {@link #formatVersionedResource(String, String)} when using a different versioning style.
+   *
+   * @param request the request of a group.
+   * @param hash the hash of the current content of the group.
+   * @return the version found in the request or null if the request is not versioned.
+   */
+  protected String getVersion(final HttpServletRequest request, final String hash) {
+    final String folder = FilenameUtils.getName(FilenameUtils.getPathNoEndSeparator(request.getRequestURI()));
+    if (StringUtils.isEmpty(folder)) {
+      return null;
+    }
+    if (folder.equals(hash)) {
+      return folder;
+    }
+    final boolean looksLikeHash = folder.length() == hash.length() && HEX_PATTERN.matcher(hash).matches()
+      && HEX_PATTERN.matcher(folder).matches();
+    return looksLikeHash && Context.get().getConfig().isRedirectOutdatedVersions() ? folder : null;
+  }
+
+
   /**
    * @return {@link ContentHashEntry} object.
    */
   private ContentHashEntry getContentHashEntry(final String groupName, final ResourceType type, final boolean minimize)
     throws IOException {
-    final CacheEntry cacheEntry = new CacheEntry(groupName, type, minimize);
+    return getContentHashEntry(new CacheEntry(groupName, type, minimize), 0);
+  }
+
+
+  /**
+   * @param timeout the maximum time (in milliseconds) to wait for the processing of an entry which is not cached or 0
+   *        to wait until the processing is complete.
+   * @return {@link ContentHashEntry} object or null if the entry is not processed before the timeout.
+   */
+  private ContentHashEntry getContentHashEntry(final CacheEntry cacheEntry, final long timeout)
+    throws IOException {
     LOG.debug("Searching cache entry: {}", cacheEntry);
+    validateDiskCache();
     // Cache based on uri
     ContentHashEntry contentHashEntry = cacheStrategy.get(cacheEntry);
     if (contentHashEntry == null) {
-      LOG.debug("Cache is empty. Perform processing...");
-      // process groups & put result in the cache
-      // find processed result for a group
-      final List<Group> groupAsList = new ArrayList<Group>();
-      final WroModel model = modelFactory.create();
-      if (model == null) {
-        throw new WroRuntimeException("Cannot build a valid wro model");
+      contentHashEntry = timeout > 0 ? computeContentHashEntryInBackground(cacheEntry, timeout)
+        : computeContentHashEntryOnce(cacheEntry);
+    }
+    return contentHashEntry;
+  }
+
+
+  /**
+   * When a {@link DiskCacheStrategy} is used, validates its persisted entries against the fingerprint of the current
+   * model. This is done only once, before the first cache lookup.
+   */
+  private void validateDiskCache() {
+    if (cacheStrategy instanceof DiskCacheStrategy) {
+      final DiskCacheStrategy diskCache = (DiskCacheStrategy)cacheStrategy;
+      if (!diskCache.isValidated()) {
+        synchronized (diskCache) {
+          if (!diskCache.isValidated()) {
+            if (preProcessorExecutor != null) {
+              preProcessorExecutor.loadImportedUris(new File(diskCache.getDirectory(), IMPORTED_URIS_FILE));
+            }
+            diskCache.validate(computeModelFingerprint());
+          }
+        }
+      }
+    }
+  }
+
+
+  /**
+   * Computes a fingerprint of the model: the groups with their resources, the fingerprints of the resources and of the
+   * resources they import and the configuration of the processors used. Any change of these invalidates the persisted
+   * cache entries. The fingerprints of the resources are the ones used by the {@link ResourceChangeDetector} (ex: last
+   * modified date and size), thus the content is read only when nothing cheaper is available.
+   */
+  String computeModelFingerprint() {
+    final ResourceChangeDetector detector = newResourceChangeDetector();
+    final StringBuilder sb = new StringBuilder();
+    final WroModel model = modelFactory.create();
+    if (model != null) {
+      for (final Group group : model.getGroups()) {
+        sb.append(group.getName()).append('\n');
+        for (final Resource resource : group.getResources()) {
+          sb.append(resource.getType()).append(':').append(resource.isMinimize()).append(':');
+          appendFingerprint(sb, detector, resource.getUri(), new HashSet<String>());
+        }
+      }
+    }
+    for (final Object processor : processorsFactory.getPreProcessors()) {
+      sb.append(ProcessorsUtils.getConfiguration(processor)).append('\n');
+    }
+    for (final Object processor : processorsFactory.getPostProcessors()) {
+      sb.append(ProcessorsUtils.getConfiguration(processor)).append('\n');
+    }
+    try {
+      return hashBuilder.getHash(new ByteArrayInputStream(sb.toString().getBytes("UTF-8")));
+    } catch (final IOException e) {
+      throw new WroRuntimeException("Cannot compute model fingerprint", e);
+    }
+  }
+
+
+  /**
+   * Appends the uri and the fingerprint of a resource, followed by the ones of the resources it imports.
+   *
+   * @param visited the uri's already appended, used to stop on circular imports.
+   */
+  private void appendFingerprint(final StringBuilder sb, final ResourceChangeDetector detector, final String uri,
+    final Collection<String> visited) {
+    if (visited.add(uri)) {
+      sb.append(uri).append('=').append(detector.getFingerprint(uri)).append('\n');
+      if (preProcessorExecutor != null) {
+        for (final String importedUri : preProcessorExecutor.getImportedUris(uri)) {
+          appendFingerprint(sb, detector, importedUri, visited);
+        }
+      }
+    }
+  }
+
+
+  /**
+   * Makes sure that concurrent requests for the same {@link CacheEntry} trigger the processing only once: the first
+   * thread performs the processing, while the others wait for its result.
+   *
+   * @return the {@link ContentHashEntry} computed by the current thread or by a concurrent one.
+   */
+  private ContentHashEntry computeContentHashEntryOnce(final CacheEntry cacheEntry)
+    throws IOException {
+    final FutureTask<ContentHashEntry> task = new FutureTask<ContentHashEntry>(new Callable<ContentHashEntry>() {
+      public ContentHashEntry call()
+        throws Exception {
+        return computeContentHashEntry(cacheEntry);
+      }
+    });
+    FutureTask<ContentHashEntry> inProgress = processingEntries.putIfAbsent(cacheEntry, task);
+    if (inProgress == null) {
+      inProgress = task;
+      try {
+        // processing is done in the current thread, in order to use its context.
+        task.run();
+      } finally {
+        processingEntries.remove(cacheEntry, task);
+      }
+    } else {
+      LOG.debug("Waiting for concurrent processing of: {}", cacheEntry);
+    }
+    return waitForProcessing(cacheEntry, inProgress, 0);
+  }
+
+
+  /**
+   * Processes the entry on the worker pool, with a context detached from the current request, so that the processing
+   * can continue after the request is answered. The result is put in the cache.
+   *
+   * @return the {@link ContentHashEntry} or null if it is not ready before the timeout.
+   */
+  private ContentHashEntry computeContentHashEntryInBackground(final CacheEntry cacheEntry, final long timeout)
+    throws IOException {
+    final Context context = Context.get();
+    final HttpServletRequest request = accessLog.newRequest(Context.get().getRequest());
+    final FutureTask<ContentHashEntry> task = new FutureTask<ContentHashEntry>(new Callable<ContentHashEntry>() {
+      public ContentHashEntry call()
+        throws Exception {
+        return callDetached(cacheEntry, request, context, new Callable<ContentHashEntry>() {
+          public ContentHashEntry call()
+            throws Exception {
+            return computeContentHashEntry(cacheEntry);
+          }
+        });
+      }
+    }) {
+      @Override
+      protected void done() {
+        processingEntries.remove(cacheEntry, this);
       }
-      final Group group = model.getGroupByName(groupName);
-      groupAsList.add(group);
+    };
+    FutureTask<ContentHashEntry> inProgress = processingEntries.putIfAbsent(cacheEntry, task);
+    if (inProgress == null) {
+      inProgress = task;
+      taskExecutor.execute(task);
+    } else {
+      LOG.debug("Waiting for concurrent processing of: {}", cacheEntry);
+    }
+    return waitForProcessing(cacheEntry, inProgress, timeout);
+  }
+
 
-      final String content = groupsProcessor.process(groupAsList, type, minimize);
-      contentHashEntry = getContentHashEntryByContent(content);
-      if (!Context.get().getConfig().isDisableCache()) {
-        cacheStrategy.put(cacheEntry, contentHashEntry);
+  /**
+   * @param timeout the maximum time (in milliseconds) to wait or 0 to wait until the processing is complete.
+   * @return the processed entry or null if the timeout elapsed.
+   */
+  private ContentHashEntry waitForProcessing(final CacheEntry cacheEntry, final Future<ContentHashEntry> processing,
+    final long timeout)
+    throws IOException {
+    try {
+      return timeout > 0 ? processing.get(timeout, TimeUnit.MILLISECONDS) : processing.get();
+    } catch (final TimeoutException e) {
+      return null;
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new WroRuntimeException("Interrupted while waiting for processing of: " + cacheEntry, e);
+    } catch (final ExecutionException e) {
+      // propagate original cause
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      } else if (cause instanceof IOException) {
+        throw (IOException)cause;
+      } else {
+        throw new WroRuntimeException("Exception while processing: " + cacheEntry, cause);
       }
     }
+  }
+
+
+  /**
+   * Process the group described by the {@link CacheEntry} and put the result in the cache (if the cache is not
+   * disabled). The result is published in the cache before the concurrent waiting requests are released.
+   */
+  private ContentHashEntry computeContentHashEntry(final CacheEntry cacheEntry)
+    throws IOException {
+    LOG.debug("Cache is empty. Perform processing...");
+    // process groups & put result in the cache
+    // find processed result for a group
+    final List<Group> groupAsList = new ArrayList<Group>();
+    final WroModel model = modelFactory.create();
+    if (model == null) {
+      throw new WroRuntimeException("Cannot build a valid wro model");
+    }
+    final Group group = model.getGroupByName(cacheEntry.getGroupName());
+    groupAsList.add(group);
+
+    final String content = groupsProcessor.process(groupAsList, cacheEntry.getType(), cacheEntry.isMinimize());
+    final ContentHashEntry contentHashEntry = getContentHashEntryByContent(content);
+    if (!Context.get().getConfig().isDisableCache()) {
+      putContentHashEntry(cacheEntry, contentHashEntry);
+    }
     return contentHashEntry;
   }
 
 
+  /**
+   * Puts the processed entry in the cache and updates its validators. When a processing timeout is configured, the
+   * entry is also kept as the content served while the entry is processed again.
+   */
+  private void putContentHashEntry(final CacheEntry cacheEntry, final ContentHashEntry contentHashEntry) {
+    cacheStrategy.put(cacheEntry, contentHashEntry);
+    validatorsIndex.update(cacheEntry, contentHashEntry);
+    if (Context.get().getConfig().getProcessingTimeout() > 0) {
+      staleEntries.put(cacheEntry, contentHashEntry);
+    }
+  }
+
+
   /**
    * Creates a {@link ContentHashEntry} based on provided content.
    */
   ContentHashEntry getContentHashEntryByContent(final String content)
     throws IOException {
     String hash = null;
+    byte[] bytes = null;
     if (content != null) {
       LOG.debug("Content to fingerprint: [{}]", StringUtils.abbreviate(content, 40));
-      hash = hashBuilder.getHash(new ByteArrayInputStream(content.getBytes()));
+      // encode only once, the same bytes are used for fingerprinting and serving
+      bytes = content.getBytes(Context.get().getConfig().getEncoding());
+      hash = hashBuilder.getHash(new ByteArrayInputStream(bytes));
     }
-    final ContentHashEntry entry = ContentHashEntry.valueOf(content, hash);
+    // the encoded variants of the configured codings are expensive to compute and cheap to serve
+    final ContentHashEntry entry = ContentHashEntry.valueOf(bytes, hash, contentCodings);
     LOG.debug("computed entry: {}", entry);
     return entry;
   }
@@ -344,11 +807,269 @@ public class WroManager
   public final void onCachePeriodChanged(final long period) {
     LOG.info("onCachePeriodChanged with value {} has been triggered!", period);
     cacheSchedulerHelper.scheduleWithPeriod(period);
-    // flush the cache by destroying it.
+    // the next reload will rebuild all groups, not only those containing changed resources.
+    resourceChangeDetector = null;
+    if (Context.get().getConfig().isStaleWhileRevalidate()) {
+      // keep serving the stale content while the cache is rebuilt in background.
+      cacheSchedulerHelper.runOnce();
+    } else {
+      // flush the cache by destroying it.
+      clearPreProcessedResources();
+      clearCache();
+    }
+  }
+
+
+  /**
+   * Removes all the processed groups from the cache. Use this method instead of clearing the {@link CacheStrategy}
+   * directly, in order to discard also the validators of the cached content.
+   */
+  public final void clearCache() {
+    validatorsIndex.clear();
     cacheStrategy.clear();
   }
 
 
+  /**
+   * @return the {@link ResourceChangeDetector} used by the cache reload.
+   */
+  final ResourceChangeDetector getResourceChangeDetector() {
+    if (resourceChangeDetector == null) {
+      resourceChangeDetector = newResourceChangeDetector();
+    }
+    return resourceChangeDetector;
+  }
+
+
+  /**
+   * @return a new {@link ResourceChangeDetector} using the resources of this manager.
+   */
+  final ResourceChangeDetector newResourceChangeDetector() {
+    return new ResourceChangeDetector(uriLocatorFactory, hashBuilder).setPreProcessorExecutor(preProcessorExecutor);
+  }
+
+
+  /**
+   * Rebuilds the cache entries of the group, for all resource types and both minimize values. Each entry is replaced
+   * only when its new content is ready. If an entry cannot be rebuilt, its previous value is kept.
+   *
+   * @return true if all the entries of the group were rebuilt.
+   * @throws InterruptedException if the current thread is interrupted.
+   */
+  final boolean reloadGroup(final Group group)
+    throws InterruptedException {
+    boolean reloaded = true;
+    for (final ResourceType resourceType : ResourceType.values()) {
+      if (group.hasResourcesOfType(resourceType)) {
+        final Collection<Group> groupAsList = new HashSet<Group>();
+        groupAsList.add(group);
+        // TODO check if request parameter can be fetched here without errors.
+        // groupExtractor.isMinimized(Context.get().getRequest())
+        final Boolean[] minimizeValues = new Boolean[] { true, false };
+        for (final boolean minimize : minimizeValues) {
+          //stop processing if the current thread is interrupted
+          if (Thread.interrupted()) {
+            LOG.debug("Reloading of group {} was interrupted - stop processing!", group.getName());
+            throw new InterruptedException();
+          }
+          final CacheEntry cacheEntry = new CacheEntry(group.getName(), resourceType, minimize);
+          try {
+            final String content = groupsProcessor.process(groupAsList, resourceType, minimize);
+            // replace the entry only when the new content is ready
+            final ContentHashEntry contentHashEntry = getContentHashEntryByContent(content);
+            putContentHashEntry(cacheEntry, contentHashEntry);
+          } catch (final Exception e) {
+            // keep the previous value and continue with the other entries
+            LOG.error("Cannot rebuild cache entry: " + cacheEntry + ". Keeping the previous value.", e);
+            reloaded = false;
+          }
+        }
+      }
+    }
+    return reloaded;
+  }
+
+
+  /**
+   * Warms up the cache using the access log persisted in the provided file during the previous run: the entries
+   * requested before are built in parallel, the most requested first, before this method returns. The entries of the
+   * groups never requested are built afterwards by a background thread, using a request similar to an already requested
+   * entry of the same type. The access log is persisted back in the same file when this manager is destroyed.
+   * <p>
+   * This method must be called with a {@link Context} set, in order to provide the configuration and the
+   * servletContext used to locate the resources.
+   *
+   * @param file the file of the access log, it is created if missing.
+   */
+  public final void warmUp(final File file) {
+    Validate.notNull(file);
+    accessLogFile = file;
+    accessLog.load(file);
+    if (Context.get().getConfig().isDisableCache()) {
+      LOG.debug("Cache is disabled, no warm up required");
+      return;
+    }
+    final List<CacheEntry> entries = accessLog.getEntries();
+    LOG.info("Warming up {} cache entries from access log: {}", entries.size(), file);
+    final StopWatch stopWatch = new StopWatch();
+    stopWatch.start("warmUp");
+    final List<Callable<Void>> callables = new ArrayList<Callable<Void>>();
+    for (final CacheEntry entry : entries) {
+      callables.add(new Callable<Void>() {
+        public Void call() {
+          warmUpEntry(entry, accessLog.newRequest(entry));
+          return null;
+        }
+      });
+    }
+    for (final Future<Void> future : taskExecutor.invokeAll(callables)) {
+      try {
+        future.get();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (final ExecutionException e) {
+        LOG.warn("Cannot warm up cache entry", e.getCause());
+      }
+    }
+    stopWatch.stop();
+    LOG.debug("Warm up process time: {}", stopWatch.prettyPrint());
+    startDeferredWarmUp(entries);
+  }
+
+
+  /**
+   * Starts a background thread building the entries of all the groups which are not in the access log.
+   */
+  private void startDeferredWarmUp(final List<CacheEntry> requestedEntries) {
+    final WroModel model = modelFactory.create();
+    if (model == null || requestedEntries.isEmpty()) {
+      return;
+    }
+    final Map<CacheEntry, HttpServletRequest> deferredEntries = new LinkedHashMap<CacheEntry, HttpServletRequest>();
+    for (final Group group : model.getGroups()) {
+      for (final ResourceType type : ResourceType.values()) {
+        if (group.hasResourcesOfType(type)) {
+          final HttpServletRequest request = accessLog.newRequest(getTemplateEntry(requestedEntries, type));
+          for (final boolean minimize : new boolean[] { true, false }) {
+            final CacheEntry entry = new CacheEntry(group.getName(), type, minimize);
+            if (!requestedEntries.contains(entry)) {
+              deferredEntries.put(entry, request);
+            }
+          }
+        }
+      }
+    }
+    if (deferredEntries.isEmpty()) {
+      return;
+    }
+    final Context context = Context.get();
+    warmUpThread = WroUtil.createDaemonThreadFactory().newThread(new Runnable() {
+      public void run() {
+        try {
+          Context.set(context, context.getConfig());
+          for (final Map.Entry<CacheEntry, HttpServletRequest> entry : deferredEntries.entrySet()) {
+            if (Thread.currentThread().isInterrupted()) {
+              LOG.debug("Deferred warm up was interrupted - stop processing!");
+              return;
+            }
+            warmUpEntry(entry.getKey(), entry.getValue());
+          }
+          LOG.debug("Deferred warm up of {} cache entries completed", deferredEntries.size());
+        } finally {
+          Context.unset();
+        }
+      }
+    });
+    warmUpThread.start();
+  }
+
+
+  /**
+   * @return the most requested entry of the provided type, or the most requested entry if there is none of this type.
+   */
+  private CacheEntry getTemplateEntry(final List<CacheEntry> requestedEntries, final ResourceType type) {
+    for (final CacheEntry entry : requestedEntries) {
+      if (entry.getType() == type) {
+        return entry;
+      }
+    }
+    return requestedEntries.get(0);
+  }
+
+
+  /**
+   * Builds a cache entry outside of the request cycle, using a context created with the provided request.
+   */
+  private void warmUpEntry(final CacheEntry entry, final HttpServletRequest request) {
+    try {
+      callDetached(entry, request, Context.get(), new Callable<ContentHashEntry>() {
+        public ContentHashEntry call()
+          throws Exception {
+          return getContentHashEntry(entry.getGroupName(), entry.getType(), entry.isMinimize());
+        }
+      });
+    } catch (final Exception e) {
+      LOG.warn("Cannot warm up cache entry: " + entry, e);
+    }
+  }
+
+
+  /**
+   * Runs the callable outside of the request cycle, with a context created for the provided request (as returned by
+   * {@link AccessLog#newRequest(CacheEntry)}). The previous context of the current thread is restored afterwards.
+   *
+   * @param parent the context providing the configuration and the filterConfig.
+   */
+  private <T> T callDetached(final CacheEntry entry, final HttpServletRequest request, final Context parent,
+    final Callable<T> callable)
+    throws Exception {
+    final Context previous = Context.isContextSet() ? Context.get() : null;
+    Context.set(Context.webContext(request, accessLog.newResponse(), parent.getFilterConfig()), parent.getConfig());
+    try {
+      if (request != null) {
+        intAggregatedFolderPath(request, entry.getType());
+      }
+      return callable.call();
+    } finally {
+      if (previous != null) {
+        Context.set(previous, previous.getConfig());
+      } else {
+        Context.unset();
+      }
+    }
+  }
+
+
+  /**
+   * @return the provided groups, the most requested first.
+   */
+  final List<Group> sortByRequestCount(final Collection<Group> groups) {
+    // use a snapshot of the counts, since they can change while sorting
+    final Map<String, Long> counts = new HashMap<String, Long>();
+    for (final Group group : groups) {
+      counts.put(group.getName(), accessLog.getCount(group.getName()));
+    }
+    final List<Group> sorted = new ArrayList<Group>(groups);
+    Collections.sort(sorted, new Comparator<Group>() {
+      public int compare(final Group first, final Group second) {
+        return counts.get(second.getName()).compareTo(counts.get(first.getName()));
+      }
+    });
+    return sorted;
+  }
+
+
+  /**
+   * Discards the preProcessed content of the resources, forcing them to be processed again.
+   */
+  final void clearPreProcessedResources() {
+    if (preProcessorExecutor != null) {
+      preProcessorExecutor.clearCache();
+    }
+  }
+
+
   /**
    * {@inheritDoc}
    */
@@ -366,8 +1087,22 @@ public class WroManager
     try {
       cacheSchedulerHelper.destroy();
       modelSchedulerHelper.destroy();
+      resourceWatcherSchedulerHelper.destroy();
+      if (warmUpThread != null) {
+        warmUpThread.interrupt();
+      }
+      taskExecutor.destroy();
+      if (accessLogFile != null) {
+        accessLog.save(accessLogFile);
+      }
+      staleEntries.destroy();
+      if (cacheStrategy instanceof DiskCacheStrategy && preProcessorExecutor != null) {
+        preProcessorExecutor.saveImportedUris(new File(((DiskCacheStrategy)cacheStrategy).getDirectory(),
+          IMPORTED_URIS_FILE));
+      }
       cacheStrategy.destroy();
       modelFactory.destroy();
+      destroyProcessors();
     } catch (final Exception e) {
       LOG.error("Exception occured during manager destroy!!!");
     } finally {
@@ -376,6 +1111,24 @@ public class WroManager
   }
 
 
+  /**
+   * Destroys the processors holding resources, each one independently of the others.
+   */
+  private void destroyProcessors() {
+    final Collection<Object> processors = new ArrayList<Object>(processorsFactory.getPreProcessors());
+    processors.addAll(processorsFactory.getPostProcessors());
+    for (final Object processor : processors) {
+      if (processor instanceof DestroyableProcessor) {
+        try {
+          ((DestroyableProcessor)processor).destroy();
+        } catch (final Exception e) {
+          LOG.error("Cannot destroy processor: " + processor, e);
+        }
+      }
+    }
+  }
+
+
   /**
    * Check if all dependencies are set.
    */
@@ -399,14 +1152,6 @@ public class WroManager
   }
 
 
-  /**
-   * @return true if Gzip is Supported
-   */
-  private boolean isGzipSupported() {
-    return WroUtil.isGzipSupported(Context.get().getRequest());
-  }
-
-
   /**
    * @param groupExtractor the uriProcessor to set
    */
@@ -434,6 +1179,7 @@ public class WroManager
   public final WroManager setCacheStrategy(final CacheStrategy<CacheEntry, ContentHashEntry> cacheStrategy) {
     Validate.notNull(cacheStrategy);
     this.cacheStrategy = cacheStrategy;
+    validatorsIndex.clear();
     return this;
   }
 
@@ -448,6 +1194,16 @@ public class WroManager
   }
 
 
+  /**
+   * @param contentCodings the content-codings which can be used to compress the response, in order of preference.
+   */
+  public final WroManager setContentCodings(final List<ContentCoding> contentCodings) {
+    Validate.notNull(contentCodings);
+    this.contentCodings = contentCodings;
+    return this;
+  }
+
+
   /**
    * @return the modelFactory
    */
@@ -507,6 +1263,14 @@ public class WroManager
   }
 
 
+  /**
+   * @return the {@link TaskExecutor} used for parallel preProcessing.
+   */
+  public final TaskExecutor getTaskExecutor() {
+    return this.taskExecutor;
+  }
+
+
   /**
    * @return the groupsProcessor
    */
@@ -15,8 +15,11 @@ import org.slf4j.LoggerFactory;
 import ro.isdc.wro.cache.CacheEntry;
 import ro.isdc.wro.cache.CacheStrategy;
 import ro.isdc.wro.cache.ContentHashEntry;
-import ro.isdc.wro.cache.impl.LruMemoryCacheStrategy;
+import ro.isdc.wro.cache.impl.ConcurrentLruMemoryCacheStrategy;
 import ro.isdc.wro.config.WroConfigurationChangeListener;
+import ro.isdc.wro.http.encoding.ContentCoding;
+import ro.isdc.wro.http.encoding.DeflateContentCoding;
+import ro.isdc.wro.http.encoding.GzipContentCoding;
 import ro.isdc.wro.manager.CacheChangeCallbackAware;
 import ro.isdc.wro.manager.WroManager;
 import ro.isdc.wro.manager.WroManagerFactory;
@@ -110,6 +113,7 @@ public class BaseWroManagerFactory
       manager.setUriLocatorFactory(uriLocatorFactory);
       manager.setProcessorsFactory(processorsFactory);
       manager.setNamingStrategy(namingStrategy);
+      manager.setContentCodings(newContentCodings());
       //wrap modelFactory with several useful decorators
       manager.setModelFactory(new ModelTransformerFactory(new InMemoryCacheableWroModelFactory(new FallbackAwareWroModelFactory(
           modelFactory))).setTransformers(modelTransformers));
@@ -186,6 +190,19 @@ public class BaseWroManagerFactory
   }
 
 
+  /**
+   * Override to support additional content-codings (ex: br), provided by a third party library.
+   *
+   * @return the list of {@link ContentCoding}'s used to compress the response, in order of preference.
+   */
+  protected List<ContentCoding> newContentCodings() {
+    final List<ContentCoding> contentCodings = new ArrayList<ContentCoding>();
+    contentCodings.add(new GzipContentCoding());
+    contentCodings.add(new DeflateContentCoding());
+    return contentCodings;
+  }
+
+
   /**
    * {@inheritDoc}
    */
@@ -208,15 +225,16 @@ public class BaseWroManagerFactory
   public void onModelPeriodChanged(final long period) {
     managerInitializer.get().onModelPeriodChanged(period);
     // update cache too.
-    managerInitializer.get().getCacheStrategy().clear();
+    managerInitializer.get().clearCache();
   }
 
 
   /**
-   * @return {@link CacheStrategy} instance for resources' group caching.
+   * @return {@link CacheStrategy} instance for resources' group caching. By default a
+   *         {@link ConcurrentLruMemoryCacheStrategy} is used, which doesn't block concurrent readers.
    */
   protected CacheStrategy<CacheEntry, ContentHashEntry> newCacheStrategy() {
-    return new LruMemoryCacheStrategy<CacheEntry, ContentHashEntry>();
+    return new ConcurrentLruMemoryCacheStrategy<CacheEntry, ContentHashEntry>();
   }
 
 
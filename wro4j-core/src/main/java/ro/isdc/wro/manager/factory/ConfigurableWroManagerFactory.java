@@ -3,6 +3,7 @@
  */
 package ro.isdc.wro.manager.factory;
 
+import java.io.File;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -10,10 +11,15 @@ import java.util.Properties;
 
 import javax.servlet.FilterConfig;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import ro.isdc.wro.cache.CacheEntry;
+import ro.isdc.wro.cache.CacheStrategy;
+import ro.isdc.wro.cache.ContentHashEntry;
+import ro.isdc.wro.cache.impl.DiskCacheStrategy;
 import ro.isdc.wro.config.Context;
 import ro.isdc.wro.config.factory.FilterConfigWroConfigurationFactory;
 import ro.isdc.wro.config.factory.PropertiesAndFilterConfigWroConfigurationFactory;
@@ -44,6 +50,11 @@ public class ConfigurableWroManagerFactory extends BaseWroManagerFactory {
    * Name of init param used to specify uri locators.
    */
   public static final String PARAM_URI_LOCATORS = "uriLocators";
+  /**
+   * Name of init param (or config property) used to specify the folder where processed groups are persisted. When
+   * provided, a {@link DiskCacheStrategy} is used, allowing a warm restart.
+   */
+  public static final String PARAM_DISK_CACHE_DIRECTORY = "diskCacheDirectory";
 
 
   private Map<String, UriLocator> createLocatorsMap() {
@@ -105,6 +116,25 @@ public class ConfigurableWroManagerFactory extends BaseWroManagerFactory {
   }
 
 
+  /**
+   * Wraps the default cache strategy with a {@link DiskCacheStrategy} when the {@link #PARAM_DISK_CACHE_DIRECTORY} is
+   * configured.
+   */
+  @Override
+  protected CacheStrategy<CacheEntry, ContentHashEntry> newCacheStrategy() {
+    final CacheStrategy<CacheEntry, ContentHashEntry> cacheStrategy = super.newCacheStrategy();
+    String directory = Context.get().getFilterConfig().getInitParameter(PARAM_DISK_CACHE_DIRECTORY);
+    if (StringUtils.isBlank(directory)) {
+      directory = getConfigProperties().getProperty(PARAM_DISK_CACHE_DIRECTORY);
+    }
+    if (StringUtils.isBlank(directory)) {
+      return cacheStrategy;
+    }
+    LOG.info("Using disk cache directory: {}", directory);
+    return new DiskCacheStrategy(cacheStrategy, new File(directory.trim()));
+  }
+
+
   /**
    * Reuse {@link ConfigurableProcessorsFactory} for processors lookup.
    */
@@ -5,6 +5,10 @@ package ro.isdc.wro.model.factory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 import javax.servlet.ServletContext;
 
@@ -19,7 +23,11 @@ import ro.isdc.wro.config.Context;
  * @since 1.4.0
  */
 public abstract class AbstractWroModelFactory
-  implements WroModelFactory {
+  implements WroModelFactory, ModelResourcesAware {
+  /**
+   * The uri's of the resources the models were read from.
+   */
+  private final Set<String> modelResourceUris = new CopyOnWriteArraySet<String>();
 
   /**
    * Override this method, in order to provide different xml definition file name.
@@ -35,7 +43,28 @@ public abstract class AbstractWroModelFactory
       throw new WroRuntimeException(
         "No servletContext is available. Probably you are running this code outside of the request cycle!");
     }
-    return servletContext.getResourceAsStream("/WEB-INF/" + getDefaultModelFilename());
+    final String uri = "/WEB-INF/" + getDefaultModelFilename();
+    addModelResourceUri(uri);
+    return servletContext.getResourceAsStream(uri);
+  }
+
+
+  /**
+   * Remembers a resource the model is read from. Must be called by the implementations overriding
+   * {@link #getModelResourceAsStream()}, otherwise the changes of the model are not watched.
+   *
+   * @param uri the uri of the resource, as understood by the {@link ro.isdc.wro.model.resource.locator.UriLocator}'s.
+   */
+  protected final void addModelResourceUri(final String uri) {
+    modelResourceUris.add(uri);
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public Collection<String> getModelResourceUris() {
+    return modelResourceUris.isEmpty() ? null : new ArrayList<String>(modelResourceUris);
   }
 
   /**
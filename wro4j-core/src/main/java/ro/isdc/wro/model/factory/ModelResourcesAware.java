@@ -0,0 +1,24 @@
+/*
+ * Copyright (C) 2011.
+ * All rights reserved.
+ */
+package ro.isdc.wro.model.factory;
+
+import java.util.Collection;
+
+
+/**
+ * Implemented by the {@link WroModelFactory} knowing the resources the model is read from (ex: the xml file and its
+ * imports). These resources are watched by the {@link ro.isdc.wro.manager.ResourceWatcherRunnable}, which reloads the
+ * model when they change.
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public interface ModelResourcesAware {
+  /**
+   * @return the uri's of the resources read by the created models or null if they are unknown (ex: the model was not
+   *         created yet or it is not read from resources).
+   */
+  Collection<String> getModelResourceUris();
+}
@@ -3,6 +3,8 @@
  */
 package ro.isdc.wro.model.factory;
 
+import java.util.Collection;
+
 import org.apache.commons.lang3.Validate;
 
 import ro.isdc.wro.model.WroModel;
@@ -15,7 +17,7 @@ import ro.isdc.wro.model.WroModel;
  * @created 13 Mar 2011
  */
 public class WroModelFactoryDecorator
-    implements WroModelFactory {
+    implements WroModelFactory, ModelResourcesAware {
   private final WroModelFactory decorated;
 
   public WroModelFactoryDecorator(final WroModelFactory decorated) {
@@ -36,4 +38,11 @@ public class WroModelFactoryDecorator
   public void destroy() {
     decorated.destroy();
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  public Collection<String> getModelResourceUris() {
+    return decorated instanceof ModelResourcesAware ? ((ModelResourcesAware)decorated).getModelResourceUris() : null;
+  }
 }
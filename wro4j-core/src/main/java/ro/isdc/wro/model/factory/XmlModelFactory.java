@@ -144,6 +144,8 @@ public class XmlModelFactory
     } catch (final ParserConfigurationException e) {
       throw new WroRuntimeException("Parsing error", e);
     }
+    // forget the groups of the previously created model, which can be removed since then
+    allGroupElements.clear();
     processGroups(document);
     // TODO cache model based on application Mode (DEPLOYMENT, DEVELOPMENT)
     final WroModel model = createModel();
@@ -209,6 +211,14 @@ public class XmlModelFactory
       processedImports.add(name);
       importedModelFactory.processedImports.addAll(this.processedImports);
       model.merge(importedModelFactory.create());
+      // the imported model files are watched together with this one
+      addModelResourceUri(name);
+      final Collection<String> importedUris = importedModelFactory.getModelResourceUris();
+      if (importedUris != null) {
+        for (final String importedUri : importedUris) {
+          addModelResourceUri(importedUri);
+        }
+      }
     }
   }
 
@@ -6,8 +6,6 @@ package ro.isdc.wro.model.group.processor;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
-import java.io.StringWriter;
-import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -25,6 +23,7 @@ import ro.isdc.wro.model.resource.processor.ProcessorsUtils;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.factory.ProcessorsFactory;
 import ro.isdc.wro.util.StopWatch;
+import ro.isdc.wro.util.io.ReusableCharArrayWriter;
 
 
 /**
@@ -55,7 +54,6 @@ public class GroupsProcessor {
 
     final StopWatch stopWatch = new StopWatch();
     stopWatch.start("filter resources");
-    // TODO find a way to reuse contents from cache
     final List<Resource> filteredResources = getFilteredResources(groups, type);
     try {
       stopWatch.stop();
@@ -102,7 +100,8 @@ public class GroupsProcessor {
 
 
   /**
-   * Apply resourcePostProcessors.
+   * Apply resourcePostProcessors. The processors are chained through two reusable buffers: each processor reads the
+   * output of the previous one directly from its buffer, without creating intermediate strings.
    *
    * @param processors a collection of processors to apply on the content from the supplied writer.
    * @param content to process with all postProcessors.
@@ -113,14 +112,19 @@ public class GroupsProcessor {
     if (processors.isEmpty()) {
       return content;
     }
-    Reader input = new StringReader(content.toString());
-    Writer output = null;
+    final ReusableCharArrayWriter[] buffers = new ReusableCharArrayWriter[] {
+      new ReusableCharArrayWriter(content.length()), new ReusableCharArrayWriter(content.length())
+    };
+    Reader input = new StringReader(content);
+    ReusableCharArrayWriter output = null;
     final StopWatch stopWatch = new StopWatch();
     for (final ResourcePostProcessor processor : processors) {
       stopWatch.start("Using " + processor.getClass().getSimpleName());
-      output = new StringWriter();
+      // the buffer not holding the current input
+      output = buffers[0] == output ? buffers[1] : buffers[0];
+      output.reset();
       processor.process(input, output);
-      input = new StringReader(output.toString());
+      input = output.getReader();
       stopWatch.stop();
     }
     LOG.debug(stopWatch.prettyPrint());
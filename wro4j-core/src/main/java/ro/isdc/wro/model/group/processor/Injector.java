@@ -19,6 +19,7 @@ import ro.isdc.wro.model.resource.locator.factory.InjectorUriLocatorFactoryDecor
 import ro.isdc.wro.model.resource.locator.factory.UriLocatorFactory;
 import ro.isdc.wro.model.resource.processor.factory.ProcessorsFactory;
 import ro.isdc.wro.model.resource.util.NamingStrategy;
+import ro.isdc.wro.util.TaskExecutor;
 
 
 /**
@@ -142,6 +143,10 @@ public final class Injector {
         field.set(object, wroManager.getNamingStrategy());
         return accept = true;
       }
+      if (TaskExecutor.class.isAssignableFrom(field.getType())) {
+        field.set(object, wroManager.getTaskExecutor());
+        return accept = true;
+      }
       if (GroupsProcessor.class.isAssignableFrom(field.getType())) {
         field.set(object, groupsProcessor);
         inject(groupsProcessor);
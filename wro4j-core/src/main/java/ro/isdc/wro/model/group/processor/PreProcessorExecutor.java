@@ -1,17 +1,22 @@
 package ro.isdc.wro.model.group.processor;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
-import java.io.StringWriter;
-import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Future;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.BOMInputStream;
 import org.apache.commons.lang3.StringUtils;
@@ -20,16 +25,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.cache.CacheStrategy;
+import ro.isdc.wro.cache.impl.ConcurrentLruMemoryCacheStrategy;
 import ro.isdc.wro.config.Context;
 import ro.isdc.wro.config.jmx.WroConfiguration;
 import ro.isdc.wro.model.group.Inject;
 import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.locator.factory.UriLocatorFactory;
 import ro.isdc.wro.model.resource.processor.ProcessorsUtils;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
 import ro.isdc.wro.model.resource.processor.factory.ProcessorsFactory;
 import ro.isdc.wro.util.StopWatch;
-import ro.isdc.wro.util.WroUtil;
+import ro.isdc.wro.util.TaskExecutor;
+import ro.isdc.wro.util.io.ReusableCharArrayWriter;
 
 
 /**
@@ -37,15 +46,127 @@ import ro.isdc.wro.util.WroUtil;
  * String.
  * <p>
  * This is useful when you want to preProcess a resource which is not a part of the model (css import use-case).
+ * <p>
+ * The result of preProcessing each resource is cached (unless the cache is disabled), so that a resource shared by
+ * several groups is located and preProcessed only once. The cached contents are discarded by {@link #clearCache()}, when
+ * the cache is reloaded.
  *
  * @author Alex Objelean
  */
 public final class PreProcessorExecutor {
   private static final Logger LOG = LoggerFactory.getLogger(PreProcessorExecutor.class);
+  private static final String SEPARATOR = "\t";
+  private static final String CHARSET = "UTF-8";
+  /**
+   * Initial size of the buffers used to chain the processors when the content size is unknown, they grow as needed.
+   */
+  private static final int INITIAL_BUFFER_SIZE = 4 * 1024;
+  /**
+   * The maximum number of preProcessed resources kept in memory. The least recently used ones are discarded first.
+   */
+  private static final int RESOURCE_CACHE_SIZE = 1024;
   @Inject
   private UriLocatorFactory uriLocatorFactory;
   @Inject
   private ProcessorsFactory processorsFactory;
+  /**
+   * Shared by all groups and by the nested calls (ex: css imports), instead of creating a thread pool for each call.
+   */
+  @Inject
+  private TaskExecutor taskExecutor;
+  /**
+   * PreProcessed content of each resource, see {@link #getCacheKey(Resource, boolean)}.
+   */
+  private final CacheStrategy<String, String> resourceCache = new ConcurrentLruMemoryCacheStrategy<String, String>(
+    RESOURCE_CACHE_SIZE);
+  /**
+   * The uri's of the resources imported by each resource (ex: css <code>@import</code>), by uri of the importing
+   * resource. Recorded by the preProcessors resolving the imports and kept when the cache is cleared, allowing to
+   * detect the changes of the resources which are not declared in the model.
+   */
+  private final ConcurrentMap<String, Collection<String>> importedUris =
+    new ConcurrentHashMap<String, Collection<String>>();
+
+
+  /**
+   * Discards the cached preProcessed contents of all resources.
+   */
+  public void clearCache() {
+    LOG.debug("Clearing preProcessed resources cache");
+    resourceCache.clear();
+  }
+
+
+  /**
+   * Records the resources imported by a resource, replacing the previously recorded ones.
+   *
+   * @param uri the uri of the importing resource.
+   * @param imports the uri's of the imported resources.
+   */
+  public void setImportedUris(final String uri, final Collection<String> imports) {
+    Validate.notNull(uri);
+    Validate.notNull(imports);
+    importedUris.put(uri, Collections.unmodifiableList(new ArrayList<String>(imports)));
+  }
+
+
+  /**
+   * @return the uri's of the resources imported by the resource or an empty collection if no import was recorded.
+   */
+  public Collection<String> getImportedUris(final String uri) {
+    final Collection<String> imports = importedUris.get(uri);
+    return imports != null ? imports : Collections.<String> emptyList();
+  }
+
+
+  /**
+   * Loads the imports persisted by {@link #saveImportedUris(File)}, without replacing the ones already recorded.
+   */
+  @SuppressWarnings("unchecked")
+  public void loadImportedUris(final File file) {
+    Validate.notNull(file);
+    if (!file.isFile()) {
+      LOG.debug("No imported uris found: {}", file);
+      return;
+    }
+    try {
+      for (final String line : (List<String>)FileUtils.readLines(file, CHARSET)) {
+        final String[] uris = line.split(SEPARATOR);
+        if (uris.length > 1) {
+          final List<String> imports = new ArrayList<String>();
+          Collections.addAll(imports, uris);
+          importedUris.putIfAbsent(imports.remove(0), Collections.unmodifiableList(imports));
+        }
+      }
+      LOG.debug("Loaded the imported uris of {} resources from: {}", importedUris.size(), file);
+    } catch (final IOException e) {
+      LOG.warn("Cannot read imported uris: " + file, e);
+    }
+  }
+
+
+  /**
+   * Persists the recorded imports in the provided file, replacing its previous content.
+   */
+  public void saveImportedUris(final File file) {
+    Validate.notNull(file);
+    final List<String> lines = new ArrayList<String>();
+    for (final Map.Entry<String, Collection<String>> entry : importedUris.entrySet()) {
+      if (!entry.getValue().isEmpty()) {
+        lines.add(entry.getKey() + SEPARATOR + StringUtils.join(entry.getValue(), SEPARATOR));
+      }
+    }
+    try {
+      final File tempFile = new File(file.getPath() + ".tmp");
+      FileUtils.writeLines(tempFile, CHARSET, lines);
+      FileUtils.deleteQuietly(file);
+      if (!tempFile.renameTo(file)) {
+        LOG.warn("Cannot save imported uris: {}", file);
+      }
+    } catch (final IOException e) {
+      LOG.warn("Cannot save imported uris: " + file, e);
+    }
+  }
 
 
   /**
@@ -63,11 +184,7 @@ public final class PreProcessorExecutor {
     final StringBuffer result = new StringBuffer();
 
     final boolean isParallel = Context.get().getConfig().isParallelPreprocessing();
-    final int availableProcessors = Runtime.getRuntime().availableProcessors();
-    if (isParallel && resources.size() > 1 && availableProcessors > 1) {
-      //use at most the number of available processors (true parallelism)
-      final int threadPoolSize = availableProcessors;
-
+    if (isParallel && resources.size() > 1) {
       final List<Callable<String>> callables = new ArrayList<Callable<String>>();
       for (final Resource resource : resources) {
         callables.add(new Callable<String>() {
@@ -77,7 +194,7 @@ public final class PreProcessorExecutor {
           }
         });
       }
-      final List<Future<String>> futures = WroUtil.runInParallel(callables, threadPoolSize);
+      final List<Future<String>> futures = taskExecutor.invokeAll(callables);
 
       for (final Future<String> future : futures) {
         try {
@@ -115,21 +232,51 @@ public final class PreProcessorExecutor {
   private String processSingleResource(final Resource resource, final List<Resource> resources, final boolean minimize)
     throws IOException {
     LOG.debug("processingSingleResource: {}", resource);
-    // TODO: hold a list of processed resources in order to avoid duplicates
+    final boolean useCache = !Context.get().getConfig().isDisableCache();
+    final String cacheKey = useCache ? getCacheKey(resource, minimize) : null;
+    if (useCache) {
+      final String cachedContent = resourceCache.get(cacheKey);
+      if (cachedContent != null) {
+        LOG.debug("Reusing preProcessed content of: {}", resource);
+        return cachedContent;
+      }
+    }
     // merge preProcessorsBy type and anyPreProcessors
     Collection<ResourcePreProcessor> processors = ProcessorsUtils.getProcessorsByType(resource.getType(),
       processorsFactory.getPreProcessors());
     if (!minimize) {
       processors = ProcessorsUtils.getMinimizeFreeProcessors(processors);
     }
-    return applyPreProcessors(resource, resources, processors);
+    final String content = applyPreProcessors(resource, resources, processors);
+    if (useCache) {
+      resourceCache.put(cacheKey, content);
+    }
+    return content;
+  }
+
+
+  /**
+   * The processors applied on a resource depend only on its type, its minimize flag and the minimize flag of the
+   * request. The aggregated folder path is also part of the key of css resources, because the css url rewriting depends
+   * on it.
+   *
+   * @return the key used to cache the preProcessed content of the resource.
+   */
+  private String getCacheKey(final Resource resource, final boolean minimize) {
+    final StringBuilder key = new StringBuilder(resource.getUri()).append('|').append(resource.getType()).append(
+      '|').append(minimize).append('|').append(resource.isMinimize());
+    if (ResourceType.CSS == resource.getType()) {
+      key.append('|').append(Context.get().getAggregatedFolderPath());
+    }
+    return key.toString();
   }
 
 
   /**
    * TODO: refactor this method.
    * <p/>
-   * Apply a list of preprocessors on a resource.
+   * Apply a list of preprocessors on a resource. The output of each processor is kept in one of two buffers reused by
+   * the whole chain, from which the next processor reads it without any copy.
    *
    * @param resource the {@link Resource} on which processors will be applied
    * @param resources the list of all resources to be processed in this context.
@@ -139,41 +286,67 @@ public final class PreProcessorExecutor {
     final Collection<ResourcePreProcessor> processors)
     throws IOException {
     LOG.debug("applying preProcessors: {}", processors);
-    String resourceContent = getResourceContent(resource, resources);
     if (processors.isEmpty()) {
-      return resourceContent;
+      return getResourceContent(resource, resources);
     }
-    Writer writer = null;
+    final ResourcePreProcessor firstProcessor = processors.iterator().next();
+    final Reader source;
+    int bufferSize = INITIAL_BUFFER_SIZE;
+    // a streaming processor consumes the located resource directly, the others receive its entire content
+    if (ProcessorsUtils.isStreamingProcessor(firstProcessor) && isApplied(firstProcessor, resource)) {
+      source = getResourceReader(resource);
+    } else {
+      final String content = getResourceContent(resource, resources);
+      bufferSize = content.length();
+      source = new StringReader(content);
+    }
+    final ReusableCharArrayWriter[] buffers = new ReusableCharArrayWriter[] {
+      new ReusableCharArrayWriter(bufferSize), new ReusableCharArrayWriter(bufferSize)
+    };
+    ReusableCharArrayWriter output = null;
+    Reader input = source;
     final StopWatch stopWatch = new StopWatch();
-    for (final ResourcePreProcessor processor : processors) {
-      stopWatch.start("Using " + processor.getClass().getSimpleName());
-      writer = new StringWriter();
-      // skip minimize validation if resource doesn't want to be minimized
-      final boolean applyProcessor = resource.isMinimize() || !processor.getClass().isAnnotationPresent(Minimize.class);
-      if (applyProcessor) {
-        LOG.debug("\tPreProcessing - {}", processor.getClass().getSimpleName());
-        final Reader reader = new StringReader(resourceContent);
-        try {
-          processor.process(resource, reader, writer);
-        } catch (final IOException e) {
-          if (!Context.get().getConfig().isIgnoreMissingResources()) {
-            throw e;
+    try {
+      for (final ResourcePreProcessor processor : processors) {
+        stopWatch.start("Using " + processor.getClass().getSimpleName());
+        // skip minimize validation if resource doesn't want to be minimized
+        if (isApplied(processor, resource)) {
+          LOG.debug("\tPreProcessing - {}", processor.getClass().getSimpleName());
+          // the buffer not holding the current input
+          output = buffers[0] == output ? buffers[1] : buffers[0];
+          output.reset();
+          try {
+            processor.process(resource, input, output);
+          } catch (final IOException e) {
+            if (!Context.get().getConfig().isIgnoreMissingResources()) {
+              throw e;
+            }
           }
+          input = output.getReader();
+        } else {
+          LOG.debug("skipped processing on resource: {}", resource);
         }
-      } else {
-        writer.write(resourceContent);
-        LOG.debug("skipped processing on resource: {}", resource);
+        stopWatch.stop();
       }
-      resourceContent = writer.toString();
-      stopWatch.stop();
+      LOG.debug(stopWatch.prettyPrint());
+      return output == null ? IOUtils.toString(input) : output.toString();
+    } finally {
+      IOUtils.closeQuietly(source);
     }
-    LOG.debug(stopWatch.prettyPrint());
-    return writer.toString();
   }
 
 
   /**
-   * @return a Reader for the provided resource.
+   * @return true if the processor must be applied on the resource. Minimize aware processors are not applied on
+   *         resources which don't want to be minimized.
+   */
+  private boolean isApplied(final ResourcePreProcessor processor, final Resource resource) {
+    return resource.isMinimize() || !processor.getClass().isAnnotationPresent(Minimize.class);
+  }
+
+
+  /**
+   * @return the content of the provided resource.
    * @param resource {@link Resource} which content to return.
    * @param resources the list of all resources processed in this context, used for duplicate resource detection.
    */
@@ -186,13 +359,38 @@ public final class PreProcessorExecutor {
       is.close();
       return result;
     } catch (final IOException e) {
-      LOG.warn("Invalid resource found: " + resource);
-      if (config.isIgnoreMissingResources()) {
-        return StringUtils.EMPTY;
-      } else {
-        LOG.error("Cannot ignore the missing resource:  " + resource);
-        throw e;
-      }
+      return handleMissingResource(resource, e);
+    }
+  }
+
+
+  /**
+   * @return a Reader for the provided resource, which is not read in memory.
+   * @param resource {@link Resource} to read.
+   */
+  private Reader getResourceReader(final Resource resource)
+    throws IOException {
+    try {
+      final InputStream is = new BOMInputStream(uriLocatorFactory.locate(resource.getUri()));
+      return new InputStreamReader(is, Context.get().getConfig().getEncoding());
+    } catch (final IOException e) {
+      return new StringReader(handleMissingResource(resource, e));
+    }
+  }
+
+
+  /**
+   * @return the content to use instead of a missing resource, if the missing resources are ignored.
+   * @throws IOException the original exception if the missing resources are not ignored.
+   */
+  private String handleMissingResource(final Resource resource, final IOException e)
+    throws IOException {
+    LOG.warn("Invalid resource found: " + resource);
+    if (Context.get().getConfig().isIgnoreMissingResources()) {
+      return StringUtils.EMPTY;
+    } else {
+      LOG.error("Cannot ignore the missing resource:  " + resource);
+      throw e;
     }
   }
-}
\ No newline at end of file
+}
\ No newline at end of file
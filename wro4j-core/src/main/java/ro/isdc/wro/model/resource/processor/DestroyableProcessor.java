@@ -0,0 +1,20 @@
+/*
+ * Copyright (C) 2011.
+ * All rights reserved.
+ */
+package ro.isdc.wro.model.resource.processor;
+
+/**
+ * Mark processors holding resources (ex: a pool of engines) which must be released when they are not used anymore. The
+ * processors provided by the {@link ro.isdc.wro.model.resource.processor.factory.ProcessorsFactory} of a
+ * {@link ro.isdc.wro.manager.WroManager} are destroyed when the manager is destroyed.
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public interface DestroyableProcessor {
+  /**
+   * Releases the resources held by the processor.
+   */
+  void destroy();
+}
@@ -6,11 +6,16 @@ package ro.isdc.wro.model.resource.processor;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.Validate;
 
 import ro.isdc.wro.model.group.processor.Minimize;
@@ -63,6 +68,13 @@ public class ProcessorsUtils {
     return processor.getClass().isAnnotationPresent(Minimize.class);
   }
 
+  /**
+   * @return true if the processor can consume its input incrementally (implements {@link StreamingProcessor}).
+   */
+  public static <T> boolean isStreamingProcessor(final T processor) {
+    return processor instanceof StreamingProcessor;
+  }
+
   public static <T> SupportedResourceType getSupportedResourceType(final T processor) {
     SupportedResourceType supportedType = processor.getClass().getAnnotation(SupportedResourceType.class);
     /**
@@ -145,6 +157,63 @@ public class ProcessorsUtils {
     return null;
   }
 
+  /**
+   * Describes the configuration of a processor: its class and the values of its fields holding options (primitives,
+   * strings, enums or arrays of these). The processors referred by the processor (ex: a decorated processor) are
+   * described as well. Two processors having the same description are expected to produce the same output.
+   *
+   * @param processor the processor to describe.
+   * @return the description of the processor configuration.
+   */
+  public static String getConfiguration(final Object processor) {
+    Validate.notNull(processor);
+    final StringBuilder sb = new StringBuilder();
+    appendConfiguration(sb, processor, new IdentityHashMap<Object, Object>());
+    return sb.toString();
+  }
+
+
+  private static void appendConfiguration(final StringBuilder sb, final Object processor,
+    final Map<Object, Object> visited) {
+    sb.append(processor.getClass().getName());
+    if (visited.put(processor, processor) != null) {
+      return;
+    }
+    sb.append('{');
+    for (Class<?> type = processor.getClass(); type != Object.class; type = type.getSuperclass()) {
+      for (final Field field : type.getDeclaredFields()) {
+        if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+          continue;
+        }
+        try {
+          field.setAccessible(true);
+          final Object value = field.get(processor);
+          if (value instanceof ResourcePreProcessor || value instanceof ResourcePostProcessor) {
+            sb.append(field.getName()).append('=');
+            appendConfiguration(sb, value, visited);
+            sb.append(';');
+          } else if (isOption(field.getType())) {
+            sb.append(field.getName()).append('=').append(ArrayUtils.toString(value)).append(';');
+          }
+        } catch (final Exception e) {
+          // the field cannot be read, thus it is not part of the description
+        }
+      }
+    }
+    sb.append('}');
+  }
+
+
+  /**
+   * @return true if the values of this type are options of a processor.
+   */
+  private static boolean isOption(final Class<?> type) {
+    final Class<?> valueType = type.isArray() ? type.getComponentType() : type;
+    return valueType.isPrimitive() || ClassUtils.wrapperToPrimitive(valueType) != null || String.class == valueType
+      || valueType.isEnum();
+  }
+
+
   public static Map<String, ResourcePreProcessor> createPreProcessorsMap() {
     final Map<String, ResourcePreProcessor> map = new HashMap<String, ResourcePreProcessor>();
     populateProcessorsMap(map);
@@ -0,0 +1,16 @@
+/*
+ * Copyright (C) 2011.
+ * All rights reserved.
+ */
+package ro.isdc.wro.model.resource.processor;
+
+/**
+ * Mark processors which consume their input incrementally (ex: character by character), without reading it entirely
+ * in memory. Such a processor receives the stream of the located resource directly when it is the first preProcessor
+ * applied on that resource, instead of a copy of its whole content.
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public interface StreamingProcessor {
+}
@@ -93,6 +93,12 @@ public class CssImportPreProcessor
     processed.add(resource);
     final StringBuffer sb = new StringBuffer();
     final List<Resource> importsCollector = getImportedResources(resource);
+    // allows to detect the changes of the imported resources, which are not part of the model
+    final List<String> importedUris = new ArrayList<String>();
+    for (final Resource importedResource : importsCollector) {
+      importedUris.add(importedResource.getUri());
+    }
+    preProcessorExecutor.setImportedUris(resource.getUri(), importedUris);
     // for now, minimize always
     // TODO: find a way to get minimize property dynamically.
     //groupExtractor.isMinimized(Context.get().getRequest())
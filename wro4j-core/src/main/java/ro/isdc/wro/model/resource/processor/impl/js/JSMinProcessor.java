@@ -23,12 +23,13 @@ import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.processor.StreamingProcessor;
 import ro.isdc.wro.model.resource.processor.support.JSMin;
 
 
 /**
  * Use JSMin utility for js compression. This processor is annotated with {@link Minimize} because it performs
- * minimization.
+ * minimization. It reads the content character by character, so it is also a {@link StreamingProcessor}.
  *
  * @author Alex Objelean
  * @created Created on Nov 28, 2008
@@ -36,7 +37,7 @@ import ro.isdc.wro.model.resource.processor.support.JSMin;
 @Minimize
 @SupportedResourceType(ResourceType.JS)
 public class JSMinProcessor implements ResourcePreProcessor,
-    ResourcePostProcessor {
+    ResourcePostProcessor, StreamingProcessor {
   private static final Logger LOG = LoggerFactory.getLogger(JSMinProcessor.class);
   public static final String ALIAS = "jsMin";
   /**
@@ -161,6 +161,21 @@ public class SchedulerHelper {
     }
   }
 
+  /**
+   * Runs the runnable once, as soon as the scheduler thread is available. The periodic scheduling is not affected.
+   */
+  public SchedulerHelper runOnce() {
+    final Runnable runnable = lazyRunnable.get();
+    Validate.notNull(runnable);
+    if (!poolInitializer.get().isShutdown()) {
+      LOG.debug("[START] Running once {}", name);
+      poolInitializer.get().execute(runnable);
+    } else {
+      LOG.warn("Cannot run because destroy was already called!");
+    }
+    return this;
+  }
+
   /**
    * Schedules with provided period using {@link TimeUnit#SECONDS} as a default time unit.
    *
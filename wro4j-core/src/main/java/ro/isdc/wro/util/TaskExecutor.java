@@ -0,0 +1,154 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.config.Context;
+
+
+/**
+ * Runs tasks in parallel using a pool of daemon threads, created once and shared by all the callers. The size of the
+ * pool is given by {@link ro.isdc.wro.config.jmx.WroConfiguration#getParallelPreprocessingThreads()} when the pool is
+ * created.
+ * <p>
+ * The calling thread takes part in the execution: the submitted tasks not yet picked by a pool thread are run by the
+ * caller itself. This way, a task submitting other tasks (ex: css imports preProcessed from a pool thread) never waits
+ * for tasks queued behind it, and the nested tasks don't require additional threads.
+ * <p>
+ * The {@link Context} of the caller is available to the tasks run by the pool threads.
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public final class TaskExecutor {
+  private static final Logger LOG = LoggerFactory.getLogger(TaskExecutor.class);
+  /**
+   * Created lazily, in order to use the configuration available during the first call.
+   */
+  private volatile ExecutorService executor;
+
+
+  /**
+   * Runs the callables in parallel. When this method returns, each callable is either completed or being run by a pool
+   * thread.
+   *
+   * @param callables a list of {@link Callable} to execute in parallel.
+   * @return a list of futures describing the status of the callables execution, in the same order as the callables.
+   */
+  public <T> List<Future<T>> invokeAll(final List<Callable<T>> callables) {
+    Validate.notNull(callables);
+    final Context context = Context.isContextSet() ? Context.get() : null;
+    final List<FutureTask<T>> tasks = new ArrayList<FutureTask<T>>(callables.size());
+    for (final Callable<T> callable : callables) {
+      final FutureTask<T> task = new FutureTask<T>(new ContextAwareCallable<T>(callable, context));
+      tasks.add(task);
+      try {
+        getExecutor().execute(task);
+      } catch (final RejectedExecutionException e) {
+        LOG.debug("Task rejected, it will be run by the calling thread");
+      }
+    }
+    for (final FutureTask<T> task : tasks) {
+      // does nothing if the task was already started by a pool thread
+      task.run();
+    }
+    return new ArrayList<Future<T>>(tasks);
+  }
+
+
+  /**
+   * Runs the task on a pool thread, without waiting for its completion. Unlike {@link #invokeAll(List)}, the
+   * {@link Context} of the caller is not propagated: the task must not depend on the current request, which could be
+   * completed before the task is run. When the pool is destroyed, the task is run by the calling thread.
+   */
+  public void execute(final Runnable task) {
+    Validate.notNull(task);
+    try {
+      getExecutor().execute(task);
+    } catch (final RejectedExecutionException e) {
+      LOG.debug("Task rejected, it will be run by the calling thread");
+      task.run();
+    }
+  }
+
+
+  private ExecutorService getExecutor() {
+    if (executor == null) {
+      synchronized (this) {
+        if (executor == null) {
+          final int poolSize = getPoolSize();
+          LOG.debug("Creating a pool of {} threads", poolSize);
+          executor = Executors.newFixedThreadPool(poolSize, WroUtil.createDaemonThreadFactory());
+        }
+      }
+    }
+    return executor;
+  }
+
+
+  /**
+   * @return the configured number of threads or the number of available processors, if not configured.
+   */
+  private int getPoolSize() {
+    final int configured = Context.isContextSet() ? Context.get().getConfig().getParallelPreprocessingThreads() : 0;
+    return configured > 0 ? configured : Runtime.getRuntime().availableProcessors();
+  }
+
+
+  /**
+   * Stops the pool threads. The tasks submitted afterwards are run by the calling thread.
+   */
+  public void destroy() {
+    synchronized (this) {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
+  }
+
+
+  /**
+   * Runs the decorated callable with the {@link Context} of the thread which submitted it.
+   */
+  private static class ContextAwareCallable<T>
+      implements Callable<T> {
+    private final Callable<T> callable;
+    private final Context context;
+
+    public ContextAwareCallable(final Callable<T> callable, final Context context) {
+      this.callable = callable;
+      this.context = context;
+    }
+
+    public T call()
+      throws Exception {
+      if (Context.isContextSet() && Context.get() == context) {
+        return callable.call();
+      }
+      if (context != null) {
+        Context.set(context, context.getConfig());
+      } else {
+        Context.unset();
+      }
+      try {
+        return callable.call();
+      } finally {
+        // pool threads must not keep a reference to the context of a finished request
+        Context.unset();
+      }
+    }
+  }
+}
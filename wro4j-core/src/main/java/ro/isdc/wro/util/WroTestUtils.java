@@ -12,6 +12,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PrintWriter;
 import java.io.Reader;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
@@ -446,4 +447,45 @@ public class WroTestUtils {
       future.get();
     }
   }
+
+
+  /**
+   * Processes the inputs concurrently, many times each, and checks that each result is the same as the result of a
+   * sequential processing. Allows to detect the state shared by the concurrent processings, which doesn't always cause
+   * an exception.
+   *
+   * @param processor the processor to test.
+   * @param inputs the contents to process, preferably different from each other.
+   * @throws Exception if any of the processings fails.
+   */
+  public static void compareProcessedConcurrently(final ResourcePostProcessor processor, final String... inputs)
+    throws Exception {
+    final List<String> expected = new ArrayList<String>();
+    for (final String input : inputs) {
+      final StringWriter writer = new StringWriter();
+      processor.process(new StringReader(input), writer);
+      expected.add(writer.toString());
+    }
+    final ExecutorService service = Executors.newFixedThreadPool(5);
+    try {
+      final List<Future<?>> futures = new ArrayList<Future<?>>();
+      for (int i = 0; i < 50; i++) {
+        final int index = i % inputs.length;
+        futures.add(service.submit(new Callable<Void>() {
+          public Void call()
+            throws Exception {
+            final StringWriter writer = new StringWriter();
+            processor.process(new StringReader(inputs[index]), writer);
+            Assert.assertEquals(expected.get(index), writer.toString());
+            return null;
+          }
+        }));
+      }
+      for (final Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      service.shutdown();
+    }
+  }
 }
@@ -194,21 +194,39 @@ public final class WroUtil {
    * variations and gzip header value and its mangled variations.
    *
    * @return true if this request support gzip encoding.
+   * @deprecated use {@link ro.isdc.wro.http.encoding.AcceptEncoding}, which handles the quality values.
    */
+  @Deprecated
   public static boolean isGzipSupported(final HttpServletRequest request) {
+    final String headerValue = getAcceptEncodingValue(request);
+    if (headerValue != null) {
+      final Matcher mValue = PATTERN_GZIP.matcher(headerValue);
+      return mValue.find();
+    }
+    return false;
+  }
+
+  /**
+   * @return the value of the "Accept-Encoding" header (or one of its mangled variations) or null if there is no such
+   *         header.
+   */
+  public static String getAcceptEncodingValue(final HttpServletRequest request) {
+    // header names are case insensitive, the lookup is enough unless the name was mangled by a proxy
+    final String value = request.getHeader(HttpHeader.ACCEPT_ENCODING.toString());
+    if (value != null) {
+      return value;
+    }
     final Enumeration<String> headerNames = request.getHeaderNames();
     if (headerNames != null) {
       while (headerNames.hasMoreElements()) {
         final String headerName = headerNames.nextElement();
         final Matcher m = PATTERN_ACCEPT_ENCODING.matcher(headerName);
         if (m.find()) {
-          final String headerValue = request.getHeader(headerName);
-          final Matcher mValue = PATTERN_GZIP.matcher(headerValue);
-          return mValue.find();
+          return request.getHeader(headerName);
         }
       }
     }
-    return false;
+    return null;
   }
 
   /**
@@ -0,0 +1,34 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.util.io;
+
+import java.io.CharArrayReader;
+import java.io.CharArrayWriter;
+import java.io.Reader;
+
+
+/**
+ * A {@link CharArrayWriter} which can be read without copying its content. Used to chain processors: the output of a
+ * processor is read by the next one, and the buffer is {@link #reset()} and reused later, instead of creating new
+ * strings for each processor.
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public class ReusableCharArrayWriter
+    extends CharArrayWriter {
+  public ReusableCharArrayWriter(final int initialSize) {
+    super(initialSize);
+  }
+
+  /**
+   * @return a {@link Reader} over the characters written so far. The reader shares the buffer of this writer, so it
+   *         must not be used after this writer is reset.
+   */
+  public Reader getReader() {
+    synchronized (lock) {
+      return new CharArrayReader(buf, 0, count);
+    }
+  }
+}
@@ -3,14 +3,21 @@
  */
 package ro.isdc.wro.cache;
 
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
 import junit.framework.Assert;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import ro.isdc.wro.config.Context;
 import ro.isdc.wro.config.jmx.WroConfiguration;
+import ro.isdc.wro.http.encoding.ContentCoding;
 
 /**
  * @author Alex Objelean
@@ -24,24 +31,28 @@ public class TestContentHashEntry {
   }
 
   @Test
-  public void byDefaultCacheGzippedContentShouldBeDisabled() {
-    Assert.assertFalse(Context.get().getConfig().isCacheGzippedContent());
+  public void byDefaultCacheGzippedContentShouldBeEnabled() {
+    Assert.assertTrue(Context.get().getConfig().isCacheGzippedContent());
   }
 
   @Test
-  public void shouldNotCacheGzippedContentByDefault() {
+  public void shouldNotCacheGzippedContentWhenDisabled() {
+    Context.get().getConfig().setCacheGzippedContent(false);
     final ContentHashEntry entry = ContentHashEntry.valueOf(RAW_CONTENT, "hash");
     Assert.assertEquals(RAW_CONTENT, entry.getRawContent());
-    Assert.assertNull(entry.getGzippedContentInternal());
+    Assert.assertNull(entry.getCachedGzippedContent());
+    Assert.assertNull(entry.getCachedDeflatedContent());
     Assert.assertNotNull(entry.getGzippedContent());
+    Assert.assertNotNull(entry.getDeflatedContent());
   }
 
   @Test
   public void shouldCacheGzippedContentByDefault() {
-    Context.get().getConfig().setCacheGzippedContent(true);
     final ContentHashEntry entry = ContentHashEntry.valueOf(RAW_CONTENT, "hash");
-    Assert.assertNotNull(null, entry.getGzippedContentInternal());
-    Assert.assertNotNull(entry.getGzippedContent());
+    Assert.assertNotNull(entry.getCachedGzippedContent());
+    Assert.assertNotNull(entry.getCachedDeflatedContent());
+    Assert.assertSame(entry.getCachedGzippedContent(), entry.getGzippedContent());
+    Assert.assertSame(entry.getCachedDeflatedContent(), entry.getDeflatedContent());
   }
 
   @Test
@@ -49,14 +60,70 @@ public class TestContentHashEntry {
     final WroConfiguration config = Context.get().getConfig();
     config.setCacheGzippedContent(false);
     final ContentHashEntry entry = ContentHashEntry.valueOf(RAW_CONTENT, "hash");
-    Assert.assertNull(null, entry.getGzippedContentInternal());
+    Assert.assertNull(null, entry.getCachedGzippedContent());
 
     config.setCacheGzippedContent(true);
-    Assert.assertNull(null, entry.getGzippedContentInternal());
+    Assert.assertNull(null, entry.getCachedGzippedContent());
 
     Assert.assertNotNull(entry.getGzippedContent());
   }
 
+  @Test
+  public void shouldEncodeRawContentUsingConfiguredEncoding()
+    throws Exception {
+    final String content = "\u00e9t\u00e9";
+    Context.get().getConfig().setEncoding("ISO-8859-1");
+    final ContentHashEntry entry = ContentHashEntry.valueOf(content, "hash");
+    Assert.assertEquals(3, entry.getRawBytes().length);
+    Assert.assertEquals(content, entry.getRawContent());
+  }
+
+  @Test
+  public void compressedContentShouldInflateToRawBytes()
+    throws Exception {
+    final ContentHashEntry entry = ContentHashEntry.valueOf(RAW_CONTENT, "hash");
+    Assert.assertEquals(RAW_CONTENT,
+      IOUtils.toString(new GZIPInputStream(new ByteArrayInputStream(entry.getGzippedContent()))));
+    Assert.assertEquals(RAW_CONTENT,
+      IOUtils.toString(new InflaterInputStream(new ByteArrayInputStream(entry.getDeflatedContent()))));
+  }
+
+  @Test
+  public void shouldCacheAdditionalEncodedContent()
+    throws Exception {
+    final ContentCoding reverse = new ReverseContentCoding();
+    final ContentHashEntry entry = ContentHashEntry.valueOf(RAW_CONTENT, "hash");
+    Assert.assertNotSame(entry.getEncodedContent(reverse), entry.getEncodedContent(reverse));
+    entry.cacheEncodedContent(reverse);
+    Assert.assertSame(entry.getEncodedContent(reverse), entry.getEncodedContent(reverse));
+    Assert.assertEquals("]TNETNOC_WAR[", new String(entry.getEncodedContent(reverse)));
+  }
+
+  @Test
+  public void shouldCacheOnlyProvidedCodings()
+    throws Exception {
+    final ContentCoding reverse = new ReverseContentCoding();
+    final ContentHashEntry entry = ContentHashEntry.valueOf(RAW_CONTENT.getBytes(), "hash",
+      Collections.singletonList(reverse));
+    Assert.assertEquals(Collections.singleton("reverse"), entry.getCachedEncodedContents().keySet());
+    Assert.assertNull(entry.getCachedGzippedContent());
+    Assert.assertSame(entry.getEncodedContent(reverse), entry.getEncodedContent(reverse));
+  }
+
+  /**
+   * A {@link ContentCoding} reversing the content.
+   */
+  private static class ReverseContentCoding
+    implements ContentCoding {
+    public String getName() {
+      return "reverse";
+    }
+
+    public byte[] encode(final byte[] content, final boolean cached) {
+      return new StringBuilder(new String(content)).reverse().toString().getBytes();
+    }
+  }
+
   @After
   public void tearDown() {
     Context.unset();
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2011.
+ * All rights reserved.
+ */
+package ro.isdc.wro.cache.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ro.isdc.wro.cache.CacheEntry;
+import ro.isdc.wro.cache.ContentHashEntry;
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.model.resource.ResourceType;
+import ro.isdc.wro.util.WroUtil;
+
+
+/**
+ * Tests the {@link ConcurrentLruMemoryCacheStrategy} class.
+ *
+ * @author Alex Objelean
+ */
+public class TestConcurrentLruMemoryCacheStrategy {
+  private ConcurrentLruMemoryCacheStrategy<CacheEntry, ContentHashEntry> cache;
+
+  @Before
+  public void setUp() {
+    Context.set(Context.standaloneContext());
+    cache = new ConcurrentLruMemoryCacheStrategy<CacheEntry, ContentHashEntry>(3);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void cannotCreateCacheWithInvalidSize() {
+    new ConcurrentLruMemoryCacheStrategy<CacheEntry, ContentHashEntry>(0);
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedEntry()
+    throws Exception {
+    final CacheEntry key1 = new CacheEntry("testGroup01", ResourceType.JS, false);
+    final CacheEntry key2 = new CacheEntry("testGroup02", ResourceType.CSS, false);
+    final CacheEntry key3 = new CacheEntry("testGroup03", ResourceType.JS, false);
+    final CacheEntry key4 = new CacheEntry("testGroup04", ResourceType.CSS, false);
+
+    final ContentHashEntry value = ContentHashEntry.valueOf("var foo = 'Hello World';", "hash");
+    cache.put(key1, value);
+    Thread.sleep(1);
+    cache.put(key2, value);
+    Thread.sleep(1);
+    cache.put(key3, value);
+    Thread.sleep(1);
+    Assert.assertNotNull(cache.get(key1));
+    // Removes the 2nd entry because the 1st one was used in the assertion above.
+    cache.put(key4, value);
+    Assert.assertNull(cache.get(key2));
+    Assert.assertNotNull(cache.get(key1));
+    Assert.assertNotNull(cache.get(key3));
+    Assert.assertNotNull(cache.get(key4));
+
+    cache.clear();
+    Assert.assertNull(cache.get(key1));
+  }
+
+  @Test
+  public void shouldNotExceedCapacityWhenAccessedConcurrently()
+    throws Exception {
+    final ContentHashEntry value = ContentHashEntry.valueOf("content", "hash");
+    final List<Callable<Void>> callables = new ArrayList<Callable<Void>>();
+    for (int i = 0; i < 20; i++) {
+      final int index = i;
+      callables.add(new Callable<Void>() {
+        public Void call()
+          throws Exception {
+          for (int j = 0; j < 100; j++) {
+            final CacheEntry key = new CacheEntry("group" + (index * j % 7), ResourceType.JS, j % 2 == 0);
+            cache.put(key, value);
+            cache.get(key);
+          }
+          return null;
+        }
+      });
+    }
+    for (final Future<Void> future : WroUtil.runInParallel(callables, 10)) {
+      future.get();
+    }
+    Assert.assertTrue(countEntries() <= 3);
+  }
+
+  private int countEntries() {
+    int count = 0;
+    for (int i = 0; i < 7; i++) {
+      if (cache.get(new CacheEntry("group" + i, ResourceType.JS, true)) != null) {
+        count++;
+      }
+      if (cache.get(new CacheEntry("group" + i, ResourceType.JS, false)) != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @After
+  public void tearDown() {
+    Context.unset();
+  }
+}
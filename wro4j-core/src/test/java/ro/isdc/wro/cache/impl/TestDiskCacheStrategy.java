@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2011.
+ * All rights reserved.
+ */
+package ro.isdc.wro.cache.impl;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ro.isdc.wro.cache.CacheEntry;
+import ro.isdc.wro.cache.CacheStrategy;
+import ro.isdc.wro.cache.ContentHashEntry;
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.http.encoding.ContentCoding;
+import ro.isdc.wro.model.resource.ResourceType;
+
+
+/**
+ * Tests the {@link DiskCacheStrategy} class.
+ *
+ * @author Alex Objelean
+ */
+public class TestDiskCacheStrategy {
+  private static final CacheEntry KEY = new CacheEntry("group/one", ResourceType.JS, true);
+  private File directory;
+
+  @Before
+  public void setUp()
+    throws Exception {
+    Context.set(Context.standaloneContext());
+    directory = File.createTempFile("wro4j", "diskCache");
+    directory.delete();
+  }
+
+  private DiskCacheStrategy newDiskCache() {
+    return new DiskCacheStrategy(new ConcurrentLruMemoryCacheStrategy<CacheEntry, ContentHashEntry>(), directory);
+  }
+
+  @Test
+  public void shouldNotPersistBeforeValidation() {
+    final DiskCacheStrategy cache = newDiskCache();
+    Assert.assertFalse(cache.isValidated());
+    cache.put(KEY, ContentHashEntry.valueOf("content", "hash"));
+    Assert.assertNotNull(cache.get(KEY));
+    Assert.assertEquals(0, directory.listFiles().length);
+  }
+
+  @Test
+  public void shouldRestorePersistedEntryWhenFingerprintIsUnchanged() {
+    final DiskCacheStrategy cache = newDiskCache();
+    cache.validate("fingerprint");
+    final ContentHashEntry entry = ContentHashEntry.valueOf("var a = 1;", "hash");
+    cache.put(KEY, entry);
+    cache.destroy();
+
+    final DiskCacheStrategy restarted = newDiskCache();
+    Assert.assertNull(restarted.get(KEY));
+    restarted.validate("fingerprint");
+    final ContentHashEntry restored = restarted.get(KEY);
+    Assert.assertNotNull(restored);
+    Assert.assertEquals("hash", restored.getHash());
+    Assert.assertEquals("var a = 1;", restored.getRawContent());
+    Assert.assertEquals(entry.getEncoding(), restored.getEncoding());
+    Assert.assertTrue(Arrays.equals(entry.getGzippedContent(), restored.getCachedGzippedContent()));
+  }
+
+  @Test
+  public void shouldRestoreLargePersistedEntry() {
+    final StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 20000; i++) {
+      content.append("var a").append(i).append(" = ").append(i).append(";\n");
+    }
+    final DiskCacheStrategy cache = newDiskCache();
+    cache.validate("fingerprint");
+    final ContentHashEntry entry = ContentHashEntry.valueOf(content.toString(), "hash");
+    cache.put(KEY, entry);
+    cache.destroy();
+
+    final DiskCacheStrategy restarted = newDiskCache();
+    restarted.validate("fingerprint");
+    final ContentHashEntry restored = restarted.get(KEY);
+    Assert.assertEquals(content.toString(), restored.getRawContent());
+    Assert.assertTrue(Arrays.equals(entry.getDeflatedContent(), restored.getCachedDeflatedContent()));
+  }
+
+  /**
+   * The variants of all the cached codings are persisted, not only the gzip and deflate ones.
+   */
+  @Test
+  public void shouldRestoreVariantsOfCustomCodings() {
+    final ContentCoding reverse = new ContentCoding() {
+      public String getName() {
+        return "reverse";
+      }
+
+      public byte[] encode(final byte[] content, final boolean cached) {
+        return new StringBuilder(new String(content)).reverse().toString().getBytes();
+      }
+    };
+    final DiskCacheStrategy cache = newDiskCache();
+    cache.validate("fingerprint");
+    cache.put(KEY, ContentHashEntry.valueOf("content".getBytes(), "hash", Collections.singletonList(reverse)));
+    cache.destroy();
+
+    final DiskCacheStrategy restarted = newDiskCache();
+    restarted.validate("fingerprint");
+    final ContentHashEntry restored = restarted.get(KEY);
+    Assert.assertEquals(Collections.singleton("reverse"), restored.getCachedEncodedContents().keySet());
+    Assert.assertEquals("tnetnoc", new String(restored.getCachedEncodedContents().get("reverse")));
+  }
+
+  /**
+   * A persisted entry which was read can be replaced while the application is running.
+   */
+  @Test
+  public void shouldRewriteReadEntry() {
+    final String content = StringUtils.repeat("var a = 1;\n", 10000);
+    final DiskCacheStrategy cache = newDiskCache();
+    cache.validate("fingerprint");
+    cache.put(KEY, ContentHashEntry.valueOf(content, "hash"));
+
+    final DiskCacheStrategy restarted = newDiskCache();
+    restarted.validate("fingerprint");
+    Assert.assertEquals(content, restarted.get(KEY).getRawContent());
+    final String changedContent = StringUtils.repeat("var b = 2;\n", 10000);
+    restarted.put(KEY, ContentHashEntry.valueOf(changedContent, "changedHash"));
+
+    final DiskCacheStrategy restartedAgain = newDiskCache();
+    restartedAgain.validate("fingerprint");
+    final ContentHashEntry restored = restartedAgain.get(KEY);
+    Assert.assertEquals("changedHash", restored.getHash());
+    Assert.assertEquals(changedContent, restored.getRawContent());
+  }
+
+  @Test
+  public void shouldDiscardPersistedEntriesWhenFingerprintChanges() {
+    final DiskCacheStrategy cache = newDiskCache();
+    cache.validate("fingerprint");
+    cache.put(KEY, ContentHashEntry.valueOf("content", "hash"));
+
+    final DiskCacheStrategy restarted = newDiskCache();
+    restarted.validate("changed");
+    Assert.assertNull(restarted.get(KEY));
+  }
+
+  @Test
+  public void shouldTreatCorruptedEntryAsMissing()
+    throws Exception {
+    final DiskCacheStrategy cache = newDiskCache();
+    cache.validate("fingerprint");
+    cache.put(KEY, ContentHashEntry.valueOf("content", "hash"));
+    for (final File file : directory.listFiles()) {
+      if (!file.getName().equals(DiskCacheStrategy.FINGERPRINT_FILE)) {
+        FileUtils.writeStringToFile(file, "corrupted");
+      }
+    }
+    final DiskCacheStrategy restarted = newDiskCache();
+    restarted.validate("fingerprint");
+    Assert.assertNull(restarted.get(KEY));
+  }
+
+  @Test
+  public void clearShouldDeletePersistedEntries() {
+    final DiskCacheStrategy cache = newDiskCache();
+    cache.validate("fingerprint");
+    cache.put(KEY, ContentHashEntry.valueOf("content", "hash"));
+    cache.clear();
+    Assert.assertNull(cache.get(KEY));
+
+    final DiskCacheStrategy restarted = newDiskCache();
+    restarted.validate("fingerprint");
+    Assert.assertNull(restarted.get(KEY));
+  }
+
+  @Test
+  public void shouldDelegateToMemoryCache() {
+    final CacheStrategy<CacheEntry, ContentHashEntry> memoryCache = new ConcurrentLruMemoryCacheStrategy<CacheEntry, ContentHashEntry>();
+    final ContentHashEntry entry = ContentHashEntry.valueOf("content", "hash");
+    memoryCache.put(KEY, entry);
+    Assert.assertSame(entry, new DiskCacheStrategy(memoryCache, directory).get(KEY));
+  }
+
+  @After
+  public void tearDown() {
+    FileUtils.deleteQuietly(directory);
+    Context.unset();
+  }
+}
@@ -45,19 +45,20 @@ public class TestPropertyWroConfigurationFactory {
     Assert.assertEquals(true, config.isGzipEnabled());
     Assert.assertEquals(true, config.isIgnoreMissingResources());
     Assert.assertEquals(true, config.isJmxEnabled());
-    Assert.assertEquals(false, config.isCacheGzippedContent());
+    Assert.assertEquals(true, config.isCacheGzippedContent());
     Assert.assertEquals(false, config.isParallelPreprocessing());
+    Assert.assertEquals(false, config.isStaleWhileRevalidate());
   }
 
   @Test
-  public void invalidBooleanFallbacksToFalse() {
+  public void invalidBooleanFallbacksToDefault() {
     final Properties props = new Properties();
     props.setProperty(ConfigConstants.cacheGzippedContent.name(), "INVALID_BOOLEAN");
     
     factory.setProperties(props);
     final WroConfiguration config = factory.create();
     
-    Assert.assertEquals(false, config.isCacheGzippedContent());
+    Assert.assertEquals(true, config.isCacheGzippedContent());
   }
 
   @Test
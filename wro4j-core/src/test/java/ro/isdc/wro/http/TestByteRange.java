@@ -0,0 +1,58 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.http;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+
+/**
+ * Tests the {@link ByteRange} class.
+ *
+ * @author Alex Objelean
+ */
+public class TestByteRange {
+  @Test
+  public void shouldIgnoreInvalidOrMultipleRanges() {
+    Assert.assertNull(ByteRange.valueOf(null));
+    Assert.assertNull(ByteRange.valueOf(""));
+    Assert.assertNull(ByteRange.valueOf("bytes=-"));
+    Assert.assertNull(ByteRange.valueOf("bytes=5-2"));
+    Assert.assertNull(ByteRange.valueOf("items=0-10"));
+    Assert.assertNull(ByteRange.valueOf("bytes=0-1,5-6"));
+    Assert.assertNull(ByteRange.valueOf("bytes=99999999999999999999-"));
+  }
+
+  @Test
+  public void shouldResolveClosedRange() {
+    final ByteRange range = ByteRange.valueOf("bytes=2-5");
+    Assert.assertTrue(range.isSatisfiable(10));
+    Assert.assertEquals(2, range.getStart(10));
+    Assert.assertEquals(5, range.getEnd(10));
+    Assert.assertEquals("bytes 2-5/10", range.toContentRange(10));
+    // the last position is limited by the content length
+    Assert.assertEquals(3, range.getEnd(4));
+    Assert.assertFalse(range.isSatisfiable(2));
+  }
+
+  @Test
+  public void shouldResolveOpenEndedRange() {
+    final ByteRange range = ByteRange.valueOf("Bytes = 7-");
+    Assert.assertEquals(7, range.getStart(10));
+    Assert.assertEquals(9, range.getEnd(10));
+    Assert.assertFalse(range.isSatisfiable(7));
+  }
+
+  @Test
+  public void shouldResolveSuffixRange() {
+    final ByteRange range = ByteRange.valueOf("bytes=-4");
+    Assert.assertTrue(range.isSatisfiable(10));
+    Assert.assertEquals(6, range.getStart(10));
+    Assert.assertEquals(9, range.getEnd(10));
+    // the whole content is served when the suffix is longer
+    Assert.assertEquals(0, range.getStart(3));
+    Assert.assertFalse(ByteRange.valueOf("bytes=-0").isSatisfiable(10));
+  }
+}
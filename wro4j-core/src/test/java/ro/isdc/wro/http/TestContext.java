@@ -9,6 +9,8 @@ import javax.servlet.FilterConfig;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import junit.framework.Assert;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -61,6 +63,33 @@ public class TestContext {
   }
 
 
+  /**
+   * The request fields are available to the threads inheriting the context, even after the request fields are
+   * nullified by the container.
+   */
+  @Test
+  public void shouldSaveRequestFieldsWhenContextIsInherited()
+    throws Exception {
+    final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+    Mockito.when(request.getRequestURI()).thenReturn("/app/g1.css");
+    Context.set(Context.webContext(request, Mockito.mock(HttpServletResponse.class),
+      Mockito.mock(FilterConfig.class)));
+    final String[] requestURI = new String[1];
+    final Thread thread = new Thread() {
+      @Override
+      public void run() {
+        requestURI[0] = Context.get().getRequest().getRequestURI();
+      }
+    };
+    // the request is recycled by the container after the thread is created
+    Mockito.when(request.getRequestURI()).thenReturn(null);
+    thread.start();
+    thread.join();
+    Assert.assertEquals("/app/g1.css", requestURI[0]);
+    Assert.assertEquals("/app/g1.css", Context.get().getRequest().getRequestURI());
+  }
+
+
   @After
   public void tearDown() {
     Context.unset();
@@ -230,6 +230,19 @@ public class TestWroFilter {
   }
 
 
+  @Test
+  public void shouldSetConfiguredHeadersOnResponse()
+    throws Exception {
+    Mockito.when(config.getInitParameter(ConfigConstants.header.name())).thenReturn(
+      "ETag: 998989 | Expires: Thu, 15 Apr 2010 20:00:00 GMT");
+    filter.init(config);
+    final HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+    filter.setResponseHeaders(response);
+    Mockito.verify(response).setHeader("etag", "998989");
+    Mockito.verify(response).setHeader("expires", "Thu, 15 Apr 2010 20:00:00 GMT");
+  }
+
+
   @Test(expected = WroRuntimeException.class)
   public void testInvalidHeaderParamIsSet()
     throws Exception {
@@ -0,0 +1,188 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.http;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.mockito.Mockito;
+
+import ro.isdc.wro.manager.WroManagerFactory;
+import ro.isdc.wro.manager.factory.BaseWroManagerFactory;
+import ro.isdc.wro.model.WroModel;
+import ro.isdc.wro.model.factory.WroModelFactory;
+import ro.isdc.wro.model.group.Group;
+import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
+
+
+/**
+ * Measures the time and the memory allocated by
+ * {@link WroFilter#doFilter(ServletRequest, ServletResponse, FilterChain)} when the requested group is already cached,
+ * which is the path of almost all the requests. Usage:
+ *
+ * <pre>
+ * java ro.isdc.wro.http.WroFilterBenchmark
+ * </pre>
+ *
+ * The requests and responses are minimal proxies, so that their own cost is small compared to the one of the filter.
+ * The allocated memory is reported only when the jvm can measure it for the current thread.
+ *
+ * @author Alex Objelean
+ */
+public class WroFilterBenchmark {
+  private static final int WARM_UP_ITERATIONS = 200000;
+  private static final int ITERATIONS = 1000000;
+  private static final String CONTEXT_PATH = "/app";
+  private static final String REQUEST_URI = CONTEXT_PATH + "/wro/g1.css";
+  private static final String ACCEPT_ENCODING = "Accept-Encoding";
+
+
+  public static void main(final String[] args)
+    throws Exception {
+    // the debug logging configured for the tests would be measured instead of the filter
+    Logger.getLogger("ro.isdc").setLevel(Level.WARN);
+    final WroFilter filter = new WroFilter() {
+      @Override
+      protected WroManagerFactory getWroManagerFactory() {
+        return new BaseWroManagerFactory().setModelFactory(new WroModelFactory() {
+          public WroModel create() {
+            final WroModel model = new WroModel();
+            model.addGroup(new Group("g1").addResource(Resource.create("classpath:ro/isdc/wro/http/1.css",
+              ResourceType.CSS)));
+            return model;
+          }
+
+          public void destroy() {
+          }
+        });
+      }
+    };
+    final FilterConfig config = Mockito.mock(FilterConfig.class);
+    Mockito.when(config.getServletContext()).thenReturn(Mockito.mock(ServletContext.class));
+    filter.init(config);
+    final FilterChain chain = Mockito.mock(FilterChain.class);
+    final HttpServletRequest request = newRequest();
+    final HttpServletResponse response = newResponse();
+    try {
+      // the first request processes the group, the following ones are cache hits
+      filter.doFilter(request, response, chain);
+      for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+        filter.doFilter(request, response, chain);
+      }
+      final long allocatedBefore = getAllocatedBytes();
+      final long start = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++) {
+        filter.doFilter(request, response, chain);
+      }
+      final long duration = System.nanoTime() - start;
+      final long allocatedAfter = getAllocatedBytes();
+      System.out.println(String.format("cache hit: %d ns/request", duration / ITERATIONS));
+      if (allocatedBefore >= 0 && allocatedAfter >= 0) {
+        System.out.println(String.format("cache hit: %d bytes/request", (allocatedAfter - allocatedBefore)
+          / ITERATIONS));
+      }
+    } finally {
+      filter.destroy();
+    }
+  }
+
+
+  /**
+   * @return the bytes allocated by the current thread or -1 if the jvm cannot measure them.
+   */
+  private static long getAllocatedBytes() {
+    final Object threadBean = ManagementFactory.getThreadMXBean();
+    if (threadBean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean)threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return -1;
+  }
+
+
+  /**
+   * @return a request for a group accepting compressed content, having no conditional header.
+   */
+  private static HttpServletRequest newRequest() {
+    return (HttpServletRequest)Proxy.newProxyInstance(WroFilterBenchmark.class.getClassLoader(),
+      new Class<?>[] { HttpServletRequest.class }, new InvocationHandler() {
+        public Object invoke(final Object proxy, final Method method, final Object[] args) {
+          final String name = method.getName();
+          if ("getRequestURI".equals(name)) {
+            return REQUEST_URI;
+          } else if ("getContextPath".equals(name)) {
+            return CONTEXT_PATH;
+          } else if ("getServletPath".equals(name)) {
+            return "/wro/g1.css";
+          } else if ("getRequestURL".equals(name)) {
+            return new StringBuffer("http://localhost").append(REQUEST_URI);
+          } else if ("getMethod".equals(name)) {
+            return "GET";
+          } else if ("getHeader".equals(name)) {
+            return ACCEPT_ENCODING.equalsIgnoreCase((String)args[0]) ? "gzip, deflate" : null;
+          } else if ("getHeaderNames".equals(name)) {
+            return Collections.enumeration(Arrays.asList(ACCEPT_ENCODING));
+          } else if ("getHeaders".equals(name)) {
+            return Collections.enumeration(Collections.emptyList());
+          }
+          return getDefaultValue(method);
+        }
+      });
+  }
+
+
+  /**
+   * @return a response discarding its content.
+   */
+  private static HttpServletResponse newResponse() {
+    final ServletOutputStream outputStream = new ServletOutputStream() {
+      @Override
+      public void write(final int b) {
+      }
+
+      @Override
+      public void write(final byte[] b, final int off, final int len) {
+      }
+    };
+    return (HttpServletResponse)Proxy.newProxyInstance(WroFilterBenchmark.class.getClassLoader(),
+      new Class<?>[] { HttpServletResponse.class }, new InvocationHandler() {
+        public Object invoke(final Object proxy, final Method method, final Object[] args)
+          throws IOException {
+          if ("getOutputStream".equals(method.getName())) {
+            return outputStream;
+          }
+          return getDefaultValue(method);
+        }
+      });
+  }
+
+
+  private static Object getDefaultValue(final Method method) {
+    final Class<?> type = method.getReturnType();
+    if (type == Boolean.TYPE) {
+      return Boolean.FALSE;
+    } else if (type == Integer.TYPE) {
+      return -1;
+    } else if (type == Long.TYPE) {
+      return -1L;
+    }
+    return null;
+  }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.http.encoding;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+
+/**
+ * Tests the {@link AcceptEncoding} class.
+ *
+ * @author Alex Objelean
+ */
+public class TestAcceptEncoding {
+  private final ContentCoding gzip = new GzipContentCoding();
+  private final ContentCoding deflate = new DeflateContentCoding();
+  private final List<ContentCoding> codings = Arrays.asList(gzip, deflate);
+
+  @Test
+  public void shouldParseQualityValues() {
+    final AcceptEncoding acceptEncoding = AcceptEncoding.valueOf("gzip;q=0.5, Deflate ; q=0.8, sdch");
+    Assert.assertEquals(0.5f, acceptEncoding.getQuality("gzip"));
+    Assert.assertEquals(0.8f, acceptEncoding.getQuality("deflate"));
+    Assert.assertEquals(1f, acceptEncoding.getQuality("sdch"));
+    Assert.assertEquals(0f, acceptEncoding.getQuality("br"));
+    Assert.assertEquals(1f, acceptEncoding.getQuality("identity"));
+  }
+
+  @Test
+  public void shouldUseWildcardQualityForUnlistedCodings() {
+    final AcceptEncoding acceptEncoding = AcceptEncoding.valueOf("gzip, *;q=0.2");
+    Assert.assertEquals(0.2f, acceptEncoding.getQuality("deflate"));
+    Assert.assertEquals(0.2f, acceptEncoding.getQuality("identity"));
+  }
+
+  @Test
+  public void shouldNotEncodeWhenHeaderIsMissing() {
+    Assert.assertNull(AcceptEncoding.valueOf(null).negotiate(codings));
+    Assert.assertNull(AcceptEncoding.valueOf("").negotiate(codings));
+  }
+
+  @Test
+  public void shouldPreferFirstCodingWhenQualitiesAreEqual() {
+    Assert.assertSame(gzip, AcceptEncoding.valueOf("deflate, gzip").negotiate(codings));
+    Assert.assertSame(gzip, AcceptEncoding.valueOf("x-gzip").negotiate(codings));
+  }
+
+  @Test
+  public void shouldChooseCodingWithHighestQuality() {
+    Assert.assertSame(deflate, AcceptEncoding.valueOf("gzip;q=0.5, deflate").negotiate(codings));
+    Assert.assertSame(deflate, AcceptEncoding.valueOf("gzip;q=0, *").negotiate(codings));
+  }
+
+  @Test
+  public void shouldPreferIdentityWithHigherQuality() {
+    Assert.assertNull(AcceptEncoding.valueOf("gzip;q=0.5, identity").negotiate(codings));
+    Assert.assertSame(gzip, AcceptEncoding.valueOf("gzip;q=0.1, identity;q=0").negotiate(codings));
+  }
+
+  @Test
+  public void shouldIgnoreUnacceptableCodings() {
+    Assert.assertNull(AcceptEncoding.valueOf("gzip;q=0, deflate;q=invalid").negotiate(codings));
+    Assert.assertNull(AcceptEncoding.valueOf("br").negotiate(codings));
+    Assert.assertNull(AcceptEncoding.valueOf("gzip").negotiate(Collections.<ContentCoding> emptyList()));
+  }
+
+  @Test
+  public void shouldAcceptGzipForMangledHeader() {
+    final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+    Mockito.when(request.getHeaderNames()).thenReturn(
+      Collections.enumeration(Arrays.asList("X-cept-Encoding")));
+    Mockito.when(request.getHeader("X-cept-Encoding")).thenReturn("XXXXXXXXXXXXX");
+    Assert.assertSame(gzip, AcceptEncoding.fromRequest(request).negotiate(codings));
+  }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.manager;
+
+import java.io.File;
+
+import javax.servlet.http.HttpServletRequest;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import ro.isdc.wro.cache.CacheEntry;
+import ro.isdc.wro.model.resource.ResourceType;
+
+
+/**
+ * Tests the {@link AccessLog} class.
+ *
+ * @author Alex Objelean
+ */
+public class TestAccessLog {
+  private AccessLog accessLog;
+  private HttpServletRequest request;
+
+  @Before
+  public void setUp() {
+    accessLog = new AccessLog();
+    request = Mockito.mock(HttpServletRequest.class);
+    Mockito.when(request.getContextPath()).thenReturn("/app");
+    Mockito.when(request.getServletPath()).thenReturn("/wro");
+    Mockito.when(request.getRequestURI()).thenReturn("/app/wro/css/g1.css");
+    Mockito.when(request.getRequestURL()).thenReturn(new StringBuffer("http://localhost/app/wro/css/g1.css"));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void cannotRecordNullEntry() {
+    accessLog.record(null, request);
+  }
+
+  @Test
+  public void shouldReturnMostRequestedEntriesFirst() {
+    final CacheEntry first = new CacheEntry("g1", ResourceType.CSS, true);
+    final CacheEntry second = new CacheEntry("g1", ResourceType.JS, true);
+    final CacheEntry third = new CacheEntry("g2", ResourceType.JS, false);
+    accessLog.record(third, request);
+    accessLog.record(second, request);
+    accessLog.record(second, request);
+    accessLog.record(first, request);
+    accessLog.record(first, request);
+    accessLog.record(first, request);
+    Assert.assertEquals(5, accessLog.getCount("g1"));
+    Assert.assertEquals(1, accessLog.getCount("g2"));
+    Assert.assertEquals(0, accessLog.getCount("g3"));
+    Assert.assertEquals(first, accessLog.getEntries().get(0));
+    Assert.assertEquals(second, accessLog.getEntries().get(1));
+    Assert.assertEquals(third, accessLog.getEntries().get(2));
+  }
+
+  @Test
+  public void shouldCreateRequestWithRecordedPath() {
+    final CacheEntry entry = new CacheEntry("g1", ResourceType.CSS, true);
+    Assert.assertNull(accessLog.newRequest(entry));
+    accessLog.record(entry, request);
+    final HttpServletRequest newRequest = accessLog.newRequest(entry);
+    Assert.assertEquals("/app", newRequest.getContextPath());
+    Assert.assertEquals("/wro", newRequest.getServletPath());
+    Assert.assertEquals("/app/wro/css/g1.css", newRequest.getRequestURI());
+    Assert.assertEquals("http://localhost/app/wro/css/g1.css", newRequest.getRequestURL().toString());
+    Assert.assertNull(newRequest.getHeader("Accept-Encoding"));
+  }
+
+  @Test
+  public void shouldLoadSavedRecords()
+    throws Exception {
+    final CacheEntry entry = new CacheEntry("g1", ResourceType.CSS, false);
+    accessLog.record(entry, request);
+    accessLog.record(entry, request);
+    accessLog.record(new CacheEntry("g2", ResourceType.JS, true), null);
+    final File file = File.createTempFile("wro4j", ".log");
+    try {
+      accessLog.save(file);
+      FileUtils.writeStringToFile(file, "invalid line\n", true);
+      final AccessLog loaded = new AccessLog();
+      loaded.load(file);
+      Assert.assertEquals(2, loaded.getCount("g1"));
+      Assert.assertEquals(1, loaded.getCount("g2"));
+      Assert.assertEquals(entry, loaded.getEntries().get(0));
+      Assert.assertEquals("/app/wro/css/g1.css", loaded.newRequest(entry).getRequestURI());
+      Assert.assertNull(loaded.newRequest(new CacheEntry("g2", ResourceType.JS, true)).getRequestURI());
+    } finally {
+      FileUtils.deleteQuietly(file);
+    }
+  }
+
+  @Test
+  public void shouldIgnoreMissingFile() {
+    accessLog.load(new File("missing-access-log.log"));
+    Assert.assertTrue(accessLog.getEntries().isEmpty());
+  }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.manager;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.model.group.Group;
+import ro.isdc.wro.model.group.processor.PreProcessorExecutor;
+import ro.isdc.wro.model.resource.Resource;
+import ro.isdc.wro.model.resource.ResourceType;
+import ro.isdc.wro.model.resource.locator.factory.DefaultUriLocatorFactory;
+import ro.isdc.wro.model.resource.util.CRC32HashBuilder;
+
+
+/**
+ * Tests the {@link ResourceChangeDetector} class.
+ *
+ * @author Alex Objelean
+ */
+public class TestResourceChangeDetector {
+  private ResourceChangeDetector detector;
+  private File file;
+  private String uri;
+
+  @Before
+  public void setUp()
+    throws Exception {
+    Context.set(Context.standaloneContext());
+    detector = new ResourceChangeDetector(new DefaultUriLocatorFactory(), new CRC32HashBuilder());
+    file = File.createTempFile("wro4j", ".js");
+    FileUtils.writeStringToFile(file, "var a = 1;");
+    uri = file.toURI().toURL().toString();
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void cannotCheckNullUri() {
+    detector.isChanged(null);
+  }
+
+  @Test
+  public void shouldDetectChangedFile()
+    throws Exception {
+    detector.startScan();
+    Assert.assertTrue(detector.isChanged(uri));
+    // the result is the same during a scan
+    Assert.assertTrue(detector.isChanged(uri));
+
+    detector.startScan();
+    Assert.assertFalse(detector.isChanged(uri));
+
+    FileUtils.writeStringToFile(file, "var a = 12;");
+    file.setLastModified(file.lastModified() + 2000);
+    detector.startScan();
+    Assert.assertTrue(detector.isChanged(uri));
+  }
+
+  @Test
+  public void shouldConsiderForgottenResourceChanged() {
+    detector.startScan();
+    detector.isChanged(uri);
+    detector.forget(uri);
+    detector.startScan();
+    Assert.assertTrue(detector.isChanged(uri));
+  }
+
+  @Test
+  public void shouldDetectMissingResourceOnlyOnce() {
+    final String missingUri = "/does/not/exist.js";
+    detector.startScan();
+    Assert.assertTrue(detector.isChanged(missingUri));
+    detector.startScan();
+    Assert.assertFalse(detector.isChanged(missingUri));
+  }
+
+  @Test
+  public void shouldIgnoreResourcesNotBackedByFilesWhenFilesOnly() {
+    detector.setFilesOnly(true);
+    final String missingUri = "/does/not/exist.js";
+    detector.startScan();
+    Assert.assertTrue(detector.isChanged(uri));
+    Assert.assertTrue(detector.isChanged(missingUri));
+    detector.startScan();
+    Assert.assertFalse(detector.isChanged(uri));
+    Assert.assertFalse(detector.isChanged(missingUri));
+  }
+
+  @Test
+  public void shouldDetectChangedGroupWhenImportedResourceChanged()
+    throws Exception {
+    final File importedFile = File.createTempFile("wro4j", ".css");
+    try {
+      FileUtils.writeStringToFile(importedFile, ".imported {}");
+      final String importedUri = importedFile.toURI().toURL().toString();
+      final PreProcessorExecutor preProcessorExecutor = new PreProcessorExecutor();
+      preProcessorExecutor.setImportedUris(uri, Arrays.asList(importedUri));
+      preProcessorExecutor.setImportedUris(importedUri, Arrays.asList(uri));
+      detector.setPreProcessorExecutor(preProcessorExecutor);
+      final List<Group> groups = Arrays.asList(new Group("group").addResource(Resource.create(uri, ResourceType.CSS)));
+      Assert.assertEquals(1, detector.getChangedGroups(groups).size());
+      Assert.assertTrue(detector.getChangedGroups(groups).isEmpty());
+
+      FileUtils.writeStringToFile(importedFile, ".imported {color: red;}");
+      importedFile.setLastModified(importedFile.lastModified() + 2000);
+      Assert.assertEquals(1, detector.getChangedGroups(groups).size());
+    } finally {
+      FileUtils.deleteQuietly(importedFile);
+    }
+  }
+
+  @After
+  public void tearDown() {
+    FileUtils.deleteQuietly(file);
+    Context.unset();
+  }
+}
@@ -7,12 +7,20 @@ import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.FilterConfig;
 import javax.servlet.http.HttpServletRequest;
@@ -20,11 +28,15 @@ import javax.servlet.http.HttpServletResponse;
 
 import junit.framework.Assert;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.WriterOutputStream;
+import org.apache.commons.lang3.StringUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -32,6 +44,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.cache.CacheEntry;
+import ro.isdc.wro.cache.ContentHashEntry;
 import ro.isdc.wro.config.Context;
 import ro.isdc.wro.config.jmx.WroConfiguration;
 import ro.isdc.wro.http.DelegatingServletOutputStream;
@@ -40,6 +54,8 @@ import ro.isdc.wro.http.UnauthorizedRequestException;
 import ro.isdc.wro.manager.factory.BaseWroManagerFactory;
 import ro.isdc.wro.manager.factory.NoProcessorsWroManagerFactory;
 import ro.isdc.wro.model.WroModel;
+import ro.isdc.wro.model.factory.InMemoryCacheableWroModelFactory;
+import ro.isdc.wro.model.factory.WroModelFactory;
 import ro.isdc.wro.model.factory.WroModelFactoryDecorator;
 import ro.isdc.wro.model.factory.XmlModelFactory;
 import ro.isdc.wro.model.group.DefaultGroupExtractor;
@@ -47,11 +63,16 @@ import ro.isdc.wro.model.group.Group;
 import ro.isdc.wro.model.group.GroupExtractor;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
+import ro.isdc.wro.model.resource.processor.DestroyableProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.processor.factory.SimpleProcessorsFactory;
+import ro.isdc.wro.model.resource.processor.impl.PlaceholderProcessor;
+import ro.isdc.wro.model.resource.processor.impl.css.CssImportPreProcessor;
 import ro.isdc.wro.model.resource.processor.impl.css.CssUrlRewritingProcessor;
 import ro.isdc.wro.model.resource.util.CRC32HashBuilder;
 import ro.isdc.wro.model.resource.util.MD5HashBuilder;
 import ro.isdc.wro.util.WroTestUtils;
+import ro.isdc.wro.util.WroUtil;
 import ro.isdc.wro.util.io.UnclosableBufferedInputStream;
 
 
@@ -325,6 +346,299 @@ public class TestWroManager {
   }
 
 
+  /**
+   * Once a group is cached, the conditional requests are answered without using the model.
+   */
+  @Test
+  public void shouldAnswerConditionalRequestsWithoutModelLookup()
+    throws Exception {
+    final WroConfiguration config = newConfigWithUpdatePeriodValue(0);
+    config.setDisableCache(false);
+    final HttpServletResponse response = processConditionalRequest(config, null, -1);
+    final ArgumentCaptor<String> etag = ArgumentCaptor.forClass(String.class);
+    Mockito.verify(response).setHeader(Mockito.eq(HttpHeader.ETAG.toString()), etag.capture());
+    Mockito.verify(response).setHeader(Mockito.eq(HttpHeader.LAST_MODIFIED.toString()), Mockito.anyString());
+    Mockito.verify(response, Mockito.never()).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+
+    manager.setModelFactory(new WroModelFactory() {
+      public WroModel create() {
+        throw new IllegalStateException("The model should not be used");
+      }
+
+      public void destroy() {
+      }
+    });
+    Mockito.verify(processConditionalRequest(config, etag.getValue(), -1)).setStatus(
+      HttpServletResponse.SC_NOT_MODIFIED);
+    Mockito.verify(processConditionalRequest(config, null, System.currentTimeMillis() + 1000)).setStatus(
+      HttpServletResponse.SC_NOT_MODIFIED);
+  }
+
+  @Test
+  public void shouldServeCurrentVersionAsImmutable()
+    throws Exception {
+    final WroConfiguration config = newConfigWithUpdatePeriodValue(0);
+    config.setDebug(false);
+    final String versionedPath = StringUtils.substringBefore(manager.encodeVersionIntoGroupPath("g1",
+      ResourceType.CSS, true), "?");
+    final HttpServletResponse response = processVersionedRequest(config, "/app/" + versionedPath);
+    Mockito.verify(response).setHeader(HttpHeader.CACHE_CONTROL.toString(), "public, max-age=31536000, immutable");
+    Mockito.verify(response, Mockito.never()).sendRedirect(Mockito.anyString());
+  }
+
+  @Test
+  public void shouldServeNotModifiedVersionAsImmutable()
+    throws Exception {
+    final WroConfiguration config = newConfigWithUpdatePeriodValue(0);
+    config.setDebug(false);
+    config.setDisableCache(false);
+    final String versionedPath = StringUtils.substringBefore(manager.encodeVersionIntoGroupPath("g1",
+      ResourceType.CSS, true), "?");
+    final String hash = StringUtils.substringBefore(versionedPath, "/");
+    // the first request indexes the validators, used to answer the next conditional requests
+    processVersionedRequest(config, "/app/" + versionedPath);
+    final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+    final HttpServletResponse response = Mockito.mock(HttpServletResponse.class, Mockito.RETURNS_DEEP_STUBS);
+    Mockito.when(request.getRequestURI()).thenReturn("/app/" + versionedPath);
+    Mockito.when(request.getHeader(HttpHeader.IF_NONE_MATCH.toString())).thenReturn("\"" + hash + "\"");
+    Context.set(Context.webContext(request, response, Mockito.mock(FilterConfig.class)), config);
+    manager.process();
+    Mockito.verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    Mockito.verify(response).setHeader(HttpHeader.CACHE_CONTROL.toString(), "public, max-age=31536000, immutable");
+  }
+
+  @Test
+  public void shouldRedirectOutdatedVersionToCurrentVersion()
+    throws Exception {
+    final WroConfiguration config = newConfigWithUpdatePeriodValue(0);
+    config.setRedirectOutdatedVersions(true);
+    final String versionedPath = StringUtils.substringBefore(manager.encodeVersionIntoGroupPath("g1",
+      ResourceType.CSS, true), "?");
+    final String outdatedVersion = StringUtils.repeat('0', StringUtils.substringBefore(versionedPath, "/").length());
+    final HttpServletResponse response = processVersionedRequest(config, "/app/" + outdatedVersion + "/g1.css");
+    Mockito.verify(response).sendRedirect("/app/" + versionedPath);
+    Mockito.verify(response, Mockito.never()).getOutputStream();
+  }
+
+  /**
+   * Only the folders looking exactly like a hash are redirected and only when the redirect is enabled.
+   */
+  @Test
+  public void shouldNotRedirectFolderNotLookingLikeHash()
+    throws Exception {
+    final WroConfiguration config = newConfigWithUpdatePeriodValue(0);
+    final String hash = StringUtils.substringBefore(manager.encodeVersionIntoGroupPath("g1", ResourceType.CSS, true),
+      "/");
+    final String hashLikeFolder = StringUtils.repeat('0', hash.length());
+    Mockito.verify(processVersionedRequest(config, "/app/" + hashLikeFolder + "/g1.css"), Mockito.never())
+      .sendRedirect(Mockito.anyString());
+    config.setRedirectOutdatedVersions(true);
+    Mockito.verify(processVersionedRequest(config, "/app/2012/g1.css"), Mockito.never()).sendRedirect(
+      Mockito.anyString());
+    Mockito.verify(processVersionedRequest(config, "/app/cafe1/g1.css"), Mockito.never()).sendRedirect(
+      Mockito.anyString());
+  }
+
+  /**
+   * Requests without a version keep the default caching headers.
+   */
+  @Test
+  public void shouldNotTreatRegularFolderAsVersion()
+    throws Exception {
+    final WroConfiguration config = newConfigWithUpdatePeriodValue(0);
+    config.setDebug(false);
+    final HttpServletResponse response = processVersionedRequest(config, "/app/css/g1.css");
+    Mockito.verify(response, Mockito.never()).setHeader(Mockito.eq(HttpHeader.CACHE_CONTROL.toString()),
+      Mockito.anyString());
+    Mockito.verify(response, Mockito.never()).sendRedirect(Mockito.anyString());
+  }
+
+  @Test
+  public void shouldServeRequestedRangeOfContent()
+    throws Exception {
+    final ByteArrayOutputStream full = new ByteArrayOutputStream();
+    processRangeRequest("GET", null, full);
+    final ByteArrayOutputStream partial = new ByteArrayOutputStream();
+    final HttpServletResponse response = processRangeRequest("GET", "bytes=-10", partial);
+    final int length = full.size();
+    Mockito.verify(response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+    Mockito.verify(response).setHeader(HttpHeader.CONTENT_RANGE.toString(), String.format("bytes %s-%s/%s",
+      length - 10, length - 1, length));
+    Mockito.verify(response).setContentLength(10);
+    Assert.assertEquals(full.toString().substring(length - 10), partial.toString());
+  }
+
+  @Test
+  public void shouldRejectUnsatisfiableRange()
+    throws Exception {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final HttpServletResponse response = processRangeRequest("GET", "bytes=100000-", out);
+    Mockito.verify(response).setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+    Assert.assertEquals(0, out.size());
+  }
+
+  @Test
+  public void shouldNotWriteBodyForHeadRequest()
+    throws Exception {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final HttpServletResponse response = processRangeRequest("HEAD", null, out);
+    final ArgumentCaptor<Integer> contentLength = ArgumentCaptor.forClass(Integer.class);
+    Mockito.verify(response).setContentLength(contentLength.capture());
+    Assert.assertTrue(contentLength.getValue() > 0);
+    Mockito.verify(response, Mockito.never()).getOutputStream();
+    Assert.assertEquals(0, out.size());
+  }
+
+  /**
+   * Each content-coding has its own ETag, so that a range of an encoded variant is never combined with the bytes of
+   * another variant.
+   */
+  @Test
+  public void shouldNotApplyRangeOfDifferentContentCoding()
+    throws Exception {
+    final HttpServletResponse gzipResponse = processRangeRequest("GET", "bytes=0-9", "gzip", null,
+      new ByteArrayOutputStream());
+    Mockito.verify(gzipResponse).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+    final ArgumentCaptor<String> gzipEtag = ArgumentCaptor.forClass(String.class);
+    Mockito.verify(gzipResponse).setHeader(Mockito.eq(HttpHeader.ETAG.toString()), gzipEtag.capture());
+
+    final ByteArrayOutputStream full = new ByteArrayOutputStream();
+    processRangeRequest("GET", null, null, null, full);
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    final HttpServletResponse identityResponse = processRangeRequest("GET", "bytes=10-", null, gzipEtag.getValue(),
+      out);
+    Mockito.verify(identityResponse, Mockito.never()).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+    final ArgumentCaptor<String> identityEtag = ArgumentCaptor.forClass(String.class);
+    Mockito.verify(identityResponse).setHeader(Mockito.eq(HttpHeader.ETAG.toString()), identityEtag.capture());
+    Assert.assertFalse(gzipEtag.getValue().equals(identityEtag.getValue()));
+    Assert.assertEquals(full.toString(), out.toString());
+
+    Mockito.verify(processRangeRequest("GET", "bytes=10-", "gzip", gzipEtag.getValue(), new ByteArrayOutputStream()))
+      .setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+  }
+
+  private HttpServletResponse processRangeRequest(final String method, final String range,
+    final ByteArrayOutputStream out)
+    throws IOException {
+    return processRangeRequest(method, range, null, null, out);
+  }
+
+  private HttpServletResponse processRangeRequest(final String method, final String range,
+    final String acceptEncoding, final String ifRange, final ByteArrayOutputStream out)
+    throws IOException {
+    final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+    final HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+    Mockito.when(request.getRequestURI()).thenReturn("/app/g1.css");
+    Mockito.when(request.getMethod()).thenReturn(method);
+    Mockito.when(request.getHeader(HttpHeader.RANGE.toString())).thenReturn(range);
+    Mockito.when(request.getHeader(HttpHeader.ACCEPT_ENCODING.toString())).thenReturn(acceptEncoding);
+    Mockito.when(request.getHeader(HttpHeader.IF_RANGE.toString())).thenReturn(ifRange);
+    Mockito.when(response.getOutputStream()).thenReturn(new DelegatingServletOutputStream(out));
+    Context.set(Context.webContext(request, response, Mockito.mock(FilterConfig.class)),
+      newConfigWithUpdatePeriodValue(0));
+    manager.process();
+    return response;
+  }
+
+  private HttpServletResponse processVersionedRequest(final WroConfiguration config, final String requestUri)
+    throws IOException {
+    final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+    final HttpServletResponse response = Mockito.mock(HttpServletResponse.class, Mockito.RETURNS_DEEP_STUBS);
+    Mockito.when(request.getRequestURI()).thenReturn(requestUri);
+    Context.set(Context.webContext(request, response, Mockito.mock(FilterConfig.class)), config);
+    manager.process();
+    return response;
+  }
+
+  /**
+   * A request for a group which takes too long to process is answered with 503, while the processing continues in
+   * background.
+   */
+  @Test(timeout = 10000)
+  public void shouldAnswerServiceUnavailableWhenProcessingTimeoutExceeded()
+    throws Exception {
+    final WroConfiguration config = newConfigWithUpdatePeriodValue(0);
+    config.setDisableCache(false);
+    config.setProcessingTimeout(50);
+    final CountDownLatch modelLatch = new CountDownLatch(1);
+    manager.setModelFactory(new WroModelFactoryDecorator(getValidModelFactory()) {
+      @Override
+      public WroModel create() {
+        try {
+          modelLatch.await();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return super.create();
+      }
+    });
+    final HttpServletResponse response = processConditionalRequest(config, null, -1);
+    Mockito.verify(response).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    Mockito.verify(response).setHeader(HttpHeader.RETRY_AFTER.toString(), "1");
+
+    modelLatch.countDown();
+    final CacheEntry cacheEntry = new CacheEntry("g1", ResourceType.CSS, true);
+    while (manager.getCacheStrategy().get(cacheEntry) == null) {
+      Thread.sleep(10);
+    }
+    Mockito.verify(processConditionalRequest(config, null, -1), Mockito.never()).setStatus(
+      HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+  }
+
+
+  /**
+   * When the processing of a group which was processed before exceeds the timeout, its previous content is served
+   * instead of a 503.
+   */
+  @Test(timeout = 10000)
+  public void shouldServePreviousContentWhenProcessingTimeoutExceeded()
+    throws Exception {
+    final WroConfiguration config = newConfigWithUpdatePeriodValue(0);
+    config.setDisableCache(false);
+    // the first processing must complete, whatever the speed of the machine
+    config.setProcessingTimeout(60000);
+    final CountDownLatch modelLatch = new CountDownLatch(1);
+    final AtomicBoolean blockModel = new AtomicBoolean();
+    manager.setModelFactory(new WroModelFactoryDecorator(getValidModelFactory()) {
+      @Override
+      public WroModel create() {
+        try {
+          if (blockModel.get()) {
+            modelLatch.await();
+          }
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return super.create();
+      }
+    });
+    processConditionalRequest(config, null, -1);
+    manager.clearCache();
+    blockModel.set(true);
+    config.setProcessingTimeout(50);
+
+    final HttpServletResponse response = processConditionalRequest(config, null, -1);
+    Mockito.verify(response, Mockito.never()).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    Mockito.verify(response).setHeader(HttpHeader.CACHE_CONTROL.toString(), "no-cache");
+    Mockito.verify(response.getOutputStream()).write(Mockito.any(byte[].class), Mockito.eq(0), Mockito.anyInt());
+    modelLatch.countDown();
+  }
+
+
+  private HttpServletResponse processConditionalRequest(final WroConfiguration config, final String ifNoneMatch,
+    final long ifModifiedSince)
+    throws IOException {
+    final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+    final HttpServletResponse response = Mockito.mock(HttpServletResponse.class, Mockito.RETURNS_DEEP_STUBS);
+    Mockito.when(request.getRequestURI()).thenReturn("/app/g1.css");
+    Mockito.when(request.getHeader(HttpHeader.IF_NONE_MATCH.toString())).thenReturn(ifNoneMatch);
+    Mockito.when(request.getDateHeader(HttpHeader.IF_MODIFIED_SINCE.toString())).thenReturn(ifModifiedSince);
+    Context.set(Context.webContext(request, response, Mockito.mock(FilterConfig.class)), config);
+    manager.process();
+    return response;
+  }
+
+
   @Test
   public void testManagerWithSchedulerAndUpdatePeriodSet()
     throws Exception {
@@ -439,6 +753,324 @@ public class TestWroManager {
     Assert.assertEquals("51e6de8dde498cb0bf082b2cd80323fca19eef5/g3.css?minimize=true", path);
   }
 
+  @Test
+  public void concurrentRequestsForSameGroupShouldBeProcessedOnce()
+    throws Exception {
+    final AtomicInteger processingCounter = new AtomicInteger();
+    final SimpleProcessorsFactory processorsFactory = new SimpleProcessorsFactory();
+    processorsFactory.addPreProcessor(new ResourcePreProcessor() {
+      public void process(final Resource resource, final Reader reader, final Writer writer)
+        throws IOException {
+        processingCounter.incrementAndGet();
+        try {
+          // give enough time to other requests to arrive
+          Thread.sleep(300);
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        IOUtils.copy(reader, writer);
+      }
+    });
+    final BaseWroManagerFactory factory = new BaseWroManagerFactory().setModelFactory(getValidModelFactory());
+    factory.setProcessorsFactory(processorsFactory);
+    manager = factory.create();
+
+    final List<Callable<String>> callables = new ArrayList<Callable<String>>();
+    for (int i = 0; i < 10; i++) {
+      callables.add(new Callable<String>() {
+        public String call()
+          throws Exception {
+          return manager.encodeVersionIntoGroupPath("g3", ResourceType.CSS, true);
+        }
+      });
+    }
+    final List<Future<String>> futures = WroUtil.runInParallel(callables, 10);
+    final String expected = futures.get(0).get();
+    for (final Future<String> future : futures) {
+      Assert.assertEquals(expected, future.get());
+    }
+    // g3 contains a single resource
+    Assert.assertEquals(1, processingCounter.get());
+  }
+
+  private interface DestroyablePreProcessor
+    extends ResourcePreProcessor, DestroyableProcessor {
+  }
+
+  @Test
+  public void shouldDestroyProcessorsWhenDestroyed() {
+    final DestroyablePreProcessor processor = Mockito.mock(DestroyablePreProcessor.class);
+    final BaseWroManagerFactory factory = new BaseWroManagerFactory().setModelFactory(getValidModelFactory());
+    factory.setProcessorsFactory(new SimpleProcessorsFactory().addPreProcessor(processor));
+    manager = factory.create();
+    manager.destroy();
+    Mockito.verify(processor).destroy();
+  }
+
+  @Test
+  public void shouldClearCacheWhenCachePeriodChanged()
+    throws Exception {
+    Context.get().getConfig().setDisableCache(false);
+    manager.encodeVersionIntoGroupPath("g3", ResourceType.CSS, true);
+    final CacheEntry cacheEntry = new CacheEntry("g3", ResourceType.CSS, true);
+    Assert.assertNotNull(manager.getCacheStrategy().get(cacheEntry));
+    manager.onCachePeriodChanged(0);
+    Assert.assertNull(manager.getCacheStrategy().get(cacheEntry));
+  }
+
+  @Test
+  public void shouldServeStaleContentWhileCacheIsReloaded()
+    throws Exception {
+    Context.get().getConfig().setDisableCache(false);
+    Context.get().getConfig().setStaleWhileRevalidate(true);
+    manager.encodeVersionIntoGroupPath("g3", ResourceType.CSS, true);
+    final CacheEntry cacheEntry = new CacheEntry("g3", ResourceType.CSS, true);
+    final ContentHashEntry staleEntry = manager.getCacheStrategy().get(cacheEntry);
+    Assert.assertNotNull(staleEntry);
+    manager.onCachePeriodChanged(0);
+    Assert.assertNotNull(manager.getCacheStrategy().get(cacheEntry));
+    // allow the background reload to do its job
+    Thread.sleep(500);
+    final ContentHashEntry reloadedEntry = manager.getCacheStrategy().get(cacheEntry);
+    Assert.assertNotSame(staleEntry, reloadedEntry);
+    Assert.assertEquals(staleEntry.getHash(), reloadedEntry.getHash());
+  }
+
+  @Test
+  public void shouldNotRebuildGroupsWhenResourcesAreUnchanged()
+    throws Exception {
+    final CacheEntry cacheEntry = new CacheEntry("g3", ResourceType.CSS, true);
+    final ReloadCacheRunnable runnable = new ReloadCacheRunnable(manager);
+    // the first run rebuilds all groups
+    runnable.run();
+    final ContentHashEntry entry = manager.getCacheStrategy().get(cacheEntry);
+    Assert.assertNotNull(entry);
+    runnable.run();
+    Assert.assertSame(entry, manager.getCacheStrategy().get(cacheEntry));
+    // a change of the cache period forces a full rebuild
+    manager.onCachePeriodChanged(0);
+    runnable.run();
+    Assert.assertNotSame(entry, manager.getCacheStrategy().get(cacheEntry));
+  }
+
+  @Test
+  public void shouldRebuildGroupsWhenImportedResourceChanges()
+    throws Exception {
+    final File folder = new File(FileUtils.getTempDirectory(), "wro4jImports" + System.nanoTime());
+    try {
+      final File importedFile = new File(folder, "imported.css");
+      FileUtils.writeStringToFile(importedFile, ".imported {color: red;}");
+      final File file = new File(folder, "main.css");
+      FileUtils.writeStringToFile(file, "@import url(imported.css);\n.main {color: black;}");
+      final WroModel model = new WroModel();
+      model.addGroup(new Group("main").addResource(Resource.create(file.toURI().toString(), ResourceType.CSS)));
+      final BaseWroManagerFactory factory = new BaseWroManagerFactory().setModelFactory(new WroModelFactory() {
+        public WroModel create() {
+          return model;
+        }
+
+        public void destroy() {
+        }
+      });
+      factory.setProcessorsFactory(new SimpleProcessorsFactory().addPreProcessor(new CssImportPreProcessor()));
+      manager = factory.create();
+      final CacheEntry cacheEntry = new CacheEntry("main", ResourceType.CSS, true);
+      final ReloadCacheRunnable runnable = new ReloadCacheRunnable(manager);
+      runnable.run();
+      Assert.assertTrue(manager.getCacheStrategy().get(cacheEntry).getRawContent().contains("red"));
+
+      FileUtils.writeStringToFile(importedFile, ".imported {color: blue;}");
+      importedFile.setLastModified(importedFile.lastModified() + 2000);
+      runnable.run();
+      Assert.assertTrue(manager.getCacheStrategy().get(cacheEntry).getRawContent().contains("blue"));
+    } finally {
+      FileUtils.deleteQuietly(folder);
+    }
+  }
+
+  @Test
+  public void shouldChangeModelFingerprintWhenImportedResourceChanges()
+    throws Exception {
+    final File folder = new File(FileUtils.getTempDirectory(), "wro4jImports" + System.nanoTime());
+    try {
+      final File importedFile = new File(folder, "imported.css");
+      FileUtils.writeStringToFile(importedFile, ".imported {color: red;}");
+      final File file = new File(folder, "main.css");
+      FileUtils.writeStringToFile(file, "@import url(imported.css);\n.main {color: black;}");
+      final WroModel model = new WroModel();
+      model.addGroup(new Group("main").addResource(Resource.create(file.toURI().toString(), ResourceType.CSS)));
+      final BaseWroManagerFactory factory = new BaseWroManagerFactory().setModelFactory(new WroModelFactory() {
+        public WroModel create() {
+          return model;
+        }
+
+        public void destroy() {
+        }
+      });
+      factory.setProcessorsFactory(new SimpleProcessorsFactory().addPreProcessor(new CssImportPreProcessor()));
+      manager = factory.create();
+      new ReloadCacheRunnable(manager).run();
+      final String fingerprint = manager.computeModelFingerprint();
+      Assert.assertEquals(fingerprint, manager.computeModelFingerprint());
+
+      importedFile.setLastModified(importedFile.lastModified() + 2000);
+      Assert.assertFalse(fingerprint.equals(manager.computeModelFingerprint()));
+    } finally {
+      FileUtils.deleteQuietly(folder);
+    }
+  }
+
+  @Test
+  public void shouldChangeModelFingerprintWhenProcessorOptionsChange() {
+    final String fingerprint = createManager(new PlaceholderProcessor()).computeModelFingerprint();
+    Assert.assertEquals(fingerprint, createManager(new PlaceholderProcessor()).computeModelFingerprint());
+    Assert.assertFalse(fingerprint.equals(createManager(
+      new PlaceholderProcessor().setIgnoreMissingVariables(false)).computeModelFingerprint()));
+  }
+
+  /**
+   * @return a manager using an empty model and the provided preProcessor.
+   */
+  private WroManager createManager(final ResourcePreProcessor preProcessor) {
+    final BaseWroManagerFactory factory = new BaseWroManagerFactory().setModelFactory(new WroModelFactory() {
+      public WroModel create() {
+        return new WroModel();
+      }
+
+      public void destroy() {
+      }
+    });
+    factory.setProcessorsFactory(new SimpleProcessorsFactory().addPreProcessor(preProcessor));
+    return factory.create();
+  }
+
+  @Test
+  public void shouldRebuildChangedGroupsConcurrently()
+    throws Exception {
+    Context.get().getConfig().setCacheReloadConcurrency(4);
+    new ReloadCacheRunnable(manager).run();
+    for (final Group group : manager.getModelFactory().create().getGroups()) {
+      for (final ResourceType type : ResourceType.values()) {
+        if (group.hasResourcesOfType(type)) {
+          Assert.assertNotNull(manager.getCacheStrategy().get(new CacheEntry(group.getName(), type, true)));
+          Assert.assertNotNull(manager.getCacheStrategy().get(new CacheEntry(group.getName(), type, false)));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void shouldWarmUpCacheFromAccessLog()
+    throws Exception {
+    Context.get().getConfig().setDisableCache(false);
+    final HttpServletRequest request = Mockito.mock(HttpServletRequest.class);
+    Mockito.when(request.getRequestURI()).thenReturn("/wro/repeatedResources.js");
+    final CacheEntry requestedEntry = new CacheEntry("repeatedResources", ResourceType.JS, true);
+    final AccessLog accessLog = new AccessLog();
+    accessLog.record(requestedEntry, request);
+    final File file = File.createTempFile("wro4j", ".log");
+    try {
+      accessLog.save(file);
+      manager.warmUp(file);
+      Assert.assertNotNull(manager.getCacheStrategy().get(requestedEntry));
+      manager.destroy();
+      // the access log is persisted again when the manager is destroyed
+      final AccessLog savedLog = new AccessLog();
+      savedLog.load(file);
+      Assert.assertEquals(1, savedLog.getCount("repeatedResources"));
+    } finally {
+      FileUtils.deleteQuietly(file);
+    }
+  }
+
+  @Test
+  public void shouldNotRecordRequestsForMissingGroups()
+    throws Exception {
+    final WroConfiguration config = newConfigWithUpdatePeriodValue(0);
+    config.setDisableCache(false);
+    final File file = File.createTempFile("wro4j", ".log");
+    try {
+      manager.warmUp(file);
+      processVersionedRequest(config, "/app/g1.css");
+      try {
+        processVersionedRequest(config, "/app/missing.css");
+        Assert.fail("The group should not exist");
+      } catch (final RuntimeException e) {
+      }
+      manager.destroy();
+      final AccessLog savedLog = new AccessLog();
+      savedLog.load(file);
+      Assert.assertEquals(Arrays.asList(new CacheEntry("g1", ResourceType.CSS, true)), savedLog.getEntries());
+    } finally {
+      FileUtils.deleteQuietly(file);
+    }
+  }
+
+  @Test
+  public void shouldRebuildOnlyGroupsContainingChangedFiles()
+    throws Exception {
+    final File file = File.createTempFile("wro4j", ".js");
+    try {
+      FileUtils.writeStringToFile(file, "var a = 1;");
+      final WroModel model = new WroModel();
+      model.addGroup(new Group("changed").addResource(Resource.create(file.toURI().toString(), ResourceType.JS)));
+      model.addGroup(new Group("unchanged").addResource(Resource.create("classpath:3.js", ResourceType.JS)));
+      manager.setModelFactory(new WroModelFactory() {
+        public WroModel create() {
+          return model;
+        }
+
+        public void destroy() {
+        }
+      });
+      final ResourceWatcherRunnable runnable = new ResourceWatcherRunnable(manager);
+      // the first run only records the state of the files
+      runnable.run();
+      final CacheEntry changedEntry = new CacheEntry("changed", ResourceType.JS, true);
+      Assert.assertNull(manager.getCacheStrategy().get(changedEntry));
+
+      FileUtils.writeStringToFile(file, "var a = 12;");
+      file.setLastModified(file.lastModified() + 2000);
+      runnable.run();
+      Assert.assertTrue(manager.getCacheStrategy().get(changedEntry).getRawContent().contains("12"));
+      Assert.assertNull(manager.getCacheStrategy().get(new CacheEntry("unchanged", ResourceType.JS, true)));
+    } finally {
+      FileUtils.deleteQuietly(file);
+    }
+  }
+
+  @Test
+  public void shouldReloadModelWhenModelFileChanges()
+    throws Exception {
+    final File file = File.createTempFile("wro4j", ".xml");
+    try {
+      FileUtils.writeStringToFile(file, createXmlModel("first"));
+      manager.setModelFactory(new InMemoryCacheableWroModelFactory(new XmlModelFactory() {
+        @Override
+        protected InputStream getModelResourceAsStream()
+          throws IOException {
+          addModelResourceUri(file.toURI().toString());
+          return new FileInputStream(file);
+        }
+      }));
+      final ResourceWatcherRunnable runnable = new ResourceWatcherRunnable(manager);
+      runnable.run();
+      Assert.assertEquals(Arrays.asList("first"), manager.getModelFactory().create().getGroupNames());
+
+      FileUtils.writeStringToFile(file, createXmlModel("second"));
+      file.setLastModified(file.lastModified() + 2000);
+      runnable.run();
+      Assert.assertEquals(Arrays.asList("second"), manager.getModelFactory().create().getGroupNames());
+    } finally {
+      FileUtils.deleteQuietly(file);
+    }
+  }
+
+  private String createXmlModel(final String groupName) {
+    return "<groups xmlns=\"http://www.isdc.ro/wro\"><group name=\"" + groupName
+      + "\"><css>classpath:1.css</css></group></groups>";
+  }
+
   @After
   public void tearDown() {
     manager.destroy();
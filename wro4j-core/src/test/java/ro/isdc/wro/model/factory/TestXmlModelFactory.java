@@ -4,6 +4,7 @@
 package ro.isdc.wro.model.factory;
 
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.List;
 
 import junit.framework.Assert;
@@ -124,6 +125,23 @@ public class TestXmlModelFactory {
     LOG.debug("model: " + model);
   }
 
+  @Test
+  public void shouldProvideUrisOfImportedModels() {
+    final XmlModelFactory xmlModelFactory = new XmlModelFactory() {
+      @Override
+      protected InputStream getModelResourceAsStream() {
+        //get a class relative test resource
+        return TestXmlModelFactory.class.getResourceAsStream("testimport/validImports.xml");
+      }
+    };
+    factory = xmlModelFactory;
+    WroTestUtils.init(factory);
+    Assert.assertNull(xmlModelFactory.getModelResourceUris());
+    factory.create();
+    Assert.assertEquals(Arrays.asList("classpath:ro/isdc/wro/model/factory/testimport/wro-1.xml"),
+      xmlModelFactory.getModelResourceUris());
+  }
+
   @Test(expected=RecursiveGroupDefinitionException.class)
   public void testRecursiveImports() {
     factory = new XmlModelFactory() {
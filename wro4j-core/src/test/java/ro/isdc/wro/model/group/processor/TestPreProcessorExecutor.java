@@ -3,14 +3,18 @@
  */
 package ro.isdc.wro.model.group.processor;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.framework.Assert;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.After;
 import org.junit.Before;
@@ -25,6 +29,7 @@ import ro.isdc.wro.manager.factory.BaseWroManagerFactory;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
+import ro.isdc.wro.model.resource.processor.StreamingProcessor;
 import ro.isdc.wro.model.resource.processor.factory.SimpleProcessorsFactory;
 import ro.isdc.wro.util.StopWatch;
 
@@ -187,6 +192,123 @@ public class TestPreProcessorExecutor {
   }
 
 
+  @Test
+  public void shouldPreProcessSharedResourceOnlyOnce()
+    throws Exception {
+    final AtomicInteger counter = new AtomicInteger();
+    initExecutor(createCountingPreProcessor(counter));
+    final List<Resource> resources = createResources(Resource.create("r1", ResourceType.JS),
+      Resource.create("r2", ResourceType.JS));
+    executor.processAndMerge(resources, true);
+    executor.processAndMerge(resources, true);
+    Assert.assertEquals(2, counter.get());
+    // a different minimize flag uses a different processors chain
+    executor.processAndMerge(resources, false);
+    Assert.assertEquals(4, counter.get());
+    executor.clearCache();
+    executor.processAndMerge(resources, true);
+    Assert.assertEquals(6, counter.get());
+  }
+
+
+  @Test
+  public void shouldIgnoreAggregatedFolderPathOfJsResources()
+    throws Exception {
+    final AtomicInteger counter = new AtomicInteger();
+    initExecutor(createCountingPreProcessor(counter));
+    final List<Resource> jsResources = createResources(Resource.create("r1", ResourceType.JS));
+    final List<Resource> cssResources = createResources(Resource.create("r2", ResourceType.CSS));
+    for (final String folder : new String[] { "/a", "/b" }) {
+      Context.get().setAggregatedFolderPath(folder);
+      executor.processAndMerge(jsResources, true);
+      executor.processAndMerge(cssResources, true);
+    }
+    // the css url rewriting depends on the aggregated folder path, thus css resources are processed for each folder
+    Assert.assertEquals(3, counter.get());
+  }
+
+
+  @Test
+  public void shouldNotReusePreProcessedContentWhenCacheIsDisabled()
+    throws Exception {
+    Context.get().getConfig().setDisableCache(true);
+    final AtomicInteger counter = new AtomicInteger();
+    initExecutor(createCountingPreProcessor(counter));
+    final List<Resource> resources = createResources(Resource.create("r1", ResourceType.JS));
+    executor.processAndMerge(resources, true);
+    executor.processAndMerge(resources, true);
+    Assert.assertEquals(2, counter.get());
+  }
+
+
+  private ResourcePreProcessor createCountingPreProcessor(final AtomicInteger counter) {
+    return new ResourcePreProcessor() {
+      public void process(final Resource resource, final Reader reader, final Writer writer)
+        throws IOException {
+        counter.incrementAndGet();
+        IOUtils.copy(reader, writer);
+      }
+    };
+  }
+
+
+  @Test
+  public void shouldApplyChainedProcessorsInOrder()
+    throws Exception {
+    initExecutor(new StreamingAppenderPreProcessor("a"), createAppenderPreProcessor("b"), createAppenderPreProcessor("c"));
+    final List<Resource> resources = createResources(Resource.create("classpath:3.js", ResourceType.JS));
+    final String content = IOUtils.toString(getClass().getResourceAsStream("/3.js"));
+    Assert.assertEquals(content + "abc", executor.processAndMerge(resources, true));
+  }
+
+
+  private ResourcePreProcessor createAppenderPreProcessor(final String suffix) {
+    return new ResourcePreProcessor() {
+      public void process(final Resource resource, final Reader reader, final Writer writer)
+        throws IOException {
+        writer.write(IOUtils.toString(reader) + suffix);
+      }
+    };
+  }
+
+
+  /**
+   * Consumes the located resource directly, being the first processor of the chain.
+   */
+  private static class StreamingAppenderPreProcessor
+      implements ResourcePreProcessor, StreamingProcessor {
+    private final String suffix;
+
+    public StreamingAppenderPreProcessor(final String suffix) {
+      this.suffix = suffix;
+    }
+
+    public void process(final Resource resource, final Reader reader, final Writer writer)
+      throws IOException {
+      IOUtils.copy(reader, writer);
+      writer.write(suffix);
+    }
+  }
+
+
+  @Test
+  public void shouldRestoreSavedImportedUris()
+    throws Exception {
+    executor.setImportedUris("/css/main.css", Arrays.asList("/css/imported.css", "/css/other.css"));
+    final File file = File.createTempFile("wro4j", ".imports");
+    try {
+      executor.saveImportedUris(file);
+      final PreProcessorExecutor restored = new PreProcessorExecutor();
+      restored.loadImportedUris(file);
+      Assert.assertEquals(Arrays.asList("/css/imported.css", "/css/other.css"),
+        restored.getImportedUris("/css/main.css"));
+      Assert.assertTrue(restored.getImportedUris("/css/imported.css").isEmpty());
+    } finally {
+      FileUtils.deleteQuietly(file);
+    }
+  }
+
+
   @After
   public void tearDown() {
     Context.unset();
@@ -17,6 +17,7 @@ import org.junit.Test;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.processor.impl.CopyrightKeeperProcessorDecorator;
+import ro.isdc.wro.model.resource.processor.impl.PlaceholderProcessor;
 import ro.isdc.wro.model.resource.processor.impl.css.CssMinProcessor;
 import ro.isdc.wro.model.resource.processor.impl.js.JSMinProcessor;
 
@@ -114,4 +115,22 @@ public class TestProcessorsUtils {
     output = ProcessorsUtils.getProcessorsByType(null, input);
     Assert.assertEquals(1, output.size());
   }
+
+
+  @Test
+  public void shouldDescribeProcessorOptions() {
+    final String configuration = ProcessorsUtils.getConfiguration(new PlaceholderProcessor());
+    Assert.assertEquals(configuration, ProcessorsUtils.getConfiguration(new PlaceholderProcessor()));
+    Assert.assertFalse(configuration.equals(ProcessorsUtils.getConfiguration(
+      new PlaceholderProcessor().setIgnoreMissingVariables(false))));
+  }
+
+
+  @Test
+  public void shouldDescribeOptionsOfDecoratedProcessor() {
+    Assert.assertFalse(ProcessorsUtils.getConfiguration(
+      CopyrightKeeperProcessorDecorator.decorate(new PlaceholderProcessor())).equals(
+      ProcessorsUtils.getConfiguration(CopyrightKeeperProcessorDecorator.decorate(
+        new PlaceholderProcessor().setIgnoreMissingVariables(false)))));
+  }
 }
@@ -4,6 +4,7 @@
  */
 package ro.isdc.wro.util;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -83,6 +84,18 @@ public class TestSchedulerHelper {
     Thread.sleep(300);
   }
 
+  @Test
+  public void runOnceShouldRunWhenPeriodIsZero() throws Exception {
+    final CountDownLatch latch = new CountDownLatch(1);
+    createAndRunHelperForTest(new Runnable() {
+      public void run() {
+        latch.countDown();
+      }
+    }, 0, TimeUnit.SECONDS);
+    helper.runOnce();
+    Assert.assertTrue(latch.await(1, TimeUnit.SECONDS));
+  }
+
   @Test
   public void schedulerHelperIsSynchronized() throws Exception {
     helper = SchedulerHelper.create(new DestroyableLazyInitializer<Runnable>() {
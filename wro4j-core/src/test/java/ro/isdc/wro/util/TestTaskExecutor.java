@@ -0,0 +1,128 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import junit.framework.Assert;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ro.isdc.wro.config.Context;
+
+
+/**
+ * Tests the {@link TaskExecutor} class.
+ *
+ * @author Alex Objelean
+ */
+public class TestTaskExecutor {
+  private TaskExecutor executor;
+
+  @Before
+  public void setUp() {
+    Context.set(Context.standaloneContext());
+    Context.get().getConfig().setParallelPreprocessingThreads(1);
+    executor = new TaskExecutor();
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void cannotInvokeNullCallables() {
+    executor.invokeAll(null);
+  }
+
+  @Test
+  public void shouldReturnResultsInOrder()
+    throws Exception {
+    final List<Future<String>> futures = executor.invokeAll(createCallables("a", "b", "c"));
+    Assert.assertEquals(3, futures.size());
+    Assert.assertEquals("a", futures.get(0).get());
+    Assert.assertEquals("b", futures.get(1).get());
+    Assert.assertEquals("c", futures.get(2).get());
+  }
+
+  /**
+   * With a single pool thread, nested tasks would never complete if the callers were only waiting for them.
+   */
+  @Test(timeout = 5000)
+  public void shouldCompleteNestedTasksWithSinglePoolThread()
+    throws Exception {
+    final List<Callable<String>> callables = new ArrayList<Callable<String>>();
+    for (int i = 0; i < 3; i++) {
+      callables.add(new Callable<String>() {
+        public String call()
+          throws Exception {
+          final StringBuilder result = new StringBuilder();
+          for (final Future<String> future : executor.invokeAll(createCallables("x", "y"))) {
+            result.append(future.get());
+          }
+          return result.toString();
+        }
+      });
+    }
+    for (final Future<String> future : executor.invokeAll(callables)) {
+      Assert.assertEquals("xy", future.get());
+    }
+  }
+
+  @Test
+  public void shouldRunTasksWithCallerContext()
+    throws Exception {
+    final Context context = Context.get();
+    final List<Callable<Context>> callables = new ArrayList<Callable<Context>>();
+    for (int i = 0; i < 5; i++) {
+      callables.add(new Callable<Context>() {
+        public Context call() {
+          return Context.get();
+        }
+      });
+    }
+    for (final Future<Context> future : executor.invokeAll(callables)) {
+      Assert.assertSame(context, future.get());
+    }
+  }
+
+  @Test
+  public void shouldRunTasksAfterDestroy()
+    throws Exception {
+    executor.invokeAll(createCallables("a"));
+    executor.destroy();
+    Assert.assertEquals("b", executor.invokeAll(createCallables("b")).get(0).get());
+  }
+
+  @Test
+  public void shouldExecuteTaskAfterDestroy()
+    throws Exception {
+    executor.invokeAll(createCallables("a"));
+    executor.destroy();
+    final FutureTask<String> task = new FutureTask<String>(createCallables("a").get(0));
+    executor.execute(task);
+    Assert.assertTrue(task.isDone());
+    Assert.assertEquals("a", task.get());
+  }
+
+  private List<Callable<String>> createCallables(final String... values) {
+    final List<Callable<String>> callables = new ArrayList<Callable<String>>();
+    for (final String value : values) {
+      callables.add(new Callable<String>() {
+        public String call() {
+          return value;
+        }
+      });
+    }
+    return callables;
+  }
+
+  @After
+  public void tearDown() {
+    executor.destroy();
+    Context.unset();
+  }
+}
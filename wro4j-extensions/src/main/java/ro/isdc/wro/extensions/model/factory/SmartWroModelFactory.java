@@ -9,6 +9,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.commons.io.FilenameUtils;
@@ -20,6 +21,7 @@ import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.manager.factory.standalone.StandaloneContext;
 import ro.isdc.wro.model.WroModel;
 import ro.isdc.wro.model.factory.AbstractWroModelFactory;
+import ro.isdc.wro.model.factory.ModelResourcesAware;
 import ro.isdc.wro.model.factory.WroModelFactory;
 import ro.isdc.wro.model.factory.XmlModelFactory;
 
@@ -142,10 +144,14 @@ public class SmartWroModelFactory extends AbstractWroModelFactory {
       if (autoDetectWroFile) {
         final File file = new File(wroFile.getParentFile(), defaultFileName);
         LOG.debug("\tloading autodetected wro file: " + file);
-        return new FileInputStream(file);
+        final InputStream is = new FileInputStream(file);
+        addModelResourceUri(file.toURI().toString());
+        return is;
       }
       LOG.debug("loading wroFile: " + wroFile);
-      return new FileInputStream(wroFile);
+      final InputStream is = new FileInputStream(wroFile);
+      addModelResourceUri(wroFile.toURI().toString());
+      return is;
     } catch (final FileNotFoundException e) {
       // When auto detect is turned on, do not skip trying.. because the auto detection assume that the wro file name
       // can be wrong.
@@ -188,6 +194,33 @@ public class SmartWroModelFactory extends AbstractWroModelFactory {
   }
 
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Contains the wro files read by this factory and the resources read by the factories it tries.
+   */
+  @Override
+  public Collection<String> getModelResourceUris() {
+    final Collection<String> uris = new ArrayList<String>();
+    addAll(uris, super.getModelResourceUris());
+    if (factoryList != null) {
+      for (final WroModelFactory factory : factoryList) {
+        if (factory instanceof ModelResourcesAware) {
+          addAll(uris, ((ModelResourcesAware)factory).getModelResourceUris());
+        }
+      }
+    }
+    return uris.isEmpty() ? null : uris;
+  }
+
+
+  private static void addAll(final Collection<String> uris, final Collection<String> added) {
+    if (added != null) {
+      uris.addAll(added);
+    }
+  }
+
+
   /**
    * @return string representation of the factory name.
    */
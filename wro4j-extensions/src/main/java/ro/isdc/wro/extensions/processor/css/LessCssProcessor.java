@@ -19,6 +19,7 @@ import ro.isdc.wro.extensions.processor.support.less.LessCss;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
+import ro.isdc.wro.model.resource.processor.DestroyableProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
 import ro.isdc.wro.util.ObjectFactory;
@@ -103,7 +104,7 @@ import ro.isdc.wro.util.ObjectFactory;
  */
 @SupportedResourceType(ResourceType.CSS)
 public class LessCssProcessor
-  implements ResourcePreProcessor, ResourcePostProcessor {
+  implements ResourcePreProcessor, ResourcePostProcessor, DestroyableProcessor {
   private static final Logger LOG = LoggerFactory.getLogger(LessCssProcessor.class);
 
   public static final String ALIAS = "lessCss";
@@ -180,4 +181,11 @@ public class LessCssProcessor
     process(null, reader, writer);
   }
 
+
+  /**
+   * {@inheritDoc}
+   */
+  public void destroy() {
+    enginePool.destroy();
+  }
 }
@@ -20,6 +20,7 @@ import ro.isdc.wro.extensions.processor.support.linter.LinterException;
 import ro.isdc.wro.model.resource.Resource;
 import ro.isdc.wro.model.resource.ResourceType;
 import ro.isdc.wro.model.resource.SupportedResourceType;
+import ro.isdc.wro.model.resource.processor.DestroyableProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePreProcessor;
 import ro.isdc.wro.util.ObjectFactory;
@@ -35,7 +36,7 @@ import ro.isdc.wro.util.ObjectFactory;
  */
 @SupportedResourceType(ResourceType.JS)
 public abstract class AbstractLinterProcessor
-  implements ResourcePreProcessor, ResourcePostProcessor {
+  implements ResourcePreProcessor, ResourcePostProcessor, DestroyableProcessor {
   private static final Logger LOG = LoggerFactory.getLogger(AbstractLinterProcessor.class);
   private ObjectPoolHelper<AbstractLinter> enginePool;
   /**
@@ -111,4 +112,12 @@ public abstract class AbstractLinterProcessor
   protected void onLinterException(final LinterException e, final Resource resource) {
     LOG.error("The following resource: " + resource + " has " + e.getErrors().size() + " errors.", e);
   }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public void destroy() {
+    enginePool.destroy();
+  }
 }
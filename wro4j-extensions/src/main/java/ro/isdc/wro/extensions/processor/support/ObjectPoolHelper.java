@@ -3,10 +3,24 @@
  */
 package ro.isdc.wro.extensions.processor.support;
 
+import java.lang.management.ManagementFactory;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.pool.BasePoolableObjectFactory;
 import org.apache.commons.pool.impl.GenericObjectPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.config.jmx.WroConfiguration;
 import ro.isdc.wro.util.ObjectFactory;
 
 
@@ -14,51 +28,262 @@ import ro.isdc.wro.util.ObjectFactory;
  * A generic aware object pool wrapper. Probably not the best name, but it can be changed later. It helps you to avoid
  * the cast and hides the exception handling by throwing {@link RuntimeException} when borrowing or returning object to
  * the pool fails.
+ * <p>
+ * The pool is created when the first object is requested, using the engine pool settings of the
+ * {@link WroConfiguration} of the current {@link Context} (or the default settings if no context is set). When jmx is
+ * enabled, the usage of the pool is exposed as an MBean until the pool is destroyed. The processors using a pool must
+ * destroy it (see {@link ro.isdc.wro.model.resource.processor.DestroyableProcessor}), otherwise the MBean keeps the
+ * pool and its classloader reachable.
  *
  * @author Alex Objelean
  * @created 10 Nov 2011
  * @since 1.4.2
  */
-public class ObjectPoolHelper<T> {
-  private static final int MAX_ACTIVE = 4;
-  private static final int MAX_IDLE = 1;
+public class ObjectPoolHelper<T>
+    implements ObjectPoolHelperMBean {
+  private static final Logger LOG = LoggerFactory.getLogger(ObjectPoolHelper.class);
   private static final byte EXHAUSTED_ACTION = GenericObjectPool.WHEN_EXHAUSTED_BLOCK;
-  private static final long MAX_WAIT = 1000L * 5L;
+  private static final String DEFAULT_MBEAN_DOMAIN = "wro4j";
+  private final ObjectFactory<T> objectFactory;
   // Allows using the objects from the pool in a thread-safe fashion.
-  private GenericObjectPool objectPool;
+  private volatile GenericObjectPool objectPool;
+  private final AtomicLong createdCount = new AtomicLong();
+  private final AtomicLong borrowedCount = new AtomicLong();
+  private final AtomicLong failedBorrowCount = new AtomicLong();
+  private final AtomicLong totalBorrowWaitTime = new AtomicLong();
+  private final AtomicLong maxBorrowWaitTime = new AtomicLong();
+  private ObjectName objectName;
 
 
   public ObjectPoolHelper(final ObjectFactory<T> objectFactory) {
     Validate.notNull(objectFactory);
-    int maxActive = Math.max(2, Runtime.getRuntime().availableProcessors());
-    objectPool = new GenericObjectPool(new BasePoolableObjectFactory() {
+    this.objectFactory = objectFactory;
+  }
+
+
+  private GenericObjectPool getObjectPool() {
+    if (objectPool == null) {
+      synchronized (this) {
+        if (objectPool == null) {
+          final WroConfiguration config = Context.isContextSet() ? Context.get().getConfig() : new WroConfiguration();
+          objectPool = newObjectPool(config);
+          registerMBean(config);
+        }
+      }
+    }
+    return objectPool;
+  }
+
+
+  /**
+   * Creates the pool using the engine pool settings and creates the objects requested to be available in advance.
+   */
+  private GenericObjectPool newObjectPool(final WroConfiguration config) {
+    final int maxActive = config.getEnginePoolMaxActive() > 0 ? config.getEnginePoolMaxActive() : Math.max(2,
+      Runtime.getRuntime().availableProcessors());
+    final int maxIdle = config.getEnginePoolMaxIdle() > 0 ? Math.min(config.getEnginePoolMaxIdle(), maxActive)
+      : maxActive;
+    // a value <= 0 makes the pool wait indefinitely
+    final long maxWait = Math.max(0, config.getEnginePoolMaxWait());
+    LOG.debug("Creating pool with maxActive: {}, maxIdle: {}, maxWait: {}", new Object[] {
+      maxActive, maxIdle, maxWait
+    });
+    final GenericObjectPool pool = new GenericObjectPool(new BasePoolableObjectFactory() {
       @Override
       public Object makeObject()
         throws Exception {
+        createdCount.incrementAndGet();
         return objectFactory.create();
       }
-    }, maxActive, EXHAUSTED_ACTION, MAX_WAIT, MAX_IDLE);
+    }, maxActive, EXHAUSTED_ACTION, maxWait, maxIdle);
+    final int minIdle = Math.min(config.getEnginePoolMinIdle(), maxIdle);
+    pool.setMinIdle(minIdle);
+    for (int i = 0; i < minIdle; i++) {
+      try {
+        pool.addObject();
+      } catch (final Exception e) {
+        throw new RuntimeException("Cannot create object for the pool", e);
+      }
+    }
+    return pool;
+  }
+
+
+  /**
+   * Registers the pool as an MBean, named after the class using the pool.
+   */
+  private void registerMBean(final WroConfiguration config) {
+    if (!config.isJmxEnabled()) {
+      return;
+    }
+    try {
+      final Class<?> enclosingClass = objectFactory.getClass().getEnclosingClass();
+      final String name = (enclosingClass != null ? enclosingClass : objectFactory.getClass()).getSimpleName();
+      objectName = new ObjectName(String.format("%s:type=%s,name=%s,id=%s", StringUtils.defaultIfEmpty(
+        config.getMbeanName(), DEFAULT_MBEAN_DOMAIN), ObjectPoolHelper.class.getSimpleName(), name,
+        Integer.toHexString(System.identityHashCode(this))));
+      final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+      if (!mbeanServer.isRegistered(objectName)) {
+        mbeanServer.registerMBean(this, objectName);
+      }
+    } catch (final JMException e) {
+      LOG.warn("Cannot register the pool MBean", e);
+    }
   }
 
 
   @SuppressWarnings("unchecked")
   public T getObject() {
+    final GenericObjectPool pool = getObjectPool();
+    final long start = System.nanoTime();
     try {
-      return (T) objectPool.borrowObject();
+      final T object = (T) pool.borrowObject();
+      borrowedCount.incrementAndGet();
+      return object;
+    } catch (final NoSuchElementException e) {
+      failedBorrowCount.incrementAndGet();
+      throw new RuntimeException("Cannot get object from the pool after waiting " + pool.getMaxWait()
+        + "ms, consider increasing the enginePoolMaxActive or enginePoolMaxWait", e);
     } catch (final Exception e) {
-      // should never happen
+      failedBorrowCount.incrementAndGet();
       throw new RuntimeException("Cannot get object from the pool", e);
+    } finally {
+      updateBorrowWaitTime(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+  }
+
+
+  private void updateBorrowWaitTime(final long waitTime) {
+    totalBorrowWaitTime.addAndGet(waitTime);
+    long max = maxBorrowWaitTime.get();
+    while (waitTime > max && !maxBorrowWaitTime.compareAndSet(max, waitTime)) {
+      max = maxBorrowWaitTime.get();
     }
   }
 
 
   public void returnObject(final T engine) {
     Validate.notNull(engine);
+    final GenericObjectPool pool = objectPool;
+    if (pool == null) {
+      LOG.debug("The pool was destroyed, the object is discarded");
+      return;
+    }
     try {
-      objectPool.returnObject(engine);
+      pool.returnObject(engine);
     } catch (final Exception e) {
       // should never happen
       throw new RuntimeException("Cannot get object from the pool", e);
     }
   }
+
+
+  /**
+   * Closes the pool and unregisters its MBean. The objects requested afterwards are taken from a new pool.
+   */
+  public void destroy() {
+    synchronized (this) {
+      if (objectPool != null) {
+        try {
+          objectPool.close();
+        } catch (final Exception e) {
+          LOG.warn("Cannot close the pool", e);
+        }
+        objectPool = null;
+      }
+      if (objectName != null) {
+        try {
+          ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (final JMException e) {
+          LOG.debug("Cannot unregister the pool MBean", e);
+        }
+        objectName = null;
+      }
+    }
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public int getNumActive() {
+    final GenericObjectPool pool = objectPool;
+    return pool != null ? pool.getNumActive() : 0;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public int getNumIdle() {
+    final GenericObjectPool pool = objectPool;
+    return pool != null ? pool.getNumIdle() : 0;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public int getMaxActive() {
+    final GenericObjectPool pool = objectPool;
+    return pool != null ? pool.getMaxActive() : 0;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public int getMaxIdle() {
+    final GenericObjectPool pool = objectPool;
+    return pool != null ? pool.getMaxIdle() : 0;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getMaxWait() {
+    final GenericObjectPool pool = objectPool;
+    return pool != null ? pool.getMaxWait() : 0;
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getCreatedCount() {
+    return createdCount.get();
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getBorrowedCount() {
+    return borrowedCount.get();
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getFailedBorrowCount() {
+    return failedBorrowCount.get();
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getTotalBorrowWaitTime() {
+    return totalBorrowWaitTime.get();
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  public long getMaxBorrowWaitTime() {
+    return maxBorrowWaitTime.get();
+  }
 }
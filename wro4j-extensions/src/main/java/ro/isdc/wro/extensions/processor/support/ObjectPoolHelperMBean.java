@@ -0,0 +1,63 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.extensions.processor.support;
+
+/**
+ * Exposes the usage of an {@link ObjectPoolHelper} over JMX, allowing to choose the engine pool settings.
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public interface ObjectPoolHelperMBean {
+  /**
+   * @return the number of objects currently borrowed from the pool.
+   */
+  int getNumActive();
+
+  /**
+   * @return the number of objects currently kept in the pool, ready to be borrowed.
+   */
+  int getNumIdle();
+
+  /**
+   * @return the maximum number of objects created by the pool.
+   */
+  int getMaxActive();
+
+  /**
+   * @return the maximum number of objects kept in the pool while they are not used.
+   */
+  int getMaxIdle();
+
+  /**
+   * @return the maximum time (in milliseconds) to wait for an object, 0 meaning no limit.
+   */
+  long getMaxWait();
+
+  /**
+   * @return the number of objects created by the pool. A value much bigger than the maximum number of objects means
+   *         that the objects are destroyed and created again, because too few idle objects are kept.
+   */
+  long getCreatedCount();
+
+  /**
+   * @return the number of objects successfully borrowed from the pool.
+   */
+  long getBorrowedCount();
+
+  /**
+   * @return the number of failed attempts to borrow an object, usually because the maximum wait time was exceeded.
+   */
+  long getFailedBorrowCount();
+
+  /**
+   * @return the total time (in milliseconds) spent waiting for objects to be borrowed.
+   */
+  long getTotalBorrowWaitTime();
+
+  /**
+   * @return the longest time (in milliseconds) spent waiting for an object to be borrowed.
+   */
+  long getMaxBorrowWaitTime();
+}
@@ -3,18 +3,19 @@
  */
 package ro.isdc.wro.extensions.processor.support.cjson;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
 
-import org.mozilla.javascript.RhinoException;
-import org.mozilla.javascript.ScriptableObject;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import ro.isdc.wro.WroRuntimeException;
-import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
-import ro.isdc.wro.extensions.script.RhinoUtils;
+import ro.isdc.wro.extensions.script.ScriptEngine;
+import ro.isdc.wro.extensions.script.ScriptEngines;
+import ro.isdc.wro.extensions.script.ScriptLibrary;
+import ro.isdc.wro.extensions.script.ScriptLoader;
 import ro.isdc.wro.util.StopWatch;
-import ro.isdc.wro.util.WroUtil;
 
 
 /**
@@ -25,27 +26,18 @@ import ro.isdc.wro.util.WroUtil;
  */
 public class CJson {
   private static final Logger LOG = LoggerFactory.getLogger(CJson.class);
-  private ScriptableObject scope;
 
 
   /**
-   * Initialize script builder for evaluation.
+   * Initialize the engine for evaluation. The cjson script is evaluated once and shared by all instances.
    */
-  private RhinoScriptBuilder initScriptBuilder() {
-    try {
-      RhinoScriptBuilder builder = null;
-      if (scope == null) {
-        builder = RhinoScriptBuilder.newClientSideAwareChain().addJSON().evaluateChain(
-          getScriptAsStream(), "script.js");
-        scope = builder.getScope();
-      } else {
-        builder = RhinoScriptBuilder.newChain(scope);
+  private ScriptEngine initScriptEngine() {
+    return ScriptEngines.newEngine(getClass(), new ScriptLibrary() {
+      public void load(final ScriptLoader loader)
+        throws IOException {
+        loader.addClientSideEnvironment().addJSON().evaluate(getScriptAsStream(), "script.js");
       }
-      return builder;
-    } catch (final Exception e) {
-      LOG.error("Processing error:" + e.getMessage(), e);
-      throw new WroRuntimeException("Processing error", e);
-    }
+    });
   }
 
 
@@ -63,16 +55,13 @@ public class CJson {
   public String pack(final String data) {
     final StopWatch stopWatch = new StopWatch();
     stopWatch.start("initContext");
-    final RhinoScriptBuilder builder = initScriptBuilder();
+    final ScriptEngine engine = initScriptEngine();
     stopWatch.stop();
 
     stopWatch.start("cjson.pack");
     try {
-      final String execute = "CJSON.stringify(JSON.parse(" + WroUtil.toJSMultiLineString(data) + "));";
-      final Object result = builder.evaluate(execute, "pack");
-      return String.valueOf(result);
-    } catch (final RhinoException e) {
-      throw new WroRuntimeException(RhinoUtils.createExceptionMessage(e), e);
+      return (String)engine.evaluate("CJSON.stringify(JSON.parse(data));", "pack",
+        Collections.singletonMap("data", StringUtils.remove(data, '\r')));
     } finally {
       stopWatch.stop();
       LOG.debug(stopWatch.prettyPrint());
@@ -82,16 +71,13 @@ public class CJson {
   public String unpack(final String data) {
     final StopWatch stopWatch = new StopWatch();
     stopWatch.start("initContext");
-    final RhinoScriptBuilder builder = initScriptBuilder();
+    final ScriptEngine engine = initScriptEngine();
     stopWatch.stop();
 
     stopWatch.start("json.unpack");
     try {
-      final String execute = "JSON.stringify(CJSON.parse(" + WroUtil.toJSMultiLineString(data) + "));";
-      final Object result = builder.evaluate(execute, "unpack");
-      return String.valueOf(result);
-    } catch (final RhinoException e) {
-      throw new WroRuntimeException(RhinoUtils.createExceptionMessage(e), e);
+      return (String)engine.evaluate("JSON.stringify(CJSON.parse(data));", "unpack",
+        Collections.singletonMap("data", StringUtils.remove(data, '\r')));
     } finally {
       stopWatch.stop();
       LOG.debug(stopWatch.prettyPrint());
@@ -5,18 +5,18 @@ package ro.isdc.wro.extensions.processor.support.coffeescript;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
 
-import org.mozilla.javascript.RhinoException;
-import org.mozilla.javascript.ScriptableObject;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.extensions.processor.support.linter.LinterException;
-import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
-import ro.isdc.wro.extensions.script.RhinoUtils;
+import ro.isdc.wro.extensions.script.ScriptEngine;
+import ro.isdc.wro.extensions.script.ScriptEngines;
+import ro.isdc.wro.extensions.script.ScriptLibrary;
+import ro.isdc.wro.extensions.script.ScriptLoader;
 import ro.isdc.wro.util.StopWatch;
-import ro.isdc.wro.util.WroUtil;
 
 
 /**
@@ -33,25 +33,22 @@ import ro.isdc.wro.util.WroUtil;
 public class CoffeeScript {
   private static final Logger LOG = LoggerFactory.getLogger(CoffeeScript.class);
   private String[] options;
-  private ScriptableObject scope;
+  private ScriptEngine engine;
 
 
   /**
-   * Initialize script builder for evaluation.
+   * Initialize the engine for evaluation. The coffee-script library is evaluated once for each instance.
    */
-  private RhinoScriptBuilder initScriptBuilder() {
-    try {
-      RhinoScriptBuilder builder = null;
-      if (scope == null) {
-        builder = RhinoScriptBuilder.newChain().evaluateChain(getCoffeeScriptAsStream(), "coffee-script.js");
-        scope = builder.getScope();
-      } else {
-        builder = RhinoScriptBuilder.newChain(scope);
-      }
-      return builder;
-    } catch (final IOException ex) {
-      throw new IllegalStateException("Failed reading init script", ex);
+  private ScriptEngine initScriptEngine() {
+    if (engine == null) {
+      engine = ScriptEngines.newEngine(null, new ScriptLibrary() {
+        public void load(final ScriptLoader loader)
+          throws IOException {
+          loader.evaluate(getCoffeeScriptAsStream(), "coffee-script.js");
+        }
+      });
     }
+    return engine;
   }
 
 
@@ -73,21 +70,17 @@ public class CoffeeScript {
    * @param data js content to process.
    */
   public String compile(final String data) {
-    try {
-      final StopWatch watch = new StopWatch();
-      watch.start("init");
-      final RhinoScriptBuilder builder = initScriptBuilder();
-      watch.stop();
-      watch.start("compile");
-      final String compileScript = String.format("CoffeeScript.compile(%s, %s);", WroUtil.toJSMultiLineString(data),
-        buildOptions());
-      final String result = (String)builder.evaluate(compileScript, "CoffeeScript.compile");
-      watch.stop();
-      LOG.debug(watch.prettyPrint());
-      return result;
-    } catch (final RhinoException e) {
-      throw new WroRuntimeException(RhinoUtils.createExceptionMessage(e), e);
-    }
+    final StopWatch watch = new StopWatch();
+    watch.start("init");
+    final ScriptEngine engine = initScriptEngine();
+    watch.stop();
+    watch.start("compile");
+    final String compileScript = String.format("CoffeeScript.compile(data, %s);", buildOptions());
+    final String result = (String)engine.evaluate(compileScript, "CoffeeScript.compile", Collections.singletonMap(
+      "data", StringUtils.remove(data, '\r')));
+    watch.stop();
+    LOG.debug(watch.prettyPrint());
+    return result;
   }
 
 
@@ -5,23 +5,21 @@ package ro.isdc.wro.extensions.processor.support.csslint;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
-import org.mozilla.javascript.RhinoException;
-import org.mozilla.javascript.ScriptableObject;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import ro.isdc.wro.WroRuntimeException;
-import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
-import ro.isdc.wro.extensions.script.RhinoUtils;
+import ro.isdc.wro.extensions.script.ScriptEngine;
+import ro.isdc.wro.extensions.script.ScriptEngines;
+import ro.isdc.wro.extensions.script.ScriptLibrary;
+import ro.isdc.wro.extensions.script.ScriptLoader;
 import ro.isdc.wro.util.StopWatch;
-import ro.isdc.wro.util.WroUtil;
-
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 
 
 /**
@@ -42,24 +40,17 @@ public class CssLint {
    * Options to apply to js hint processing
    */
   private String[] options;
-  private ScriptableObject scope;
 
   /**
-   * Initialize script builder for evaluation.
+   * Initialize the engine for evaluation. The csslint script is evaluated once and shared by all instances.
    */
-  private RhinoScriptBuilder initScriptBuilder() {
-    try {
-      RhinoScriptBuilder builder = null;
-      if (scope == null) {
-        builder = RhinoScriptBuilder.newChain().evaluateChain(getScriptAsStream(), DEFAULT_CSSLINT_JS);
-        scope = builder.getScope();
-      } else {
-        builder = RhinoScriptBuilder.newChain(scope);
+  private ScriptEngine initScriptEngine() {
+    return ScriptEngines.newEngine(getClass(), new ScriptLibrary() {
+      public void load(final ScriptLoader loader)
+        throws IOException {
+        loader.addJSON().evaluate(getScriptAsStream(), DEFAULT_CSSLINT_JS);
       }
-      return builder;
-    } catch (final IOException ex) {
-      throw new IllegalStateException("Failed reading init script", ex);
-    }
+    });
   }
 
 
@@ -79,31 +70,27 @@ public class CssLint {
    * @throws CssLintException when parsed css has some kind of problems.
    */
   public void validate(final String data) throws CssLintException {
-    try {
-      final StopWatch watch = new StopWatch();
-      watch.start("init");
-      final RhinoScriptBuilder builder = initScriptBuilder();
-      watch.stop();
-      watch.start("cssLint");
-      LOG.debug("options: {}", Arrays.toString(this.options));
-      final String script = buildCssLintScript(WroUtil.toJSMultiLineString(data), this.options);
-      LOG.debug("script: {}", script);
-      builder.evaluate(script, "CSSLint.verify").toString();
-      final boolean valid = Boolean.parseBoolean(builder.evaluate("result.length == 0", "checkNoErrors").toString());
-      if (!valid) {
-        final String json = builder.addJSON().evaluate("JSON.stringify(result)", "CssLint messages").toString();
-        LOG.debug("json {}", json);
-        final Type type = new TypeToken<List<CssLintError>>() {}.getType();
-        final List<CssLintError> errors = new Gson().fromJson(json, type);
-        LOG.debug("Errors: {}", errors);
-        throw new CssLintException().setErrors(errors);
-      }
-      LOG.debug("isValid: {}", valid);
-      watch.stop();
-      LOG.debug(watch.prettyPrint());
-    } catch (final RhinoException e) {
-      throw new WroRuntimeException(RhinoUtils.createExceptionMessage(e), e);
+    final StopWatch watch = new StopWatch();
+    watch.start("init");
+    final ScriptEngine engine = initScriptEngine();
+    watch.stop();
+    watch.start("cssLint");
+    LOG.debug("options: {}", Arrays.toString(this.options));
+    final String css = StringUtils.remove(data, '\r');
+    final String script = buildCssLintScript("data", this.options);
+    LOG.debug("script: {}", script);
+    // csslint fails when the css has no new line
+    final List<?> messages = (List<?>)engine.evaluate(script, "CSSLint.verify", Collections.singletonMap("data",
+      css.indexOf('\n') < 0 ? css + "\n" : css));
+    final boolean valid = messages.isEmpty();
+    if (!valid) {
+      final List<CssLintError> errors = toErrors(messages);
+      LOG.debug("Errors: {}", errors);
+      throw new CssLintException().setErrors(errors);
     }
+    LOG.debug("isValid: {}", valid);
+    watch.stop();
+    LOG.debug(watch.prettyPrint());
   }
 
 
@@ -129,8 +116,47 @@ public class CssLint {
      */
     final boolean noOptions = options == null || options.length == 0;
     final String optionsAsString = noOptions ? "" : "," + sb.toString();
-    //return "var result = CSSLint.verify(" + data + "," + sb.toString() + ").messages;";
-    return "var result = CSSLint.verify(" + data + optionsAsString + ").messages;";
+    return "CSSLint.verify(" + data + optionsAsString + ").messages;";
+  }
+
+
+  /**
+   * Reads the messages reported by CSSLint.
+   */
+  private List<CssLintError> toErrors(final List<?> messages) {
+    final List<CssLintError> errors = new ArrayList<CssLintError>();
+    for (final Object value : messages) {
+      final Map<?, ?> message = (Map<?, ?>)value;
+      final CssLintError error = new CssLintError();
+      error.setType(getString(message, "type"));
+      error.setMessage(getString(message, "message"));
+      error.setLine(getInt(message, "line"));
+      error.setCol(getInt(message, "col"));
+      error.setEvidence(getString(message, "evidence"));
+      final Map<?, ?> rule = (Map<?, ?>)message.get("rule");
+      if (rule != null) {
+        final CssRule cssRule = new CssRule();
+        cssRule.setId(getString(rule, "id"));
+        cssRule.setName(getString(rule, "name"));
+        cssRule.setDesc(getString(rule, "desc"));
+        cssRule.setBrowsers(getString(rule, "browsers"));
+        error.setRule(cssRule);
+      }
+      errors.add(error);
+    }
+    return errors;
+  }
+
+
+  private static String getString(final Map<?, ?> map, final String name) {
+    final Object value = map.get(name);
+    return value == null ? null : value.toString();
+  }
+
+
+  private static int getInt(final Map<?, ?> map, final String name) {
+    final Object value = map.get(name);
+    return value instanceof Number ? ((Number)value).intValue() : 0;
   }
 
 
@@ -3,18 +3,19 @@
  */
 package ro.isdc.wro.extensions.processor.support.jsonhpack;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
 
-import org.mozilla.javascript.RhinoException;
-import org.mozilla.javascript.ScriptableObject;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import ro.isdc.wro.WroRuntimeException;
-import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
-import ro.isdc.wro.extensions.script.RhinoUtils;
+import ro.isdc.wro.extensions.script.ScriptEngine;
+import ro.isdc.wro.extensions.script.ScriptEngines;
+import ro.isdc.wro.extensions.script.ScriptLibrary;
+import ro.isdc.wro.extensions.script.ScriptLoader;
 import ro.isdc.wro.util.StopWatch;
-import ro.isdc.wro.util.WroUtil;
 
 
 /**
@@ -25,26 +26,22 @@ import ro.isdc.wro.util.WroUtil;
  */
 public class JsonHPack {
   private static final Logger LOG = LoggerFactory.getLogger(JsonHPack.class);
-  private ScriptableObject scope;
+  private ScriptEngine engine;
 
   /**
-   * Initialize script builder for evaluation.
+   * Initialize the engine for evaluation. The json.hpack script keeps in the library the candidate compressions of the
+   * data being packed, thus it is evaluated once for each instance.
    */
-  private RhinoScriptBuilder initScriptBuilder() {
-    try {
-      RhinoScriptBuilder builder = null;
-      if (scope == null) {
-        builder = RhinoScriptBuilder.newClientSideAwareChain().addJSON().evaluateChain(
-          getScriptAsStream(), "script.js");
-        scope = builder.getScope();
-      } else {
-        builder = RhinoScriptBuilder.newChain(scope);
-      }
-      return builder;
-    } catch (final Exception e) {
-      LOG.error("Processing error:" + e.getMessage(), e);
-      throw new WroRuntimeException("Processing error", e);
+  private ScriptEngine initScriptEngine() {
+    if (engine == null) {
+      engine = ScriptEngines.newEngine(null, new ScriptLibrary() {
+        public void load(final ScriptLoader loader)
+          throws IOException {
+          loader.addClientSideEnvironment().addJSON().evaluate(getScriptAsStream(), "script.js");
+        }
+      });
     }
+    return engine;
   }
 
 
@@ -59,7 +56,7 @@ public class JsonHPack {
   public String unpack(final String rawData) {
     final StopWatch stopWatch = new StopWatch();
     stopWatch.start("initContext");
-    final RhinoScriptBuilder builder = initScriptBuilder();
+    final ScriptEngine engine = initScriptEngine();
     stopWatch.stop();
 
     stopWatch.start("json.hunpack");
@@ -71,17 +68,13 @@ public class JsonHPack {
     }
 
     try {
-      final String execute = "JSON.stringify(JSON.hunpack(eval(" + WroUtil.toJSMultiLineString(data) + ")));";
-      final Object result = builder.evaluate(execute, "unpack");
-
-      String resultAsString = String.valueOf(result);
+      String resultAsString = (String)engine.evaluate("JSON.stringify(JSON.hunpack(eval(data)));", "unpack",
+        Collections.singletonMap("data", StringUtils.remove(data, '\r')));
       if (!isEnclosedInDoubleArray) {
         //remove [] characters in which the json is enclosed
         resultAsString = removeEnclosedArray(resultAsString);
       }
       return resultAsString;
-    } catch (final RhinoException e) {
-      throw new WroRuntimeException(RhinoUtils.createExceptionMessage(e), e);
     } finally {
       stopWatch.stop();
       LOG.debug(stopWatch.prettyPrint());
@@ -96,7 +89,7 @@ public class JsonHPack {
 
     final StopWatch stopWatch = new StopWatch();
     stopWatch.start("initContext");
-    final RhinoScriptBuilder builder = initScriptBuilder();
+    final ScriptEngine engine = initScriptEngine();
     stopWatch.stop();
 
     stopWatch.start("json.hpack");
@@ -108,16 +101,13 @@ public class JsonHPack {
     }
 
     try {
-      final String execute = "JSON.stringify(JSON.hpack(eval(" + WroUtil.toJSMultiLineString(data) + "), 4));";
-      final Object result = builder.evaluate(execute, "pack");
-      String resultAsString = String.valueOf(result);
+      String resultAsString = (String)engine.evaluate("JSON.stringify(JSON.hpack(eval(data), 4));", "pack",
+        Collections.singletonMap("data", StringUtils.remove(data, '\r')));
       if (!isEnclosedInArray) {
         //remove [] characters in which the json is enclosed
         resultAsString = removeEnclosedArray(resultAsString);
       }
       return resultAsString;
-    } catch (final RhinoException e) {
-      throw new WroRuntimeException(RhinoUtils.createExceptionMessage(e), e);
     } finally {
       stopWatch.stop();
       LOG.debug(stopWatch.prettyPrint());
@@ -5,17 +5,19 @@ package ro.isdc.wro.extensions.processor.support.less;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
 
-import org.mozilla.javascript.RhinoException;
-import org.mozilla.javascript.ScriptableObject;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
-import ro.isdc.wro.extensions.script.RhinoUtils;
+import ro.isdc.wro.extensions.script.ScriptEngine;
+import ro.isdc.wro.extensions.script.ScriptEngines;
+import ro.isdc.wro.extensions.script.ScriptLibrary;
+import ro.isdc.wro.extensions.script.ScriptLoader;
 import ro.isdc.wro.util.StopWatch;
-import ro.isdc.wro.util.WroUtil;
 
 
 /**
@@ -32,33 +34,32 @@ public class LessCss {
    * The name of the sass script to be used by default.
    */
   private static final String DEFAULT_LESS_JS = "less-1.1.4.min.js";
-  private ScriptableObject scope;
+  private int optimizationLevel = RhinoScriptBuilder.DEFAULT_OPTIMIZATION_LEVEL;
+
 
   /**
-   * Initialize script builder for evaluation.
+   * Sets the optimization level used to compile the less.js library, see
+   * {@link RhinoScriptBuilder#setOptimizationLevel(int)}.
    */
-  private RhinoScriptBuilder initScriptBuilder() {
-    try {
-      RhinoScriptBuilder builder = null;
-      if (scope == null) {
-        final String SCRIPT_INIT = "init.js";
-        final InputStream initStream = getClass().getResourceAsStream(SCRIPT_INIT);
-        final String SCRIPT_RUN = "run.js";
-        final InputStream runStream = getClass().getResourceAsStream(SCRIPT_RUN);
+  public LessCss setOptimizationLevel(final int optimizationLevel) {
+    this.optimizationLevel = optimizationLevel;
+    return this;
+  }
+
 
-        builder = RhinoScriptBuilder.newClientSideAwareChain().evaluateChain(initStream, SCRIPT_INIT).evaluateChain(
-          getScriptAsStream(), DEFAULT_LESS_JS).evaluateChain(runStream, SCRIPT_RUN);
-        scope = builder.getScope();
-      } else {
-        builder = RhinoScriptBuilder.newChain(scope);
+  /**
+   * Initialize the engine for evaluation. The less.js library is evaluated once (for each optimization level) and
+   * shared by all instances.
+   */
+  private ScriptEngine initScriptEngine() {
+    return ScriptEngines.newEngine(Arrays.asList(getClass(), optimizationLevel), new ScriptLibrary() {
+      public void load(final ScriptLoader loader)
+        throws IOException {
+        loader.addClientSideEnvironment().setOptimizationLevel(optimizationLevel).evaluate(
+          getClass().getResourceAsStream("init.js"), "init.js").evaluate(getScriptAsStream(), DEFAULT_LESS_JS).evaluate(
+          getClass().getResourceAsStream("run.js"), "run.js");
       }
-      return builder;
-    } catch (final IOException ex) {
-      throw new IllegalStateException("Failed reading javascript less.js", ex);
-    } catch (final Exception e) {
-      LOG.error("Processing error:" + e.getMessage(), e);
-      throw new WroRuntimeException("Processing error", e);
-    }
+    });
   }
 
   /**
@@ -76,16 +77,13 @@ public class LessCss {
   public String less(final String data) {
     final StopWatch stopWatch = new StopWatch();
     stopWatch.start("initContext");
-    final RhinoScriptBuilder builder = initScriptBuilder();
+    final ScriptEngine engine = initScriptEngine();
     stopWatch.stop();
 
     stopWatch.start("lessify");
     try {
-      final String execute = "lessIt(" + WroUtil.toJSMultiLineString(data) + ");";
-      final Object result = builder.evaluate(execute, "lessIt");
-      return String.valueOf(result);
-    } catch (final RhinoException e) {
-      throw new WroRuntimeException(RhinoUtils.createExceptionMessage(e), e);
+      return (String)engine.evaluate("lessIt(data);", "lessIt", Collections.singletonMap("data", StringUtils.remove(
+        data, '\r')));
     } finally {
       stopWatch.stop();
       LOG.debug(stopWatch.prettyPrint());
@@ -5,24 +5,23 @@ package ro.isdc.wro.extensions.processor.support.linter;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang3.ArrayUtils;
-import org.mozilla.javascript.RhinoException;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.extensions.processor.support.csslint.CssLint;
-import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
-import ro.isdc.wro.extensions.script.RhinoUtils;
+import ro.isdc.wro.extensions.script.ScriptEngine;
+import ro.isdc.wro.extensions.script.ScriptEngines;
+import ro.isdc.wro.extensions.script.ScriptLibrary;
+import ro.isdc.wro.extensions.script.ScriptLoader;
 import ro.isdc.wro.util.StopWatch;
-import ro.isdc.wro.util.WroUtil;
-
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
 
 
 /**
@@ -41,19 +40,16 @@ public abstract class AbstractLinter {
   private String[] options;
 
   /**
-   * Initialize script builder for evaluation.
+   * Initialize the engine for evaluation. The linter script is evaluated once and shared by all instances of the same
+   * class.
    */
-  private RhinoScriptBuilder initScriptBuilder() {
-    try {
-      RhinoScriptBuilder builder = null;
-      // reusing the scope doesn't work here. Get the following error: TypeError: Cannot find function create in object
-      // function Object() { [native code for Object.Object, arity=1] }
-      // TODO investigate why
-      builder = RhinoScriptBuilder.newChain().evaluateChain(getScriptAsStream(), "linter.js");
-      return builder;
-    } catch (final IOException e) {
-      throw new WroRuntimeException("Failed reading init script", e);
-    }
+  private ScriptEngine initScriptEngine() {
+    return ScriptEngines.newEngine(getClass(), new ScriptLibrary() {
+      public void load(final ScriptLoader loader)
+        throws IOException {
+        loader.addJSON().evaluate(getScriptAsStream(), "linter.js");
+      }
+    });
   }
 
   /**
@@ -69,30 +65,61 @@ public abstract class AbstractLinter {
    * @param data js content to process.
    */
   public void validate(final String data) throws LinterException {
-    try {
-      final StopWatch watch = new StopWatch();
-      watch.start("init");
-      final RhinoScriptBuilder builder = initScriptBuilder();
-      watch.stop();
-      watch.start("lint");
-      LOG.debug("options: {}", Arrays.toString(this.options));
-      final String packIt = buildLinterScript(WroUtil.toJSMultiLineString(data), this.options);
-      final boolean valid = Boolean.parseBoolean(builder.evaluate(packIt, "check").toString());
-      if (!valid) {
-        final String json = builder.addJSON().evaluate(String.format("JSON.stringify(%s.errors)", getLinterName()),
-            "stringify errors").toString();
-        LOG.debug("json {}", json);
-        final Type type = new TypeToken<List<LinterError>>() {}.getType();
-        final List<LinterError> errors = new Gson().fromJson(json, type);
-        LOG.debug("errors {}", errors);
-        throw new LinterException().setErrors(errors);
+    final StopWatch watch = new StopWatch();
+    watch.start("init");
+    final ScriptEngine engine = initScriptEngine();
+    watch.stop();
+    watch.start("lint");
+    LOG.debug("options: {}", Arrays.toString(this.options));
+    final String packIt = buildLinterScript("data", this.options);
+    final boolean valid;
+    final List<LinterError> errors;
+    // the linter keeps the state of the last validation in the shared scope
+    synchronized (getClass()) {
+      valid = Boolean.TRUE.equals(engine.evaluate(packIt, "check", Collections.singletonMap("data",
+        StringUtils.remove(data, '\r'))));
+      errors = valid ? null : toErrors((List<?>)engine.evaluate(getLinterName() + ".errors", "errors",
+        Collections.<String, Object> emptyMap()));
+    }
+    if (!valid) {
+      LOG.debug("errors {}", errors);
+      throw new LinterException().setErrors(errors);
+    }
+    LOG.debug("result: {}", valid);
+    watch.stop();
+    LOG.debug(watch.prettyPrint());
+  }
+
+  /**
+   * Reads the errors reported by the linter. The linter adds a null error when it stops before the end of the script.
+   */
+  private List<LinterError> toErrors(final List<?> values) {
+    final List<LinterError> errors = new ArrayList<LinterError>();
+    for (final Object value : values) {
+      LinterError error = null;
+      if (value instanceof Map<?, ?>) {
+        final Map<?, ?> object = (Map<?, ?>)value;
+        error = new LinterError();
+        error.setLine(getInt(object, "line"));
+        error.setCharacter(getInt(object, "character"));
+        error.setReason(getString(object, "reason"));
+        error.setEvidence(getString(object, "evidence"));
       }
-      LOG.debug("result: {}", valid);
-      watch.stop();
-      LOG.debug(watch.prettyPrint());
-    } catch (final RhinoException e) {
-      throw new WroRuntimeException(RhinoUtils.createExceptionMessage(e), e);
+      errors.add(error);
     }
+    return errors;
+  }
+
+
+  private static String getString(final Map<?, ?> map, final String name) {
+    final Object value = map.get(name);
+    return value == null ? null : value.toString();
+  }
+
+
+  private static int getInt(final Map<?, ?> map, final String name) {
+    final Object value = map.get(name);
+    return value instanceof Number ? ((Number)value).intValue() : 0;
   }
 
   /**
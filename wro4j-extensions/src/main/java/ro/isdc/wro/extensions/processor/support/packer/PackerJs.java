@@ -5,16 +5,17 @@ package ro.isdc.wro.extensions.processor.support.packer;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
 
-import org.mozilla.javascript.RhinoException;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import ro.isdc.wro.WroRuntimeException;
-import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
-import ro.isdc.wro.extensions.script.RhinoUtils;
+import ro.isdc.wro.extensions.script.ScriptEngine;
+import ro.isdc.wro.extensions.script.ScriptEngines;
+import ro.isdc.wro.extensions.script.ScriptLibrary;
+import ro.isdc.wro.extensions.script.ScriptLoader;
 import ro.isdc.wro.util.StopWatch;
-import ro.isdc.wro.util.WroUtil;
 
 
 /**
@@ -27,15 +28,15 @@ public class PackerJs {
   private static final Logger LOG = LoggerFactory.getLogger(PackerJs.class);
 
   /**
-   * Initialize script builder for evaluation.
+   * Initialize the engine for evaluation. The packer script modifies its library, thus it is evaluated for each call.
    */
-  private RhinoScriptBuilder initScriptBuilder() {
-    try {
-      return RhinoScriptBuilder.newChain().evaluateChain(getStreamForBase2(), "base2.min.js").evaluateChain(
-        getStreamForPacker(), "packer.min.js");
-    } catch (final IOException ex) {
-      throw new IllegalStateException("Failed reading init script", ex);
-    }
+  private ScriptEngine initScriptEngine() {
+    return ScriptEngines.newEngine(null, new ScriptLibrary() {
+      public void load(final ScriptLoader loader)
+        throws IOException {
+        loader.evaluate(getStreamForBase2(), "base2.min.js").evaluate(getStreamForPacker(), "packer.min.js");
+      }
+    });
   }
 
   /**
@@ -62,25 +63,21 @@ public class PackerJs {
    */
   public String pack(final String data)
     throws IOException {
-    try {
-      final StopWatch watch = new StopWatch();
-      watch.start("init");
-      final RhinoScriptBuilder builder = initScriptBuilder();
-      watch.stop();
-      watch.start("pack");
+    final StopWatch watch = new StopWatch();
+    watch.start("init");
+    final ScriptEngine engine = initScriptEngine();
+    watch.stop();
+    watch.start("pack");
 
-      final String packIt = buildPackScript(WroUtil.toJSMultiLineString(data));
-      final Object result = builder.evaluate(packIt, "packerIt");
-      watch.stop();
-      LOG.debug(watch.prettyPrint());
-      return String.valueOf(result);
-    } catch (final RhinoException e) {
-      throw new WroRuntimeException(RhinoUtils.createExceptionMessage(e), e);
-    }
+    final String result = (String)engine.evaluate(buildPackScript("data"), "packerIt", Collections.singletonMap("data",
+      StringUtils.remove(data, '\r')));
+    watch.stop();
+    LOG.debug(watch.prettyPrint());
+    return result;
   }
 
   /**
-   * @param data script to pack.
+   * @param data the js expression of the script to pack.
    * @return Script used to pack and return the packed result.
    */
   protected String buildPackScript(final String data) {
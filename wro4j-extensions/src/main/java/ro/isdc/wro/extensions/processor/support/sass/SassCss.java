@@ -5,17 +5,17 @@ package ro.isdc.wro.extensions.processor.support.sass;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
 
-import org.mozilla.javascript.RhinoException;
-import org.mozilla.javascript.ScriptableObject;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import ro.isdc.wro.WroRuntimeException;
-import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
-import ro.isdc.wro.extensions.script.RhinoUtils;
+import ro.isdc.wro.extensions.script.ScriptEngine;
+import ro.isdc.wro.extensions.script.ScriptEngines;
+import ro.isdc.wro.extensions.script.ScriptLibrary;
+import ro.isdc.wro.extensions.script.ScriptLoader;
 import ro.isdc.wro.util.StopWatch;
-import ro.isdc.wro.util.WroUtil;
 
 
 /**
@@ -30,26 +30,17 @@ public class SassCss {
    * The name of the sass script to be used by default.
    */
   private static final String DEFAULT_SASS_JS = "sass-0.5.0.min.js";
-  private ScriptableObject scope;
 
   /**
-   * Initialize script builder for evaluation.
+   * Initialize the engine for evaluation. The sass.js library is evaluated once and shared by all instances.
    */
-  private RhinoScriptBuilder initScriptBuilder() {
-    try {
-      RhinoScriptBuilder builder = null;
-      if (scope == null) {
-        final String scriptInit = "var exports = {};";
-        builder = RhinoScriptBuilder.newChain().evaluateChain(scriptInit, "initSass").evaluateChain(
-          getScriptAsStream(), DEFAULT_SASS_JS);
-        scope = builder.getScope();
-      } else {
-        builder = RhinoScriptBuilder.newChain(scope);
+  private ScriptEngine initScriptEngine() {
+    return ScriptEngines.newEngine(getClass(), new ScriptLibrary() {
+      public void load(final ScriptLoader loader)
+        throws IOException {
+        loader.evaluate("var exports = {};", "initSass").evaluate(getScriptAsStream(), DEFAULT_SASS_JS);
       }
-      return builder;
-    } catch (final IOException ex) {
-      throw new WroRuntimeException("Failed reading javascript sass.js", ex);
-    }
+    });
   }
 
   /**
@@ -66,16 +57,13 @@ public class SassCss {
   public String process(final String data) {
     final StopWatch stopWatch = new StopWatch();
     stopWatch.start("initContext");
-    final RhinoScriptBuilder builder = initScriptBuilder();
+    final ScriptEngine engine = initScriptEngine();
     stopWatch.stop();
 
     stopWatch.start("sass rendering");
     try {
-      final String execute = "exports.render(" + WroUtil.toJSMultiLineString(data) + ");";
-      final Object result = builder.evaluate(execute, "sassRender");
-      return String.valueOf(result);
-    } catch (final RhinoException e) {
-      throw new WroRuntimeException(RhinoUtils.createExceptionMessage(e), e);
+      return (String)engine.evaluate("exports.render(data);", "sassRender", Collections.singletonMap("data",
+        StringUtils.remove(data, '\r')));
     } finally {
       stopWatch.stop();
       LOG.debug(stopWatch.prettyPrint());
@@ -5,18 +5,19 @@ package ro.isdc.wro.extensions.processor.support.uglify;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
 
-import org.apache.commons.io.IOUtils;
-import org.mozilla.javascript.RhinoException;
-import org.mozilla.javascript.ScriptableObject;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import ro.isdc.wro.WroRuntimeException;
 import ro.isdc.wro.extensions.script.RhinoScriptBuilder;
-import ro.isdc.wro.extensions.script.RhinoUtils;
+import ro.isdc.wro.extensions.script.ScriptEngine;
+import ro.isdc.wro.extensions.script.ScriptEngines;
+import ro.isdc.wro.extensions.script.ScriptLibrary;
+import ro.isdc.wro.extensions.script.ScriptLoader;
 import ro.isdc.wro.util.StopWatch;
-import ro.isdc.wro.util.WroUtil;
 
 
 /**
@@ -41,7 +42,7 @@ public class UglifyJs {
    * If true, the script is uglified, otherwise it is beautified.
    */
   private final boolean uglify;
-  private ScriptableObject scope;
+  private int optimizationLevel = RhinoScriptBuilder.DEFAULT_OPTIMIZATION_LEVEL;
 
 
   /**
@@ -69,23 +70,28 @@ public class UglifyJs {
   }
 
   /**
-   * Initialize script builder for evaluation.
+   * Sets the optimization level used to compile the uglify script, see
+   * {@link RhinoScriptBuilder#setOptimizationLevel(int)}.
    */
-  private RhinoScriptBuilder initScriptBuilder() {
-    //TODO: Find a way to encapsulate this code
-    RhinoScriptBuilder builder = null;
-    try {
-      if (scope == null) {
-        builder = RhinoScriptBuilder.newChain().addJSON().evaluateChain(getClass().getResourceAsStream("init.js"),
-          "initScript").evaluateChain(getScriptAsStream(), DEFAULT_UGLIFY_JS);
-        scope = builder.getScope();
-      } else {
-        builder = RhinoScriptBuilder.newChain(scope);
+  public UglifyJs setOptimizationLevel(final int optimizationLevel) {
+    this.optimizationLevel = optimizationLevel;
+    return this;
+  }
+
+
+  /**
+   * Initialize the engine for evaluation. The uglify script is evaluated once (for each optimization level) and shared
+   * by all instances.
+   */
+  private ScriptEngine initScriptEngine() {
+    return ScriptEngines.newEngine(Arrays.asList(getClass(), optimizationLevel), new ScriptLibrary() {
+      public void load(final ScriptLoader loader)
+        throws IOException {
+        loader.addJSON().setOptimizationLevel(optimizationLevel).evaluate(getClass().getResourceAsStream("init.js"),
+          "initScript").evaluate(getScriptAsStream(), DEFAULT_UGLIFY_JS).evaluate(
+          getClass().getResourceAsStream("invoke.js"), "invoke.js");
       }
-      return builder;
-    } catch (final IOException ex) {
-      throw new IllegalStateException("Failed initializing js", ex);
-    }
+    });
   }
 
 
@@ -103,23 +109,17 @@ public class UglifyJs {
    */
   public String process(final String code)
     throws IOException {
-    try {
-      final StopWatch watch = new StopWatch();
-      watch.start("init");
-      final RhinoScriptBuilder builder = initScriptBuilder();
-      watch.stop();
-      watch.start(uglify ? "uglify" : "beautify");
-
-      final String originalCode = WroUtil.toJSMultiLineString(code);
-      final String invokeScript = String.format(IOUtils.toString(getClass().getResourceAsStream("invoke.js")),
-        originalCode, !uglify);
-      final Object result = builder.evaluate(invokeScript.toString(), "uglifyIt");
-
-      watch.stop();
-      LOG.debug(watch.prettyPrint());
-      return String.valueOf(result);
-    } catch (final RhinoException e) {
-      throw new WroRuntimeException(RhinoUtils.createExceptionMessage(e), e);
-    }
+    final StopWatch watch = new StopWatch();
+    watch.start("init");
+    final ScriptEngine engine = initScriptEngine();
+    watch.stop();
+    watch.start(uglify ? "uglify" : "beautify");
+
+    final String result = (String)engine.evaluate(String.format("uglifyIt(data, %s);", !uglify), "uglifyIt",
+      Collections.singletonMap("data", StringUtils.remove(code, '\r')));
+
+    watch.stop();
+    LOG.debug(watch.prettyPrint());
+    return result;
   }
 }
@@ -50,8 +50,11 @@ function ast_squeeze_more(ast) {
 
 exports.ast_squeeze_more = ast_squeeze_more;
 
-(function() {
-  var orig_code = %s;
+/**
+ * @param orig_code the code to process.
+ * @param beautify true for beautify and false for uglify.
+ */
+function uglifyIt(orig_code, beautify) {
   //parse code and get the initial AST
   var ast = jsp.parse(orig_code);
   //get a new AST with mangled names
@@ -59,9 +62,8 @@ exports.ast_squeeze_more = ast_squeeze_more;
   //get an AST with compression optimizations
   ast = exports.ast_squeeze(ast);
   ast = exports.ast_squeeze_more(ast);
-  // the second argument is true for uglify and false for beautify.
   //compressed code here
   return exports.gen_code(ast, {
-	beautify: %s,
+	beautify: beautify
   });
-})();
+};
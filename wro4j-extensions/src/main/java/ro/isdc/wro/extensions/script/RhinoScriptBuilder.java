@@ -7,11 +7,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.Validate;
 import org.mozilla.javascript.Context;
+import org.mozilla.javascript.EvaluatorException;
 import org.mozilla.javascript.JavaScriptException;
+import org.mozilla.javascript.Script;
 import org.mozilla.javascript.ScriptableObject;
 import org.mozilla.javascript.tools.ToolErrorReporter;
 import org.slf4j.Logger;
@@ -21,22 +25,44 @@ import org.slf4j.LoggerFactory;
 /**
  * Used to evaluate javascript on the serverside using rhino javascript engine. Encapsulate and hides all implementation
  * details used by rhino to evaluate javascript on the serverside.
+ * <p/>
+ * The libraries used by the script engines are expensive to evaluate. They can be evaluated once in a sealed scope,
+ * shared by the builders evaluating their scripts in a child scope (see {@link #newChain(Object, ScopeInitializer)}).
  *
  * @author Alex Objelean
  */
 public class RhinoScriptBuilder {
   private static final Logger LOG = LoggerFactory.getLogger(RhinoScriptBuilder.class);
+  /**
+   * The optimization level used by default: interpreted mode, which has no limit on the size of the compiled code.
+   */
+  public static final int DEFAULT_OPTIMIZATION_LEVEL = -1;
+  /**
+   * The maximum optimization level supported by rhino.
+   */
+  public static final int MAX_OPTIMIZATION_LEVEL = 9;
+  /**
+   * The sealed scopes shared by the builders, by key.
+   */
+  private static final ConcurrentMap<Object, ScriptableObject> SHARED_SCOPES =
+    new ConcurrentHashMap<Object, ScriptableObject>();
+  /**
+   * The scripts bundled with the builder, compiled once and reused by all the contexts.
+   */
+  private static final ConcurrentMap<String, Script> BUNDLED_SCRIPTS = new ConcurrentHashMap<String, Script>();
   private Context context;
   private final ScriptableObject scope;
+  private int optimizationLevel = DEFAULT_OPTIMIZATION_LEVEL;
 
 
   private RhinoScriptBuilder() {
-    this(null);
+    this.scope = createContext();
   }
 
 
-  private RhinoScriptBuilder(final ScriptableObject scope) {
-    this.scope = createContext(scope);
+  private RhinoScriptBuilder(final ScriptableObject sharedScope) {
+    Validate.notNull(sharedScope);
+    this.scope = createChildScope(sharedScope);
   }
 
 
@@ -51,22 +77,97 @@ public class RhinoScriptBuilder {
   /**
    * Initialize the context.
    */
-  private ScriptableObject createContext(final ScriptableObject initialScope) {
+  private ScriptableObject createContext() {
     initContext();
-    context.setOptimizationLevel(-1);
-    // TODO redirect errors from System.err to LOG.error()
-    context.setErrorReporter(new ToolErrorReporter(false));
-    context.setLanguageVersion(Context.VERSION_1_7);
-    InputStream script = null;
-    final ScriptableObject scope = (ScriptableObject) context.initStandardObjects(initialScope);
+    final ScriptableObject scope = context.initStandardObjects();
     try {
-      script = getClass().getResourceAsStream("commons.js");
-      context.evaluateReader(scope, new InputStreamReader(script), "common.js", 1, null);
+      getBundledScript("commons.js").exec(context, scope);
     } catch (final IOException e) {
       throw new RuntimeException("Problem while evaluationg commons script.", e);
+    }
+    return scope;
+  }
+
+
+  /**
+   * @return the bundled script, compiled (in interpreted mode) when first requested.
+   */
+  private Script getBundledScript(final String name)
+    throws IOException {
+    Script script = BUNDLED_SCRIPTS.get(name);
+    if (script == null) {
+      final InputStream stream = getClass().getResourceAsStream(name);
+      try {
+        script = compile(IOUtils.toString(new InputStreamReader(stream)), name, DEFAULT_OPTIMIZATION_LEVEL);
+      } finally {
+        IOUtils.closeQuietly(stream);
+      }
+      BUNDLED_SCRIPTS.putIfAbsent(name, script);
+    }
+    return script;
+  }
+
+
+  /**
+   * Compiles the script using the provided optimization level. A script too large to be compiled into classes is
+   * compiled in interpreted mode.
+   */
+  private Script compile(final String source, final String sourceName, final int level) {
+    initContext();
+    try {
+      context.setOptimizationLevel(level);
+      return context.compileString(source, sourceName, 1, null);
+    } catch (final EvaluatorException e) {
+      if (level == DEFAULT_OPTIMIZATION_LEVEL) {
+        throw e;
+      }
+      LOG.debug("Cannot compile {} with optimization level {}, it will be interpreted: {}", new Object[] {
+        sourceName, level, e.getMessage()
+      });
+      context.setOptimizationLevel(DEFAULT_OPTIMIZATION_LEVEL);
+      return context.compileString(source, sourceName, 1, null);
     } finally {
-      IOUtils.closeQuietly(script);
+      context.setOptimizationLevel(DEFAULT_OPTIMIZATION_LEVEL);
     }
+  }
+
+
+  /**
+   * Sets the optimization level used to compile the scripts evaluated by the chain methods: -1 (the default) for
+   * interpreted mode, or 0 to 9 for compiling the scripts into classes, which are slower to compile but run faster. The
+   * scripts evaluated by {@link #evaluate(String, String)} are always interpreted, since each of them is used only once.
+   *
+   * @return {@link RhinoScriptBuilder} used to chain evaluation of the scripts.
+   */
+  public RhinoScriptBuilder setOptimizationLevel(final int optimizationLevel) {
+    Validate.isTrue(optimizationLevel >= DEFAULT_OPTIMIZATION_LEVEL && optimizationLevel <= MAX_OPTIMIZATION_LEVEL,
+      "Invalid optimization level: " + optimizationLevel);
+    this.optimizationLevel = optimizationLevel;
+    return this;
+  }
+
+
+  /**
+   * Creates an empty scope having the shared scope as prototype: the variables defined by the evaluated scripts are
+   * kept in the new scope, while the objects of the shared scope are found through the prototype chain.
+   */
+  private ScriptableObject createChildScope(final ScriptableObject sharedScope) {
+    initContext();
+    final ScriptableObject scope = (ScriptableObject)context.newObject(sharedScope);
+    scope.setPrototype(sharedScope);
+    scope.setParentScope(null);
+    return scope;
+  }
+
+
+  /**
+   * Seals the scope of this builder, allowing it to be shared by the builders created with
+   * {@link #newChain(ScriptableObject)}: their scripts cannot add or remove the top-level variables of a sealed scope.
+   *
+   * @return the sealed scope.
+   */
+  public ScriptableObject sealScope() {
+    scope.sealObject();
     return scope;
   }
 
@@ -78,9 +179,8 @@ public class RhinoScriptBuilder {
    */
   public RhinoScriptBuilder addClientSideEnvironment() {
     try {
-      final String SCRIPT_ENV = "env.rhino.min.js";
-      final InputStream script = getClass().getResourceAsStream(SCRIPT_ENV);
-      evaluateChain(script, SCRIPT_ENV);
+      initContext();
+      getBundledScript("env.rhino.min.js").exec(context, scope);
       return this;
     } catch (final IOException e) {
       throw new RuntimeException("Couldn't initialize env.rhino script", e);
@@ -90,9 +190,8 @@ public class RhinoScriptBuilder {
 
   public RhinoScriptBuilder addJSON() {
     try {
-      final String SCRIPT_ENV = "json2.min.js";
-      final InputStream script = getClass().getResourceAsStream(SCRIPT_ENV);
-      evaluateChain(script, SCRIPT_ENV);
+      initContext();
+      getBundledScript("json2.min.js").exec(context, scope);
       return this;
     } catch (final IOException e) {
       throw new RuntimeException("Couldn't initialize json2.min.js script", e);
@@ -100,6 +199,22 @@ public class RhinoScriptBuilder {
   }
 
 
+  /**
+   * Defines a top-level variable in the scope of this builder. A java string is available to the scripts as a js
+   * string, thus large inputs can be processed without being converted into a script literal and parsed again.
+   *
+   * @param name the name of the variable.
+   * @param value the value of the variable.
+   * @return {@link RhinoScriptBuilder} used to chain evaluation of the scripts.
+   */
+  public RhinoScriptBuilder addVariable(final String name, final Object value) {
+    Validate.notNull(name);
+    // define the variable in this scope, even if a shared scope has a variable with the same name
+    scope.put(name, scope, Context.javaToJS(value, scope));
+    return this;
+  }
+
+
   /**
    * Evaluates a script and return {@link RhinoScriptBuilder} for a chained script evaluation.
    *
@@ -111,9 +226,8 @@ public class RhinoScriptBuilder {
   public RhinoScriptBuilder evaluateChain(final InputStream stream, final String sourceName)
     throws IOException {
     Validate.notNull(stream);
-    initContext();
     try {
-      context.evaluateReader(scope, new InputStreamReader(stream), sourceName, 1, null);
+      compile(IOUtils.toString(new InputStreamReader(stream)), sourceName, optimizationLevel).exec(context, scope);
       return this;
     } catch (final RuntimeException e) {
       LOG.error("Exception caught", e);
@@ -127,6 +241,12 @@ public class RhinoScriptBuilder {
   public void initContext() {
     if (Context.getCurrentContext() == null) {
       context = Context.enter();
+      context.setOptimizationLevel(-1);
+      // TODO redirect errors from System.err to LOG.error()
+      context.setErrorReporter(new ToolErrorReporter(false));
+      context.setLanguageVersion(Context.VERSION_1_7);
+    } else {
+      context = Context.getCurrentContext();
     }
   }
 
@@ -141,8 +261,7 @@ public class RhinoScriptBuilder {
    */
   public RhinoScriptBuilder evaluateChain(final String script, final String sourceName) {
     Validate.notNull(script);
-    initContext();
-    context.evaluateString(scope, script, sourceName, 1, null);
+    compile(script, sourceName, optimizationLevel).exec(context, scope);
     return this;
   }
 
@@ -199,8 +318,48 @@ public class RhinoScriptBuilder {
   }
 
 
-  public static RhinoScriptBuilder newChain(final ScriptableObject scope) {
-    return new RhinoScriptBuilder(scope);
+  /**
+   * @param sharedScope the scope containing the evaluated libraries, it is not modified by the created builder.
+   * @return {@link RhinoScriptBuilder} evaluating the scripts in a child scope of the shared scope.
+   */
+  public static RhinoScriptBuilder newChain(final ScriptableObject sharedScope) {
+    return new RhinoScriptBuilder(sharedScope);
+  }
+
+
+  /**
+   * Creates a builder using the shared scope identified by the key. The shared scope is created by the initializer
+   * and sealed when first requested, thus the libraries are evaluated once, no matter how many engines use them.
+   *
+   * @param key identifies the shared scope, usually the class of the engine using it.
+   * @param initializer evaluates the libraries in the shared scope.
+   * @return {@link RhinoScriptBuilder} evaluating the scripts in a child scope of the shared scope.
+   */
+  public static RhinoScriptBuilder newChain(final Object key, final ScopeInitializer initializer)
+    throws IOException {
+    return newChain(getSharedScope(key, initializer));
+  }
+
+
+  /**
+   * @param key identifies the shared scope.
+   * @param initializer evaluates the libraries in the shared scope, used only if the scope is not created yet.
+   * @return the sealed scope identified by the key.
+   */
+  public static ScriptableObject getSharedScope(final Object key, final ScopeInitializer initializer)
+    throws IOException {
+    Validate.notNull(key);
+    Validate.notNull(initializer);
+    ScriptableObject sharedScope = SHARED_SCOPES.get(key);
+    if (sharedScope == null) {
+      LOG.debug("Initializing shared scope for: {}", key);
+      sharedScope = initializer.initialize().sealScope();
+      final ScriptableObject existing = SHARED_SCOPES.putIfAbsent(key, sharedScope);
+      if (existing != null) {
+        sharedScope = existing;
+      }
+    }
+    return sharedScope;
   }
 
 
@@ -210,4 +369,16 @@ public class RhinoScriptBuilder {
   public static RhinoScriptBuilder newClientSideAwareChain() {
     return new RhinoScriptBuilder().addClientSideEnvironment();
   }
+
+
+  /**
+   * Evaluates the libraries of a shared scope, see {@link RhinoScriptBuilder#newChain(Object, ScopeInitializer)}.
+   */
+  public interface ScopeInitializer {
+    /**
+     * @return the builder holding the scope where the libraries were evaluated.
+     */
+    RhinoScriptBuilder initialize()
+      throws IOException;
+  }
 }
@@ -0,0 +1,130 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.extensions.script;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import org.apache.commons.lang3.Validate;
+import org.mozilla.javascript.RhinoException;
+import org.mozilla.javascript.ScriptableObject;
+
+import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.extensions.script.RhinoScriptBuilder.ScopeInitializer;
+
+
+/**
+ * Creates engines using the bundled rhino. The libraries loaded with a key are evaluated once in a sealed scope, shared
+ * by all the engines created with the same key (see {@link RhinoScriptBuilder#getSharedScope(Object, ScopeInitializer)}
+ * ). Each script is evaluated in a child scope of the libraries scope.
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public class RhinoScriptEngineFactory
+    implements ScriptEngineFactory {
+  /**
+   * {@inheritDoc}
+   */
+  public ScriptEngine newEngine(final Object key, final ScriptLibrary library) {
+    Validate.notNull(library);
+    final ScopeInitializer initializer = new ScopeInitializer() {
+      public RhinoScriptBuilder initialize()
+        throws IOException {
+        final RhinoScriptLoader loader = new RhinoScriptLoader();
+        library.load(loader);
+        return loader.builder;
+      }
+    };
+    try {
+      final ScriptableObject scope = key != null ? RhinoScriptBuilder.getSharedScope(key, initializer)
+        : initializer.initialize().getScope();
+      return new RhinoScriptEngine(scope);
+    } catch (final IOException e) {
+      throw new WroRuntimeException("Cannot load the script library", e);
+    } catch (final RhinoException e) {
+      throw new WroRuntimeException(RhinoUtils.createExceptionMessage(e), e);
+    }
+  }
+
+
+  /**
+   * Evaluates the scripts in child scopes of the libraries scope.
+   */
+  private static class RhinoScriptEngine
+      implements ScriptEngine {
+    private final ScriptableObject scope;
+
+    public RhinoScriptEngine(final ScriptableObject scope) {
+      this.scope = scope;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Object evaluate(final String script, final String sourceName, final Map<String, ?> variables) {
+      Validate.notNull(variables);
+      final RhinoScriptBuilder builder = RhinoScriptBuilder.newChain(scope);
+      for (final Map.Entry<String, ?> variable : variables.entrySet()) {
+        builder.addVariable(variable.getKey(), variable.getValue());
+      }
+      try {
+        return RhinoUtils.toJava(builder.evaluate(script, sourceName));
+      } catch (final RhinoException e) {
+        throw new WroRuntimeException(RhinoUtils.createExceptionMessage(e), e);
+      }
+    }
+  }
+
+
+  /**
+   * Loads the libraries using a {@link RhinoScriptBuilder}.
+   */
+  private static class RhinoScriptLoader
+      implements ScriptLoader {
+    private final RhinoScriptBuilder builder = RhinoScriptBuilder.newChain();
+
+    /**
+     * {@inheritDoc}
+     */
+    public ScriptLoader addClientSideEnvironment() {
+      builder.addClientSideEnvironment();
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public ScriptLoader addJSON() {
+      builder.addJSON();
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public ScriptLoader setOptimizationLevel(final int optimizationLevel) {
+      builder.setOptimizationLevel(optimizationLevel);
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public ScriptLoader evaluate(final InputStream stream, final String sourceName)
+      throws IOException {
+      builder.evaluateChain(stream, sourceName);
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public ScriptLoader evaluate(final String script, final String sourceName) {
+      builder.evaluateChain(script, sourceName);
+      return this;
+    }
+  }
+}
@@ -3,18 +3,25 @@
  */
 package ro.isdc.wro.extensions.script;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.mozilla.javascript.Function;
 import org.mozilla.javascript.JavaScriptException;
 import org.mozilla.javascript.NativeArray;
 import org.mozilla.javascript.RhinoException;
+import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.Undefined;
+import org.mozilla.javascript.Wrapper;
 
 
 
@@ -48,6 +55,41 @@ public class RhinoUtils {
     return message;
   }
 
+  /**
+   * Recursively convert from native Rhino to java: arrays are converted to {@link List}, objects to {@link Map} and
+   * wrapped java objects are unwrapped. Undefined values and functions are converted to null.
+   *
+   * @param object
+   *          A Rhino native object
+   * @return the java object
+   */
+  public static Object toJava(final Object object) {
+    if (object == null || object instanceof Undefined || object == Scriptable.NOT_FOUND || object instanceof Function) {
+      return null;
+    } else if (object instanceof Wrapper) {
+      return ((Wrapper) object).unwrap();
+    } else if (object instanceof NativeArray) {
+      final NativeArray array = (NativeArray) object;
+      final List<Object> list = new ArrayList<Object>();
+      for (int i = 0; i < array.getLength(); i++) {
+        list.add(toJava(ScriptableObject.getProperty(array, i)));
+      }
+      return list;
+    } else if (object instanceof Scriptable) {
+      final Scriptable scriptable = (Scriptable) object;
+      final Map<String, Object> map = new LinkedHashMap<String, Object>();
+      for (final Object id : scriptable.getIds()) {
+        final Object value = id instanceof Integer ? ScriptableObject.getProperty(scriptable, (Integer) id)
+            : ScriptableObject.getProperty(scriptable, id.toString());
+        map.put(id.toString(), toJava(value));
+      }
+      return map;
+    } else if (object instanceof CharSequence) {
+      return object.toString();
+    }
+    return object;
+  }
+
   /**
    * Recursively convert from native Rhino to JSON.
    * <p>
@@ -0,0 +1,32 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.extensions.script;
+
+import java.util.List;
+import java.util.Map;
+
+import ro.isdc.wro.WroRuntimeException;
+
+
+/**
+ * A javascript engine used by the processors implemented in javascript (like less or uglify), hiding the library used
+ * to run the scripts. The engines are created by a {@link ScriptEngineFactory}.
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public interface ScriptEngine {
+  /**
+   * Evaluates a script in a new scope having access to the libraries of the engine. The variables defined by the
+   * script are not visible to the scripts evaluated afterwards.
+   *
+   * @param script the script to evaluate.
+   * @param sourceName the name of the script, used for error reporting.
+   * @param variables the top-level variables available to the script. A java string is available as a js string.
+   * @return the result of the script converted to java: a {@link String}, {@link Boolean} or {@link Number} for the js
+   *         primitives, a {@link List} for an array, a {@link Map} for an object and null for null or undefined.
+   * @throws WroRuntimeException if the evaluation fails.
+   */
+  Object evaluate(String script, String sourceName, Map<String, ?> variables);
+}
@@ -0,0 +1,28 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.extensions.script;
+
+import ro.isdc.wro.WroRuntimeException;
+
+
+/**
+ * Creates the {@link ScriptEngine}s used by the processors implemented in javascript. The factory used by default is
+ * {@link RhinoScriptEngineFactory}, a different implementation can be set with {@link ScriptEngines}.
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public interface ScriptEngineFactory {
+  /**
+   * Creates an engine having access to the provided libraries. The libraries are expensive to load, thus they should be
+   * loaded once for all the engines created with the same key.
+   *
+   * @param key identifies the libraries, usually the class of the processor using them. When null, the libraries are
+   *        loaded for the created engine only and the scripts evaluated by the engine can modify them.
+   * @param library loads the scripts used by the engine.
+   * @return the created {@link ScriptEngine}.
+   * @throws WroRuntimeException if the libraries cannot be loaded.
+   */
+  ScriptEngine newEngine(Object key, ScriptLibrary library);
+}
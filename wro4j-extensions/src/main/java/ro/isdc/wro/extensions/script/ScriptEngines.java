@@ -0,0 +1,79 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.extensions.script;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ro.isdc.wro.WroRuntimeException;
+
+
+/**
+ * Holds the {@link ScriptEngineFactory} used by the processors implemented in javascript. By default the bundled rhino
+ * is used ({@link RhinoScriptEngineFactory}). A different engine can be plugged without changing the processors, by
+ * setting the {@link #FACTORY_CLASS_PROPERTY} system property to the name of a {@link ScriptEngineFactory}
+ * implementation or by calling {@link #setFactory(ScriptEngineFactory)}.
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public final class ScriptEngines {
+  private static final Logger LOG = LoggerFactory.getLogger(ScriptEngines.class);
+  /**
+   * The system property containing the fully qualified class name of the {@link ScriptEngineFactory} to use.
+   */
+  public static final String FACTORY_CLASS_PROPERTY = "wro4j.scriptEngineFactory";
+  private static volatile ScriptEngineFactory factory;
+
+
+  private ScriptEngines() {
+  }
+
+
+  /**
+   * @return the {@link ScriptEngineFactory} used by the processors.
+   */
+  public static ScriptEngineFactory getFactory() {
+    if (factory == null) {
+      synchronized (ScriptEngines.class) {
+        if (factory == null) {
+          factory = newFactory(System.getProperty(FACTORY_CLASS_PROPERTY));
+        }
+      }
+    }
+    return factory;
+  }
+
+
+  private static ScriptEngineFactory newFactory(final String className) {
+    if (StringUtils.isEmpty(className)) {
+      return new RhinoScriptEngineFactory();
+    }
+    LOG.debug("Using script engine factory: {}", className);
+    try {
+      return (ScriptEngineFactory)Thread.currentThread().getContextClassLoader().loadClass(className).newInstance();
+    } catch (final Exception e) {
+      throw new WroRuntimeException("Exception while loading ScriptEngineFactory class", e);
+    }
+  }
+
+
+  /**
+   * @param factory the {@link ScriptEngineFactory} used by the processors. Already created engines are not affected.
+   */
+  public static void setFactory(final ScriptEngineFactory factory) {
+    Validate.notNull(factory);
+    ScriptEngines.factory = factory;
+  }
+
+
+  /**
+   * Creates an engine using the current factory, see {@link ScriptEngineFactory#newEngine(Object, ScriptLibrary)}.
+   */
+  public static ScriptEngine newEngine(final Object key, final ScriptLibrary library) {
+    return getFactory().newEngine(key, library);
+  }
+}
@@ -0,0 +1,23 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.extensions.script;
+
+import java.io.IOException;
+
+
+/**
+ * Loads the libraries used by a {@link ScriptEngine}, see {@link ScriptEngineFactory#newEngine(Object, ScriptLibrary)}.
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public interface ScriptLibrary {
+  /**
+   * Loads the scripts of the library, in the order they must be evaluated.
+   *
+   * @param loader evaluates the scripts in the scope of the created engine.
+   */
+  void load(ScriptLoader loader)
+    throws IOException;
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.extensions.script;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+
+/**
+ * Evaluates the scripts of a {@link ScriptLibrary}, provided by the {@link ScriptEngineFactory} creating the engine.
+ *
+ * @author Alex Objelean
+ * @since 1.4.2
+ */
+public interface ScriptLoader {
+  /**
+   * Adds a client side environment (window, document, etc.) required by the scripts written for the browser.
+   *
+   * @return this {@link ScriptLoader}, used to chain the calls.
+   */
+  ScriptLoader addClientSideEnvironment();
+
+  /**
+   * Adds the JSON object, for the engines which don't provide it.
+   *
+   * @return this {@link ScriptLoader}, used to chain the calls.
+   */
+  ScriptLoader addJSON();
+
+  /**
+   * Hints the optimization level used to compile the scripts loaded afterwards, see
+   * {@link RhinoScriptBuilder#setOptimizationLevel(int)}. The engines which don't support it ignore this value.
+   *
+   * @return this {@link ScriptLoader}, used to chain the calls.
+   */
+  ScriptLoader setOptimizationLevel(int optimizationLevel);
+
+  /**
+   * @param stream the stream of the script to evaluate, closed after the evaluation.
+   * @param sourceName the name of the script, used for error reporting.
+   * @return this {@link ScriptLoader}, used to chain the calls.
+   */
+  ScriptLoader evaluate(InputStream stream, String sourceName)
+    throws IOException;
+
+  /**
+   * @param script the script to evaluate.
+   * @param sourceName the name of the script, used for error reporting.
+   * @return this {@link ScriptLoader}, used to chain the calls.
+   */
+  ScriptLoader evaluate(String script, String sourceName);
+}
@@ -6,12 +6,20 @@ package ro.isdc.wro.extensions.processor;
 import java.io.File;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
 import java.net.URL;
 import java.util.concurrent.Callable;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import junit.framework.Assert;
+
 import org.junit.Test;
 
 import ro.isdc.wro.WroRuntimeException;
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.config.jmx.WroConfiguration;
 import ro.isdc.wro.extensions.processor.js.CJsonProcessor;
 import ro.isdc.wro.model.resource.processor.ResourcePostProcessor;
 import ro.isdc.wro.util.WroTestUtils;
@@ -58,6 +66,44 @@ public class TestCJsonProcessor {
   }
 
 
+  @Test
+  public void shouldUnregisterEnginePoolWhenDestroyed()
+      throws Exception {
+    final WroConfiguration config = new WroConfiguration();
+    config.setMbeanName("cjsonTest");
+    Context.set(Context.standaloneContext(), config);
+    try {
+      final CJsonProcessor processor = new CJsonProcessor(true);
+      processor.process(new StringReader("{\"p\" : 1}"), new StringWriter());
+      final ObjectName poolNames = new ObjectName("cjsonTest:type=ObjectPoolHelper,name=CJsonProcessor,*");
+      final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+      Assert.assertEquals(1, mbeanServer.queryNames(poolNames, null).size());
+      processor.destroy();
+      Assert.assertTrue(mbeanServer.queryNames(poolNames, null).isEmpty());
+    } finally {
+      Context.unset();
+    }
+  }
+
+
+  @Test
+  public void shouldNotShareStateBetweenConcurrentProcessings()
+      throws Exception {
+    final String[] inputs = new String[] {
+      "[{\"a\": 1, \"b\": 2}, {\"a\": 3, \"b\": 4}]", "{\"name\": \"x\", \"items\": [{\"c\": 1}, {\"c\": 2}]}",
+      "{\"p\" : 1}"
+    };
+    WroTestUtils.compareProcessedConcurrently(CJsonProcessor.packProcessor(), inputs);
+    final String[] packed = new String[inputs.length];
+    for (int i = 0; i < inputs.length; i++) {
+      final StringWriter writer = new StringWriter();
+      CJsonProcessor.packProcessor().process(new StringReader(inputs[i]), writer);
+      packed[i] = writer.toString();
+    }
+    WroTestUtils.compareProcessedConcurrently(CJsonProcessor.unpackProcessor(), packed);
+  }
+
+
   @Test
   public void shouldBeThreadSafe() throws Exception {
     genericThreadSafeTest(true);
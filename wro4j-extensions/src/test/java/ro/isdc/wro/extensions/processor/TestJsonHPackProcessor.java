@@ -49,6 +49,24 @@ public class TestJsonHPackProcessor {
   }
 
 
+  @Test
+  public void shouldNotShareStateBetweenConcurrentProcessings()
+      throws Exception {
+    final String[] inputs = new String[] {
+      "[{\"a\": 1, \"b\": 2}, {\"a\": 3, \"b\": 4}]", "[{\"name\": \"x\", \"age\": 10, \"city\": \"y\"}]",
+      "[{\"p\": 1}, {\"p\": 2}, {\"p\": 3}]"
+    };
+    WroTestUtils.compareProcessedConcurrently(JsonHPackProcessor.packProcessor(), inputs);
+    final String[] packed = new String[inputs.length];
+    for (int i = 0; i < inputs.length; i++) {
+      final StringWriter writer = new StringWriter();
+      JsonHPackProcessor.packProcessor().process(new StringReader(inputs[i]), writer);
+      packed[i] = writer.toString();
+    }
+    WroTestUtils.compareProcessedConcurrently(JsonHPackProcessor.unpackProcessor(), packed);
+  }
+
+
   @Test
   public void shouldBeThreadSafe() throws Exception {
     genericThreadSafeTest(true);
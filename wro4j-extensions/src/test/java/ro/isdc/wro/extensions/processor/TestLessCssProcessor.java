@@ -73,6 +73,14 @@ public class TestLessCssProcessor {
   }
 
 
+  @Test
+  public void shouldNotShareStateBetweenConcurrentProcessings()
+      throws Exception {
+    WroTestUtils.compareProcessedConcurrently(new LessCssProcessor(), "#id {.class {color: red;}}",
+      "@color: #fff; a {color: @color;}", ".size(@width) {width: @width;} div {.size(10px);}");
+  }
+
+
   @Test(expected=WroRuntimeException.class)
   public void testInvalidLessCss()
       throws Exception {
@@ -31,4 +31,12 @@ public class TestSassCssProcessor {
     final File expectedFolder = new File(url.getFile(), "expected");
     WroTestUtils.compareFromDifferentFoldersByExtension(testFolder, expectedFolder, "css", processor);
   }
+
+
+  @Test
+  public void shouldNotShareStateBetweenConcurrentProcessings()
+      throws Exception {
+    WroTestUtils.compareProcessedConcurrently(new SassCssProcessor(), "red: #ff0000\n\nbody\n  :color !red",
+      "body\n  :font-size 13px\n  :color #fff", "a\n  :color #cc0000\n  ul\n    :margin 0");
+  }
 }
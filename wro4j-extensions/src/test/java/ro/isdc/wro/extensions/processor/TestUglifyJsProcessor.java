@@ -61,4 +61,12 @@ public class TestUglifyJsProcessor {
     WroTestUtils.runConcurrently(task);
   }
 
+
+  @Test
+  public void shouldNotShareStateBetweenConcurrentProcessings()
+      throws Exception {
+    WroTestUtils.compareProcessedConcurrently(new UglifyJsProcessor(), "alert(1);",
+      "function sum(first, second) { return first + second; }", "var object = {a: 1}; if (object.a) { object.b = 2; }");
+  }
+
 }
@@ -5,14 +5,22 @@ package ro.isdc.wro.extensions.processor.support;
 
 import junit.framework.Assert;
 
+import org.junit.After;
 import org.junit.Test;
 
+import ro.isdc.wro.config.Context;
+import ro.isdc.wro.config.jmx.WroConfiguration;
 import ro.isdc.wro.util.ObjectFactory;
 
 /**
  * @author Alex Objelean
  */
 public class TestObjectPoolHelper {
+  @After
+  public void tearDown() {
+    Context.unset();
+  }
+
   @Test(expected=NullPointerException.class)
   public void cannotAcceptNullArgument() throws Exception {
     new ObjectPoolHelper<Void>(null);
@@ -41,4 +49,47 @@ public class TestObjectPoolHelper {
     Assert.assertEquals(Integer.valueOf(3), object);
     pool.returnObject(object);
   }
+
+  @Test
+  public void shouldCreateIdleObjectsInAdvance() throws Exception {
+    final WroConfiguration config = new WroConfiguration();
+    config.setJmxEnabled(false);
+    config.setEnginePoolMaxActive(3);
+    config.setEnginePoolMinIdle(2);
+    Context.set(Context.standaloneContext(), config);
+    final ObjectPoolHelper<Integer> pool = new ObjectPoolHelper<Integer>(new ObjectFactory<Integer>() {
+      public Integer create() {
+        return 3;
+      }
+    });
+    pool.returnObject(pool.getObject());
+    Assert.assertEquals(2, pool.getCreatedCount());
+    Assert.assertEquals(2, pool.getNumIdle());
+    Assert.assertEquals(1, pool.getBorrowedCount());
+    pool.destroy();
+  }
+
+  @Test
+  public void shouldFailWhenMaxWaitIsExceeded() throws Exception {
+    final WroConfiguration config = new WroConfiguration();
+    config.setJmxEnabled(false);
+    config.setEnginePoolMaxActive(1);
+    config.setEnginePoolMaxWait(10);
+    Context.set(Context.standaloneContext(), config);
+    final ObjectPoolHelper<Integer> pool = new ObjectPoolHelper<Integer>(new ObjectFactory<Integer>() {
+      public Integer create() {
+        return 3;
+      }
+    });
+    pool.getObject();
+    try {
+      pool.getObject();
+      Assert.fail("Expected exception");
+    } catch (final RuntimeException e) {
+      Assert.assertEquals(1, pool.getFailedBorrowCount());
+      Assert.assertEquals(1, pool.getNumActive());
+      Assert.assertTrue(pool.getMaxBorrowWaitTime() >= 10);
+    }
+    pool.destroy();
+  }
 }
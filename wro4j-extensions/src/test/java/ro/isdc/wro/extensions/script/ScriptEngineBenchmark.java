@@ -0,0 +1,104 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.extensions.script;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.SuffixFileFilter;
+
+import ro.isdc.wro.extensions.processor.support.less.LessCss;
+import ro.isdc.wro.extensions.processor.support.uglify.UglifyJs;
+
+
+/**
+ * Compares the {@link ScriptEngineFactory} implementations by processing the test resources with the less and uglify
+ * processors. The first call of each processor loads its libraries and is reported separately. Usage:
+ *
+ * <pre>
+ * java ro.isdc.wro.extensions.script.ScriptEngineBenchmark [factoryClassName ...]
+ * </pre>
+ *
+ * When no factory is provided, {@link RhinoScriptEngineFactory} is used. Each factory should be measured in a separate
+ * jvm, since the libraries loaded by a factory are cached for the lifetime of the jvm.
+ *
+ * @author Alex Objelean
+ */
+public class ScriptEngineBenchmark {
+  private static final int WARM_UP_ITERATIONS = 3;
+  private static final int ITERATIONS = 10;
+
+  /**
+   * A processed resource.
+   */
+  private interface Task {
+    void run(String content)
+      throws Exception;
+  }
+
+
+  public static void main(final String[] args)
+    throws Exception {
+    final String[] factories = args.length == 0 ? new String[] {
+      RhinoScriptEngineFactory.class.getName()
+    } : args;
+    final List<String> cssList = readResources("ro/isdc/wro/extensions/processor/lesscss/test", ".css");
+    final List<String> jsList = readResources("ro/isdc/wro/extensions/processor/uglify/expected", ".js");
+    for (final String factory : factories) {
+      ScriptEngines.setFactory((ScriptEngineFactory)Class.forName(factory).newInstance());
+      System.out.println(factory);
+      benchmark("less", cssList, new Task() {
+        public void run(final String content) {
+          new LessCss().less(content);
+        }
+      });
+      benchmark("uglify", jsList, new Task() {
+        public void run(final String content)
+          throws Exception {
+          UglifyJs.uglifyJs().process(content);
+        }
+      });
+    }
+  }
+
+
+  private static void benchmark(final String name, final List<String> contents, final Task task)
+    throws Exception {
+    long start = System.nanoTime();
+    task.run(contents.get(0));
+    System.out.println(String.format("  %s first call: %d ms", name, (System.nanoTime() - start) / 1000000));
+    for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+      runAll(contents, task);
+    }
+    start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      runAll(contents, task);
+    }
+    final long average = (System.nanoTime() - start) / ITERATIONS / 1000000;
+    System.out.println(String.format("  %s %d resources: %d ms", name, contents.size(), average));
+  }
+
+
+  private static void runAll(final List<String> contents, final Task task)
+    throws Exception {
+    for (final String content : contents) {
+      task.run(content);
+    }
+  }
+
+
+  private static List<String> readResources(final String folder, final String extension)
+    throws IOException {
+    final File file = new File(Thread.currentThread().getContextClassLoader().getResource(folder).getFile());
+    final List<String> contents = new ArrayList<String>();
+    for (final File resource : file.listFiles((FileFilter)new SuffixFileFilter(extension))) {
+      contents.add(FileUtils.readFileToString(resource));
+    }
+    return contents;
+  }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.extensions.script;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import ro.isdc.wro.extensions.script.RhinoScriptBuilder.ScopeInitializer;
+
+
+/**
+ * @author Alex Objelean
+ */
+public class TestRhinoScriptBuilder {
+  @Test(expected = NullPointerException.class)
+  public void cannotUseNullSharedScope() {
+    RhinoScriptBuilder.newChain(null);
+  }
+
+  @Test
+  public void shouldInitializeSharedScopeOnce()
+    throws Exception {
+    final AtomicInteger initializations = new AtomicInteger();
+    final ScopeInitializer initializer = new ScopeInitializer() {
+      public RhinoScriptBuilder initialize()
+        throws IOException {
+        initializations.incrementAndGet();
+        return RhinoScriptBuilder.newChain().evaluateChain("function square(x) { return x * x; }", "square.js");
+      }
+    };
+    final Object key = new Object();
+    for (int i = 0; i < 3; i++) {
+      final RhinoScriptBuilder builder = RhinoScriptBuilder.newChain(key, initializer);
+      Assert.assertEquals("4", builder.evaluate("String(square(2))", "invoke"));
+    }
+    Assert.assertEquals(1, initializations.get());
+  }
+
+  @Test
+  public void shouldNotModifySharedScope()
+    throws Exception {
+    final ScopeInitializer initializer = new ScopeInitializer() {
+      public RhinoScriptBuilder initialize()
+        throws IOException {
+        return RhinoScriptBuilder.newChain().evaluateChain("var value = 'shared';", "init.js");
+      }
+    };
+    final Object key = new Object();
+    RhinoScriptBuilder.newChain(key, initializer).evaluate("var value = 'changed'; var other = 1;", "change");
+    Assert.assertEquals("shared", RhinoScriptBuilder.newChain(key, initializer).evaluate("value", "check"));
+    Assert.assertEquals("undefined", RhinoScriptBuilder.newChain(key, initializer).evaluate("typeof other",
+      "check"));
+  }
+
+  @Test
+  public void shouldAddVariableWithoutModifyingSharedScope()
+    throws Exception {
+    final ScopeInitializer initializer = new ScopeInitializer() {
+      public RhinoScriptBuilder initialize()
+        throws IOException {
+        return RhinoScriptBuilder.newChain().evaluateChain("var data = 'shared';", "init.js");
+      }
+    };
+    final Object key = new Object();
+    final String data = "var s = \"quoted\\n\";\n// ']];\n";
+    Assert.assertEquals(data, RhinoScriptBuilder.newChain(key, initializer).addVariable("data", data).evaluate("data",
+      "check"));
+    Assert.assertEquals("shared", RhinoScriptBuilder.newChain(key, initializer).evaluate("data", "check"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void cannotUseInvalidOptimizationLevel() {
+    RhinoScriptBuilder.newChain().setOptimizationLevel(10);
+  }
+
+  @Test
+  public void shouldEvaluateChainWithCompiledScript()
+    throws Exception {
+    final RhinoScriptBuilder builder = RhinoScriptBuilder.newChain().setOptimizationLevel(
+      RhinoScriptBuilder.MAX_OPTIMIZATION_LEVEL).evaluateChain("function square(x) { return x * x; }", "square.js");
+    Assert.assertEquals("4", builder.evaluate("String(square(2))", "invoke"));
+  }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright Alex Objelean
+ */
+package ro.isdc.wro.extensions.script;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import ro.isdc.wro.WroRuntimeException;
+
+
+/**
+ * @author Alex Objelean
+ */
+public class TestRhinoScriptEngineFactory {
+  private final ScriptEngineFactory factory = new RhinoScriptEngineFactory();
+  private static final Map<String, Object> NO_VARIABLES = Collections.emptyMap();
+
+  @Test
+  public void shouldLoadSharedLibraryOnce() {
+    final AtomicInteger loads = new AtomicInteger();
+    final ScriptLibrary library = new ScriptLibrary() {
+      public void load(final ScriptLoader loader) {
+        loads.incrementAndGet();
+        loader.evaluate("function square(x) { return x * x; }", "square.js");
+      }
+    };
+    final Object key = new Object();
+    for (int i = 0; i < 3; i++) {
+      final ScriptEngine engine = factory.newEngine(key, library);
+      Assert.assertEquals("4", engine.evaluate("String(square(x))", "invoke", Collections.singletonMap("x", 2)));
+    }
+    Assert.assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void shouldReturnJavaValues() {
+    final ScriptEngine engine = factory.newEngine(null, new ScriptLibrary() {
+      public void load(final ScriptLoader loader) {
+      }
+    });
+    final List<?> result = (List<?>)engine.evaluate("[{line: 1, reason: 'bad'}, null, 'text']", "invoke", NO_VARIABLES);
+    Assert.assertEquals(3, result.size());
+    final Map<?, ?> error = (Map<?, ?>)result.get(0);
+    Assert.assertEquals(1, ((Number)error.get("line")).intValue());
+    Assert.assertEquals("bad", error.get("reason"));
+    Assert.assertEquals(Arrays.asList(null, "text"), result.subList(1, 3));
+    Assert.assertNull(engine.evaluate("undefined", "invoke", NO_VARIABLES));
+    Assert.assertEquals(Boolean.TRUE, engine.evaluate("true", "invoke", NO_VARIABLES));
+  }
+
+  @Test(expected = WroRuntimeException.class)
+  public void cannotEvaluateInvalidScript() {
+    factory.newEngine(null, new ScriptLibrary() {
+      public void load(final ScriptLoader loader) {
+      }
+    }).evaluate("invalid script(", "invalid", NO_VARIABLES);
+  }
+}